@@ -0,0 +1,67 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Journal append throughput. {@code append} only copies into the mapping;
+ * {@code appendDurable} also waits for the group-commit fsync, so with more
+ * threads more appends share each force.
+ *
+ * <pre>mvn -P benchmark test-compile exec:exec -Djmh.args="JournalAppendBenchmark"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class JournalAppendBenchmark {
+
+    private static final InventoryChangeDto CHANGE = new InventoryChangeDto(
+            0, 42L, 1005L, "Smartwatch", 17, LocalDate.of(2026, 5, 30), 3L);
+
+    @Param({"64"})
+    public int segmentSizeMb;
+
+    private Path directory;
+    private MappedJournal journal;
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("journal-bench");
+        journal = MappedJournal.open(directory, segmentSizeMb * 1024 * 1024);
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long append() {
+        return journal.append(CHANGE);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public long appendDurable() throws IOException {
+        long end = journal.append(CHANGE);
+        journal.awaitDurable(end);
+        return end;
+    }
+}
@@ -0,0 +1,74 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time to rebuild state from a snapshot of {@code batches} batches plus a journal
+ * tail of {@code tail} records (the file work only; writing back to the database
+ * is not included).
+ *
+ * <pre>mvn -P benchmark test-compile exec:exec -Djmh.args="JournalRecoveryBenchmark"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class JournalRecoveryBenchmark {
+
+    private static final int SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    @Param({"10000000"})
+    public int batches;
+
+    @Param({"1000000"})
+    public int tail;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void prepare() throws IOException {
+        directory = Files.createTempDirectory("journal-recovery-bench");
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE)) {
+            JournalSnapshots.write(directory, journal.position(), sink -> {
+                for (long id = 0; id < batches; id++) {
+                    sink.accept(batch(id, 100, 1));
+                }
+            });
+            long end = 0;
+            for (int i = 0; i < tail; i++) {
+                end = journal.append(batch((long) i * 7919 % batches, 99, 2));
+            }
+            journal.awaitDurable(end);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cleanUp() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Benchmark
+    public int recover() throws IOException {
+        return JournalRecovery.recover(directory, SEGMENT_SIZE).batches().size();
+    }
+
+    private static InventoryChangeDto batch(long id, int quantity, long version) {
+        return new InventoryChangeDto(0, id, 1000 + id % 5000, "Product " + id % 5000, quantity,
+                LocalDate.of(2026, 1, 1).plusDays(id % 365), version);
+    }
+}
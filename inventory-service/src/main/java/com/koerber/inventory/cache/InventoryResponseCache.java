@@ -0,0 +1,140 @@
+package com.koerber.inventory.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Encoded GET /inventory/{productId} bodies, so an unchanged product is served
+ * by copying bytes instead of mapping and serialising its batches.
+ *
+ * <p>Each product has a version that is bumped when a transaction that changed
+ * its batches completes, whether it committed or rolled back (the write-behind
+ * ledger exposes in-flight deductions, so a rollback changes what readers see
+ * too). Stock escrow, whose rows lag its in-memory counters, bumps it through
+ * {@link #invalidate} when each reservation completes. An entry is only stored if the version it was built under is still
+ * current, so a read racing with a write never caches stale bytes past the
+ * write, provided the loader's read starts after the version is taken: a
+ * loader must not hand back a result shared from a read that began earlier
+ * (see {@link #getVersion}). Least recently used entries are evicted once the cached bodies exceed
+ * {@code inventory.response-cache.max-bytes}; 0 disables the cache.
+ */
+@Component
+public class InventoryResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final Counter hits;
+    private final Counter misses;
+
+    private final Map<Long, Long> versions = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long cachedBytes;
+
+    public InventoryResponseCache(ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${inventory.response-cache.max-bytes:16777216}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        this.hits = meterRegistry.counter("inventory.response-cache.hits");
+        this.misses = meterRegistry.counter("inventory.response-cache.misses");
+        Gauge.builder("inventory.response-cache.bytes", this, InventoryResponseCache::getCachedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the product's encoded response, building and caching it on a miss.
+     *
+     * @param loader builds the response; its exceptions propagate and nothing is cached
+     */
+    public byte[] get(Long productId, Supplier<InventoryResponse> loader) {
+        long version = getVersion(productId);
+        synchronized (this) {
+            Entry entry = entries.get(productId);
+            if (entry != null && entry.version() == version) {
+                hits.increment();
+                return entry.body();
+            }
+        }
+        misses.increment();
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(loader.get());
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        put(productId, version, body);
+        return body;
+    }
+
+    /**
+     * The product's current version. Callers that share loads between concurrent
+     * readers key them on it, so a reader that has seen a write's version never
+     * joins a load that started before that write completed.
+     */
+    public long getVersion(Long productId) {
+        return versions.getOrDefault(productId, 0L);
+    }
+
+    /**
+     * Drops every cached body.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        cachedBytes = 0;
+    }
+
+    /**
+     * Bumps the product's version, so its cached body is rebuilt on the next read.
+     */
+    public void invalidate(Long productId) {
+        versions.merge(productId, 1L, Long::sum);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        for (InventoryChangeDto change : event.changes()) {
+            invalidate(change.getProductId());
+        }
+    }
+
+    synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    private synchronized void put(Long productId, long version, byte[] body) {
+        if (body.length > maxBytes || versions.getOrDefault(productId, 0L) != version) {
+            return;
+        }
+        Entry previous = entries.put(productId, new Entry(version, body));
+        if (previous != null) {
+            cachedBytes -= previous.body().length;
+        }
+        cachedBytes += body.length;
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (cachedBytes > maxBytes) {
+            cachedBytes -= eldest.next().body().length;
+            eldest.remove();
+        }
+    }
+
+    private record Entry(long version, byte[] body) {
+    }
+}
@@ -0,0 +1,90 @@
+package com.koerber.inventory.catalog;
+
+import com.koerber.inventory.repository.ProductRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Product names by product id, held in memory so reads never join the product
+ * table. Every product is loaded at startup; a product added since (e.g. by
+ * another instance) is read by primary key on first use and then cached. Names
+ * are interned, so products sharing a name share one string.
+ *
+ * <p>Writers go through {@link #register}, which upserts the rows in the caller's
+ * transaction and updates the cache only once it commits.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductCatalog {
+
+    private final ProductRepository productRepository;
+
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        productRepository.forEachProduct((productId, name) -> names.put(productId, name.intern()));
+        log.info("Loaded {} products into the catalog", names.size());
+    }
+
+    /**
+     * @return the product's name, or null when there is no such product
+     */
+    public String getName(long productId) {
+        String name = names.get(productId);
+        if (name != null) {
+            return name;
+        }
+        name = productRepository.findName(productId);
+        if (name == null) {
+            return null;
+        }
+        // A concurrent register() wins over this possibly older read
+        String interned = name.intern();
+        String cached = names.putIfAbsent(productId, interned);
+        return cached != null ? cached : interned;
+    }
+
+    /**
+     * Creates or renames products. Runs in the caller's transaction; the cache sees
+     * the new names after commit, or at once when there is no transaction.
+     *
+     * @param namesByProduct product name, keyed by product id
+     */
+    public void register(Map<Long, String> namesByProduct) {
+        // Re-importing known products is the usual case and writes nothing
+        Map<Long, String> changed = new HashMap<>();
+        namesByProduct.forEach((productId, name) -> {
+            if (!name.equals(names.get(productId))) {
+                changed.put(productId, name);
+            }
+        });
+        if (changed.isEmpty()) {
+            return;
+        }
+        productRepository.upsert(changed);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            cache(changed);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cache(changed);
+            }
+        });
+    }
+
+    private void cache(Map<Long, String> namesByProduct) {
+        namesByProduct.forEach((productId, name) -> names.put(productId, name.intern()));
+    }
+}
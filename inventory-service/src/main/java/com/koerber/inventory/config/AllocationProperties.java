@@ -0,0 +1,29 @@
+package com.koerber.inventory.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-product choice of allocation strategy, by InventoryHandler type, e.g.
+ * {@code inventory.allocation.products.1005=BEST_FIT}. Products not listed use
+ * {@code inventory.allocation.default-strategy}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "inventory.allocation")
+public class AllocationProperties {
+
+    private String defaultStrategy = "DEFAULT";
+
+    private Map<Long, String> products = new HashMap<>();
+
+    /**
+     * How many days after the earliest expiring batch FEWEST_BATCHES may still
+     * treat batches as interchangeable.
+     */
+    private int expiryToleranceDays = 7;
+}
@@ -0,0 +1,58 @@
+package com.koerber.inventory.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Optional read datasource, e.g. a replica of the primary database. When
+ * {@code inventory.datasource.read.url} is set, read-only transactions and
+ * reports use it; everything else stays on {@code spring.datasource}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "inventory.datasource.read")
+public class ReadDataSourceProperties {
+
+    private String url;
+
+    private String username = "sa";
+
+    private String password = "";
+
+    private int maximumPoolSize = 10;
+
+    /**
+     * How long after a write commits reads of the written products still go to
+     * the primary. Should exceed the replica's usual lag.
+     */
+    private long maxLagMs = 1000;
+
+    /**
+     * Run the Liquibase changelog against the read datasource at startup too.
+     * Only for local stand-ins (e.g. a second H2 database) that are not real replicas.
+     */
+    private boolean initialize;
+
+    public boolean isEnabled() {
+        return url != null && !url.isBlank();
+    }
+
+    /**
+     * Opens a read-only connection pool to the read datasource. The caller owns and closes it.
+     */
+    public HikariDataSource createPool(String poolName, int maximumPoolSize) {
+        HikariDataSource pool = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        pool.setPoolName(poolName);
+        pool.setMaximumPoolSize(maximumPoolSize);
+        pool.setReadOnly(true);
+        return pool;
+    }
+}
@@ -0,0 +1,86 @@
+package com.koerber.inventory.config;
+
+import com.koerber.inventory.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import liquibase.exception.LiquibaseException;
+import liquibase.integration.spring.SpringLiquibase;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replaces the single datasource with a primary and a read pool when
+ * {@code inventory.datasource.read.url} is set. Connections are handed out
+ * lazily, on a transaction's first statement: read-only transactions then get
+ * the read pool (or the primary while {@code ReadRouting} pins them there),
+ * everything else the primary. Work outside a transaction, such as Liquibase,
+ * the snapshot stream and the write-behind loads, stays on the primary. The
+ * primary pool is configured by {@code spring.datasource.hikari.*}, as the
+ * single datasource would be.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "inventory.datasource.read.url")
+public class ReadWriteDataSourceConfig {
+
+    // Not beans, so SqlStatisticsConfig wraps only the routing datasource and statements count once
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties dataSourceProperties,
+                                 ReadDataSourceProperties readDataSourceProperties,
+                                 LiquibaseProperties liquibaseProperties,
+                                 Environment environment) throws LiquibaseException {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        // Bound by hand, like Boot binds its own Hikari bean, because the pool is not a bean
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        if (primary.getPoolName() == null) {
+            primary.setPoolName("inventory-primary");
+        }
+        pools.add(primary);
+
+        HikariDataSource replica =
+                readDataSourceProperties.createPool("inventory-read", readDataSourceProperties.getMaximumPoolSize());
+        pools.add(replica);
+
+        if (readDataSourceProperties.isInitialize()) {
+            migrate(replica, liquibaseProperties);
+        }
+        log.info("Read-only transactions use {}", readDataSourceProperties.getUrl());
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replica));
+        return dataSource;
+    }
+
+    @PreDestroy
+    public void closePools() {
+        pools.forEach(HikariDataSource::close);
+    }
+
+    private static void migrate(DataSource replica, LiquibaseProperties liquibaseProperties) throws LiquibaseException {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(replica);
+        liquibase.setChangeLog(liquibaseProperties.getChangeLog());
+        if (liquibaseProperties.getContexts() != null) {
+            liquibase.setContexts(String.join(",", liquibaseProperties.getContexts()));
+        }
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+    }
+}
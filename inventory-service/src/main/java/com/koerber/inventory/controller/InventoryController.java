@@ -1,14 +1,32 @@
 package com.koerber.inventory.controller;
 
+import com.koerber.inventory.cache.InventoryResponseCache;
+import com.koerber.inventory.dto.AvailabilityResponse;
+import com.koerber.inventory.dto.BatchImportResponse;
+import com.koerber.inventory.dto.BulkReserveRequest;
+import com.koerber.inventory.dto.BulkReserveResponse;
 import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.ReleaseRequest;
+import com.koerber.inventory.dto.ReserveRequest;
+import com.koerber.inventory.dto.ReserveResponse;
 import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.koerber.inventory.importer.ImportFormat;
+import com.koerber.inventory.service.InventoryImportService;
 import com.koerber.inventory.service.InventoryService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+
 @RestController
 @RequestMapping("/inventory")
 @RequiredArgsConstructor
@@ -16,11 +34,22 @@ import org.springframework.web.bind.annotation.*;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final InventoryImportService inventoryImportService;
+    private final InventoryResponseCache inventoryResponseCache;
 
     @GetMapping("/{productId}")
     @Operation(summary = "Get inventory batches for a product sorted by expiry date")
-    public ResponseEntity<InventoryResponse> getInventory(@PathVariable Long productId) {
-        return ResponseEntity.ok(inventoryService.getInventorySortedByExpiry(productId));
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = InventoryResponse.class)))
+    public ResponseEntity<byte[]> getInventory(@PathVariable Long productId) {
+        // Unchanged products are served from pre-encoded bytes
+        byte[] body = inventoryResponseCache.get(productId, () -> inventoryService.getInventorySortedByExpiry(productId));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/{productId}/available")
+    @Operation(summary = "Get the total available quantity for a product")
+    public ResponseEntity<AvailabilityResponse> getAvailableQuantity(@PathVariable Long productId) {
+        return ResponseEntity.ok(inventoryService.getAvailableQuantity(productId));
     }
 
     @PostMapping("/update")
@@ -29,4 +58,30 @@ public class InventoryController {
         inventoryService.updateInventory(request);
         return ResponseEntity.ok().build();
     }
+
+    @PostMapping("/release")
+    @Operation(summary = "Return what a bulk reservation took to its batches; releasing an id twice, or before it is reserved, is allowed")
+    public ResponseEntity<Void> releaseReservation(@RequestBody ReleaseRequest request) {
+        inventoryService.releaseReservation(request);
+        return ResponseEntity.ok().build();
+    }
+
+    @PostMapping("/reserve")
+    @Operation(summary = "Reserve a quantity of a product using its configured allocation strategy")
+    public ResponseEntity<ReserveResponse> reserve(@RequestBody ReserveRequest request) {
+        return ResponseEntity.ok(inventoryService.reserve(request));
+    }
+
+    @PostMapping("/reserve/bulk")
+    @Operation(summary = "Reserve several product lines at once; either every line is reserved or none is")
+    public ResponseEntity<BulkReserveResponse> reserveAll(@RequestBody BulkReserveRequest request) {
+        return ResponseEntity.ok(inventoryService.reserveAll(request));
+    }
+
+    @PostMapping(value = "/batches/import", consumes = {"text/csv", "application/x-ndjson"})
+    @Operation(summary = "Stream new inventory batches from a CSV or NDJSON body")
+    public ResponseEntity<BatchImportResponse> importBatches(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                             InputStream body) throws IOException {
+        return ResponseEntity.ok(inventoryImportService.importBatches(body, ImportFormat.fromContentType(contentType)));
+    }
 }
@@ -0,0 +1,68 @@
+package com.koerber.inventory.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.feed.InventoryChangeFeed;
+import com.koerber.inventory.repository.InventoryBatchJdbcRepository;
+import com.koerber.inventory.writebehind.WriteBehindLedger;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+@RestController
+@RequestMapping("/inventory")
+@RequiredArgsConstructor
+@Tag(name = "Inventory feed", description = "Change stream for keeping read replicas of inventory")
+public class InventoryFeedController {
+
+    private final InventoryChangeFeed inventoryChangeFeed;
+    private final InventoryBatchJdbcRepository inventoryBatchJdbcRepository;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<WriteBehindLedger> writeBehindLedger;
+
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream committed batch changes after the given sequence number")
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestParam(required = false) Long epoch,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return inventoryChangeFeed.subscribe(since != null ? since : lastEventId, epoch);
+    }
+
+    @GetMapping("/snapshot")
+    @Operation(summary = "Stream every batch together with the feed position it is consistent with")
+    public ResponseEntity<StreamingResponseBody> snapshot() {
+        // Read the position first: rows read afterwards are at least this fresh, and
+        // replaying later change events over them is idempotent
+        long epoch = inventoryChangeFeed.getEpoch();
+        long sequence = inventoryChangeFeed.currentSequence();
+        // Changes up to that position may still be waiting in the write-behind ledger
+        writeBehindLedger.ifAvailable(WriteBehindLedger::flush);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeNumberField("epoch", epoch);
+                json.writeNumberField("sequence", sequence);
+                json.writeArrayFieldStart("batches");
+                inventoryBatchJdbcRepository.forEachBatch(batch -> {
+                    try {
+                        json.writeObject(batch);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
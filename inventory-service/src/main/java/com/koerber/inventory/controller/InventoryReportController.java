@@ -0,0 +1,54 @@
+package com.koerber.inventory.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.report.ExpiryReport;
+import com.koerber.inventory.report.ExpiryTotals;
+import com.koerber.inventory.service.InventoryReportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/inventory")
+@RequiredArgsConstructor
+@Tag(name = "Inventory reports", description = "Whole-inventory reports, run on a separate connection pool")
+public class InventoryReportController {
+
+    private final InventoryReportService inventoryReportService;
+    private final ProductCatalog productCatalog;
+    private final ObjectMapper objectMapper;
+
+    @GetMapping("/expiring")
+    @Operation(summary = "Stock expiring within the given number of days, per product, earliest expiry first")
+    public ResponseEntity<StreamingResponseBody> findExpiring(@RequestParam(defaultValue = "30") int withinDays) {
+        ExpiryReport report = inventoryReportService.findExpiring(withinDays);
+        ExpiryTotals totals = report.totals();
+        // Written straight from the primitive totals, without a DTO per product
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartObject();
+                json.writeNumberField("withinDays", report.withinDays());
+                json.writeStringField("cutoff", report.cutoff().toString());
+                json.writeArrayFieldStart("products");
+                for (int i : totals.orderByExpiry()) {
+                    json.writeStartObject();
+                    json.writeNumberField("productId", totals.productId(i));
+                    json.writeStringField("productName", productCatalog.getName(totals.productId(i)));
+                    json.writeNumberField("batches", totals.batchCount(i));
+                    json.writeNumberField("quantity", totals.quantity(i));
+                    json.writeStringField("earliestExpiry", totals.earliestExpiry(i).toString());
+                    json.writeEndObject();
+                }
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+}
@@ -0,0 +1,90 @@
+package com.koerber.inventory.datasource;
+
+import com.koerber.inventory.config.ReadDataSourceProperties;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes over a lagging replica: remembers when each product was last
+ * written, and routes reads of a product to the primary until
+ * {@code inventory.datasource.read.max-lag-ms} has passed since that write
+ * committed. Does nothing when no read datasource is configured.
+ */
+@Component
+public class ReplicaLagGuard {
+
+    // Expired entries are swept once this many products are tracked
+    private static final int SWEEP_THRESHOLD = 10_000;
+
+    private final boolean enabled;
+    private final long maxLagNanos;
+    private final Counter primaryFallbacks;
+
+    private final Map<Long, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    public ReplicaLagGuard(ReadDataSourceProperties readDataSourceProperties, MeterRegistry meterRegistry) {
+        this.enabled = readDataSourceProperties.isEnabled();
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(readDataSourceProperties.getMaxLagMs());
+        this.primaryFallbacks = meterRegistry.counter("inventory.datasource.read.primary-fallbacks");
+    }
+
+    /**
+     * Runs a read of the product, on the primary if the replica may not have the
+     * product's latest committed write yet.
+     */
+    public <T> T read(Long productId, Supplier<T> read) {
+        return mustReadPrimary(productId) ? readPrimary(read) : read.get();
+    }
+
+    /**
+     * Whether reads of the product must go to the primary because the replica may
+     * not have its latest committed write yet. Callers that share reads between
+     * threads decide this first and never share a pinned read with a replica read.
+     */
+    public boolean mustReadPrimary(Long productId) {
+        return enabled && productId != null && isRecentlyWritten(productId);
+    }
+
+    /**
+     * Runs a read that {@link #mustReadPrimary} pinned to the primary.
+     */
+    public <T> T readPrimary(Supplier<T> read) {
+        primaryFallbacks.increment();
+        return ReadRouting.onPrimary(read);
+    }
+
+    boolean isRecentlyWritten(long productId) {
+        Long writtenAt = lastWriteNanos.get(productId);
+        if (writtenAt == null) {
+            return false;
+        }
+        if (System.nanoTime() - writtenAt < maxLagNanos) {
+            return true;
+        }
+        lastWriteNanos.remove(productId, writtenAt);
+        return false;
+    }
+
+    @TransactionalEventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (InventoryChangeDto change : event.changes()) {
+            lastWriteNanos.put(change.getProductId(), now);
+        }
+        if (lastWriteNanos.size() > SWEEP_THRESHOLD) {
+            lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt >= maxLagNanos);
+        }
+    }
+}
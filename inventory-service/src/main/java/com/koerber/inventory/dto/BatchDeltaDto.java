@@ -0,0 +1,19 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Net committed change to one batch that has not been written to the database
+ * yet. Positive quantities were deducted; negative ones were released.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDeltaDto {
+    private Long batchId;
+    private Long productId;
+    private long quantityDeducted;
+    private long version; // batch version after the last change folded into this delta
+}
@@ -0,0 +1,18 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchImportDto {
+    private Long batchId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private LocalDate expiryDate;
+}
@@ -0,0 +1,15 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchImportResponse {
+    private long rowsImported;
+    private int chunksCommitted;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,25 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * State of a single batch after a committed change. Quantities are absolute
+ * (not deltas) so that replaying an event a subscriber has already applied,
+ * e.g. after a snapshot, is harmless.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryChangeDto {
+    private long sequence;
+    private Long batchId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private LocalDate expiryDate;
+    private Long version; // batch version after the change; lets subscribers drop out-of-order events
+}
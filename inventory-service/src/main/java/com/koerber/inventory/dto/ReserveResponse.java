@@ -0,0 +1,17 @@
+package com.koerber.inventory.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReserveResponse {
+    private Long productId;
+    private String productName;
+    private String strategy;
+    private List<BatchUpdateDto> batchUpdates;
+}
@@ -0,0 +1,93 @@
+package com.koerber.inventory.escrow;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * One batch's quantity split into independently decremented sub-buckets. Each
+ * bucket sits on its own cache line, so threads working different buckets do
+ * not contend. Units only move between buckets through {@link #rebalance}, so
+ * the buckets never hold more than the batch did, and never go negative.
+ */
+final class EscrowBuckets {
+
+    // 8 longs = 64 bytes: one bucket per cache line
+    private static final int STRIDE = 8;
+
+    private final AtomicLongArray cells;
+    private final int buckets;
+
+    EscrowBuckets(int buckets, long quantity) {
+        this.buckets = buckets;
+        this.cells = new AtomicLongArray(buckets * STRIDE);
+        put(0, quantity);
+        rebalance();
+    }
+
+    int buckets() {
+        return buckets;
+    }
+
+    /**
+     * Takes up to {@code wanted} units from one bucket.
+     *
+     * @return the units taken, possibly zero
+     */
+    long take(int bucket, long wanted) {
+        int cell = bucket * STRIDE;
+        while (true) {
+            long current = cells.get(cell);
+            if (current == 0) {
+                return 0;
+            }
+            long taken = Math.min(current, wanted);
+            if (cells.compareAndSet(cell, current, current - taken)) {
+                return taken;
+            }
+        }
+    }
+
+    void put(int bucket, long quantity) {
+        cells.addAndGet(bucket * STRIDE, quantity);
+    }
+
+    /**
+     * Sums the buckets. Exact only while no take or put runs concurrently.
+     */
+    long total() {
+        long total = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            total += cells.get(bucket * STRIDE);
+        }
+        return total;
+    }
+
+    /**
+     * Evens the buckets out. Concurrent takes and puts stay safe: surplus is
+     * moved out with compare-and-set before it is handed to poorer buckets.
+     */
+    void rebalance() {
+        long target = Math.max(1, total() / buckets);
+        long moving = 0;
+        for (int bucket = 0; bucket < buckets; bucket++) {
+            int cell = bucket * STRIDE;
+            long current = cells.get(cell);
+            while (current > target && !cells.compareAndSet(cell, current, target)) {
+                current = cells.get(cell);
+            }
+            if (current > target) {
+                moving += current - target;
+            }
+        }
+        for (int bucket = 0; bucket < buckets && moving > 0; bucket++) {
+            long missing = target - cells.get(bucket * STRIDE);
+            if (missing > 0) {
+                long moved = Math.min(missing, moving);
+                put(bucket, moved);
+                moving -= moved;
+            }
+        }
+        if (moving > 0) {
+            put(0, moving);
+        }
+    }
+}
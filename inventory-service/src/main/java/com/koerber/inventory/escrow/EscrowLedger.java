@@ -0,0 +1,515 @@
+package com.koerber.inventory.escrow;
+
+import com.koerber.inventory.cache.InventoryResponseCache;
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.datasource.ReadRouting;
+import com.koerber.inventory.dto.BatchDeltaDto;
+import com.koerber.inventory.dto.BatchDto;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.ReserveResponse;
+import com.koerber.inventory.exception.InsufficientInventoryException;
+import com.koerber.inventory.exception.ProductNotFoundException;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchJdbcRepository;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Stock escrow for hot products listed in {@code inventory.escrow.products}.
+ *
+ * <p>Each batch of an escrowed product is split into {@code inventory.escrow.buckets}
+ * sub-buckets held in memory. A reservation decrements the bucket picked by its
+ * thread with compare-and-set and borrows from the neighbouring buckets when that
+ * one runs dry, so concurrent reservations of the same product rarely touch the
+ * same counter and never the same row. A bucket cannot go below zero, so the
+ * product is never oversold. When the lock-free pass comes up short, the request
+ * is retried once under the product lock, which also blocks rebalancing. Near
+ * sell-out, a request can still be refused while another request's units are in
+ * flight.
+ *
+ * <p>Every {@code inventory.escrow.interval-ms} the buckets are rebalanced and the
+ * net deduction per batch is written with one batched {@code UPDATE}, which also
+ * raises {@link InventoryChangedEvent} for the feed and journal. Database rows
+ * therefore lag the escrow by at most one interval, while the response cache is
+ * invalidated as soon as each reservation completes, and unflushed deductions
+ * are lost on a crash unless the journal is enabled. Escrowed products must be
+ * changed only through their productId, so that every write goes through here.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "inventory.escrow", name = "products")
+public class EscrowLedger implements SmartLifecycle {
+
+    public static final String HANDLER_TYPE = "ESCROW";
+
+    private static final Comparator<EscrowBatch> EXPIRY_ORDER =
+            Comparator.comparing((EscrowBatch b) -> b.expiryDate).thenComparing(b -> b.batchId);
+
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final InventoryBatchJdbcRepository inventoryBatchJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductCatalog productCatalog;
+    private final InventoryResponseCache inventoryResponseCache;
+    private final Set<Long> products;
+    private final int buckets;
+    private final long intervalMs;
+    private final int jdbcBatchSize;
+    private final Counter borrows;
+    private final Counter lockedRetries;
+
+    private final Map<Long, EscrowProduct> productsById = new ConcurrentHashMap<>();
+    private final Map<Long, EscrowBatch> batchesById = new ConcurrentHashMap<>();
+
+    // Serialises flushes so that each batch's persisted quantity and version advance in order
+    private final Object flushMonitor = new Object();
+    private ScheduledExecutorService maintainer;
+    private volatile boolean running;
+
+    public EscrowLedger(InventoryBatchRepository inventoryBatchRepository,
+                        InventoryBatchJdbcRepository inventoryBatchJdbcRepository,
+                        TransactionTemplate transactionTemplate,
+                        ApplicationEventPublisher eventPublisher,
+                        ProductCatalog productCatalog,
+                        InventoryResponseCache inventoryResponseCache,
+                        MeterRegistry meterRegistry,
+                        @Value("${inventory.escrow.products}") Set<Long> products,
+                        @Value("${inventory.escrow.buckets:8}") int buckets,
+                        @Value("${inventory.escrow.interval-ms:100}") long intervalMs,
+                        @Value("${inventory.import.jdbc-batch-size:1000}") int jdbcBatchSize) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException("inventory.escrow.buckets must be positive");
+        }
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.inventoryBatchJdbcRepository = inventoryBatchJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.productCatalog = productCatalog;
+        this.inventoryResponseCache = inventoryResponseCache;
+        this.products = Set.copyOf(products);
+        this.buckets = buckets;
+        this.intervalMs = intervalMs;
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.borrows = meterRegistry.counter("inventory.escrow.borrows");
+        this.lockedRetries = meterRegistry.counter("inventory.escrow.locked-retries");
+    }
+
+    @Override
+    public void start() {
+        for (Long productId : products) {
+            EscrowProduct product = new EscrowProduct();
+            // The escrow takes these rows over, so they must not come from a lagging replica
+            List<InventoryBatch> batches = ReadRouting.onPrimary(
+                    () -> inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId));
+            for (InventoryBatch batch : batches) {
+                product.add(register(batch.getBatchId(), productId, batch.getQuantity(),
+                        batch.getExpiryDate(), batch.getVersion()));
+            }
+            productsById.put(productId, product);
+        }
+        log.info("Escrow holds {} batches of products {} in {} buckets each", batchesById.size(), products, buckets);
+        maintainer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-escrow");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintainer.scheduleWithFixedDelay(this::maintainQuietly, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (maintainer != null) {
+            maintainer.shutdown();
+            try {
+                maintainer.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // After the journal has restored the tables, and stopped before it
+        return 1;
+    }
+
+    public boolean manages(Long productId) {
+        return productId != null && products.contains(productId);
+    }
+
+    /**
+     * Returns the product's batches, sorted by expiry, with their escrowed quantities.
+     */
+    public InventoryResponse getInventory(Long productId) {
+        EscrowBatch[] productBatches = product(productId).batches;
+        List<BatchDto> batchDtos = new ArrayList<>(productBatches.length);
+        for (EscrowBatch batch : productBatches) {
+            batchDtos.add(new BatchDto(batch.batchId, (int) batch.buckets.total(), batch.expiryDate));
+        }
+        return new InventoryResponse(productId, productCatalog.getName(productId), batchDtos);
+    }
+
+    public long getAvailable(Long productId) {
+        long available = 0;
+        for (EscrowBatch batch : product(productId).batches) {
+            available += batch.buckets.total();
+        }
+        return available;
+    }
+
+    /**
+     * Reserves the quantity from the product's batches in expiry order.
+     */
+    public ReserveResponse reserve(Long productId, int quantity) {
+        EscrowProduct product = product(productId);
+        List<Taken> taken = takeInExpiryOrder(product.batches, quantity);
+        if (taken == null) {
+            lockedRetries.increment();
+            product.lock.lock();
+            try {
+                taken = takeInExpiryOrder(product.batches, quantity);
+            } finally {
+                product.lock.unlock();
+            }
+            if (taken == null) {
+                throw new InsufficientInventoryException("Insufficient inventory for productId: " + productId
+                        + ". Requested: " + quantity + ", Available: " + getAvailable(productId));
+            }
+        }
+        onCompletion(productId, taken);
+
+        Map<Long, BatchUpdateDto> allocation = new LinkedHashMap<>();
+        for (Taken t : taken) {
+            allocation.merge(t.batch.batchId, new BatchUpdateDto(t.batch.batchId, (int) t.quantity),
+                    (a, b) -> new BatchUpdateDto(a.getBatchId(), a.getQuantityToDeduct() + b.getQuantityToDeduct()));
+        }
+        return new ReserveResponse(productId, productCatalog.getName(productId), HANDLER_TYPE,
+                new ArrayList<>(allocation.values()));
+    }
+
+    /**
+     * Applies signed deductions (negative values add stock back) to the named
+     * batches. Either every update is applied or, if a batch is unknown or short,
+     * none is.
+     */
+    public void apply(Long productId, List<BatchUpdateDto> batchUpdates) {
+        EscrowProduct product = product(productId);
+        for (BatchUpdateDto update : batchUpdates) {
+            if (update.getQuantityToDeduct() == null) {
+                throw new IllegalArgumentException("quantityToDeduct must not be null");
+            }
+            EscrowBatch batch = batchesById.get(update.getBatchId());
+            if (batch == null || batch.productId != productId.longValue()) {
+                throw new IllegalArgumentException("Batch not found: " + update.getBatchId());
+            }
+        }
+        // Stock given back only becomes reservable once the release commits
+        List<Taken> released = new ArrayList<>();
+        List<BatchUpdateDto> deductions = new ArrayList<>(batchUpdates.size());
+        for (BatchUpdateDto update : batchUpdates) {
+            if (update.getQuantityToDeduct() < 0) {
+                released.add(new Taken(batchesById.get(update.getBatchId()), homeBucket(),
+                        update.getQuantityToDeduct()));
+            } else {
+                deductions.add(update);
+            }
+        }
+        List<Taken> taken = takeFromBatches(deductions);
+        if (taken == null) {
+            lockedRetries.increment();
+            product.lock.lock();
+            try {
+                taken = takeFromBatches(deductions);
+            } finally {
+                product.lock.unlock();
+            }
+        }
+        taken.addAll(released);
+        onCompletion(productId, taken);
+    }
+
+    /**
+     * Rebalances every product's buckets, then flushes.
+     */
+    public void maintain() {
+        for (EscrowProduct product : productsById.values()) {
+            product.lock.lock();
+            try {
+                for (EscrowBatch batch : product.batches) {
+                    batch.buckets.rebalance();
+                }
+            } finally {
+                product.lock.unlock();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Writes the net committed deduction of every changed batch in one transaction
+     * and publishes the new row state. On failure the deltas are kept for the next
+     * attempt.
+     */
+    public void flush() {
+        synchronized (flushMonitor) {
+            List<EscrowBatch> dirty = new ArrayList<>();
+            List<BatchDeltaDto> deltas = new ArrayList<>();
+            for (EscrowBatch batch : batchesById.values()) {
+                long deducted = batch.unflushed.getAndSet(0);
+                if (deducted != 0) {
+                    dirty.add(batch);
+                    deltas.add(new BatchDeltaDto(batch.batchId, batch.productId, deducted, batch.version + 1));
+                }
+            }
+            if (deltas.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    inventoryBatchJdbcRepository.applyDeltas(deltas, jdbcBatchSize);
+                    List<InventoryChangeDto> changes = new ArrayList<>(deltas.size());
+                    for (int i = 0; i < deltas.size(); i++) {
+                        EscrowBatch batch = dirty.get(i);
+                        changes.add(new InventoryChangeDto(0, batch.batchId, batch.productId,
+                                productCatalog.getName(batch.productId),
+                                (int) (batch.persisted - deltas.get(i).getQuantityDeducted()), batch.expiryDate,
+                                batch.version + 1));
+                    }
+                    eventPublisher.publishEvent(new InventoryChangedEvent(changes));
+                });
+            } catch (RuntimeException ex) {
+                for (int i = 0; i < deltas.size(); i++) {
+                    dirty.get(i).unflushed.addAndGet(deltas.get(i).getQuantityDeducted());
+                }
+                throw ex;
+            }
+            for (int i = 0; i < deltas.size(); i++) {
+                EscrowBatch batch = dirty.get(i);
+                batch.persisted -= deltas.get(i).getQuantityDeducted();
+                batch.version++;
+            }
+        }
+    }
+
+    /**
+     * Picks up batches of escrowed products created by the bulk import.
+     */
+    @TransactionalEventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        for (InventoryChangeDto row : event.changes()) {
+            EscrowProduct product = productsById.get(row.getProductId());
+            if (product == null || batchesById.containsKey(row.getBatchId())) {
+                continue;
+            }
+            product.lock.lock();
+            try {
+                product.add(register(row.getBatchId(), row.getProductId(), row.getQuantity(),
+                        row.getExpiryDate(), row.getVersion()));
+            } finally {
+                product.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Takes the quantity from the batches in expiry order, or returns null, with
+     * nothing taken, if they do not hold enough.
+     */
+    private List<Taken> takeInExpiryOrder(EscrowBatch[] productBatches, long quantity) {
+        int home = homeBucket();
+        List<Taken> taken = new ArrayList<>(2);
+        long remaining = quantity;
+        for (EscrowBatch batch : productBatches) {
+            remaining -= takeFromBatch(batch, home, remaining, taken);
+            if (remaining == 0) {
+                return taken;
+            }
+        }
+        giveBack(taken);
+        return null;
+    }
+
+    /**
+     * Applies the deductions, or returns null, with nothing taken, if a batch is
+     * short. Throws when a batch is short even under the product lock.
+     */
+    private List<Taken> takeFromBatches(List<BatchUpdateDto> deductions) {
+        int home = homeBucket();
+        List<Taken> taken = new ArrayList<>(deductions.size());
+        for (BatchUpdateDto update : deductions) {
+            EscrowBatch batch = batchesById.get(update.getBatchId());
+            long wanted = update.getQuantityToDeduct();
+            if (takeFromBatch(batch, home, wanted, taken) < wanted) {
+                giveBack(taken);
+                if (productsById.get(batch.productId).lock.isHeldByCurrentThread()) {
+                    throw new IllegalArgumentException("Insufficient quantity in batch: " + update.getBatchId());
+                }
+                return null;
+            }
+        }
+        return taken;
+    }
+
+    private long takeFromBatch(EscrowBatch batch, int home, long wanted, List<Taken> taken) {
+        long got = 0;
+        for (int i = 0; i < buckets && got < wanted; i++) {
+            int bucket = (home + i) % buckets;
+            long t = batch.buckets.take(bucket, wanted - got);
+            if (t > 0) {
+                if (i > 0) {
+                    borrows.increment();
+                }
+                taken.add(new Taken(batch, bucket, t));
+                got += t;
+            }
+        }
+        return got;
+    }
+
+    private static void giveBack(List<Taken> taken) {
+        for (Taken t : taken) {
+            if (t.quantity > 0) {
+                t.batch.buckets.put(t.bucket, t.quantity);
+            }
+        }
+        taken.clear();
+    }
+
+    /**
+     * Counts the changes for the next flush, and makes released units reservable,
+     * once the caller's transaction commits. If it rolls back, deducted units go
+     * back to their buckets and releases are dropped. Either way the product's
+     * cached response no longer matches the buckets and is invalidated.
+     */
+    private void onCompletion(Long productId, List<Taken> taken) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commit(taken);
+            inventoryResponseCache.invalidate(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    commit(taken);
+                } else {
+                    giveBack(new ArrayList<>(taken));
+                }
+                inventoryResponseCache.invalidate(productId);
+            }
+        });
+    }
+
+    private static void commit(List<Taken> taken) {
+        for (Taken t : taken) {
+            if (t.quantity < 0) {
+                t.batch.buckets.put(t.bucket, -t.quantity);
+            }
+            t.batch.unflushed.addAndGet(t.quantity);
+        }
+    }
+
+    private int homeBucket() {
+        long id = Thread.currentThread().getId();
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 33) % buckets;
+    }
+
+    private EscrowProduct product(Long productId) {
+        EscrowProduct product = productsById.get(productId);
+        if (product == null || product.batches.length == 0) {
+            throw new ProductNotFoundException("No inventory found for productId: " + productId);
+        }
+        return product;
+    }
+
+    private EscrowBatch register(long batchId, long productId, long quantity, LocalDate expiryDate, long version) {
+        EscrowBatch batch = new EscrowBatch(batchId, productId, expiryDate,
+                new EscrowBuckets(buckets, quantity), quantity, version);
+        batchesById.put(batchId, batch);
+        return batch;
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+        } catch (Exception ex) {
+            log.warn("Inventory escrow flush failed, will retry: {}", ex.getMessage());
+        }
+    }
+
+    private static final class EscrowProduct {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Copy-on-write, sorted by expiry; written under the lock
+        private volatile EscrowBatch[] batches = new EscrowBatch[0];
+
+        private void add(EscrowBatch batch) {
+            EscrowBatch[] grown = Arrays.copyOf(batches, batches.length + 1);
+            grown[grown.length - 1] = batch;
+            Arrays.sort(grown, EXPIRY_ORDER);
+            batches = grown;
+        }
+    }
+
+    private static final class EscrowBatch {
+        private final long batchId;
+        private final long productId;
+        private final LocalDate expiryDate;
+        private final EscrowBuckets buckets;
+        // Committed deductions not yet written; negative for net releases
+        private final AtomicLong unflushed = new AtomicLong();
+        // Row state as last written; only changed by flush
+        private long persisted;
+        private long version;
+
+        private EscrowBatch(long batchId, long productId, LocalDate expiryDate,
+                            EscrowBuckets buckets, long persisted, long version) {
+            this.batchId = batchId;
+            this.productId = productId;
+            this.expiryDate = expiryDate;
+            this.buckets = buckets;
+            this.persisted = persisted;
+            this.version = version;
+        }
+    }
+
+    private record Taken(EscrowBatch batch, int bucket, long quantity) {
+    }
+}
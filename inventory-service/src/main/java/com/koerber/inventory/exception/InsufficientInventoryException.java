@@ -0,0 +1,7 @@
+package com.koerber.inventory.exception;
+
+public class InsufficientInventoryException extends RuntimeException {
+    public InsufficientInventoryException(String message) {
+        super(message);
+    }
+}
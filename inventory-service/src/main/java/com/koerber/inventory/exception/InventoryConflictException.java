@@ -0,0 +1,7 @@
+package com.koerber.inventory.exception;
+
+public class InventoryConflictException extends RuntimeException {
+    public InventoryConflictException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
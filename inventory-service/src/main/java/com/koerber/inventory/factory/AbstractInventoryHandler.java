@@ -0,0 +1,218 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.BatchDto;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.ReserveRequest;
+import com.koerber.inventory.dto.ReserveResponse;
+import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.koerber.inventory.exception.InsufficientInventoryException;
+import com.koerber.inventory.exception.ProductNotFoundException;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
+import com.koerber.inventory.writebehind.WriteBehindLedger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Base class for handlers that share the batch read and deduction logic and
+ * differ only in how a requested quantity is allocated across batches.
+ *
+ * <p>When a {@link WriteBehindLedger} is configured, batches are read from and
+ * deducted in memory; the ledger persists the changes later.
+ */
+public abstract class AbstractInventoryHandler implements InventoryHandler {
+
+    protected final InventoryBatchRepository inventoryBatchRepository;
+    protected final ProductAvailabilityRepository productAvailabilityRepository;
+    protected final ApplicationEventPublisher eventPublisher;
+    protected final ProductCatalog productCatalog;
+
+    private WriteBehindLedger writeBehindLedger;
+
+    protected AbstractInventoryHandler(InventoryBatchRepository inventoryBatchRepository,
+                                       ProductAvailabilityRepository productAvailabilityRepository,
+                                       ApplicationEventPublisher eventPublisher,
+                                       ProductCatalog productCatalog) {
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.productAvailabilityRepository = productAvailabilityRepository;
+        this.eventPublisher = eventPublisher;
+        this.productCatalog = productCatalog;
+    }
+
+    @Autowired(required = false)
+    public void setWriteBehindLedger(WriteBehindLedger writeBehindLedger) {
+        this.writeBehindLedger = writeBehindLedger;
+    }
+
+    @Override
+    public InventoryResponse getInventorySortedByExpiry(Long productId) {
+        List<InventoryBatch> batches = findBatches(productId);
+
+        if (batches.isEmpty()) {
+            throw new ProductNotFoundException("No inventory found for productId: " + productId);
+        }
+
+        String productName = productCatalog.getName(productId);
+        List<BatchDto> batchDtos = batches.stream()
+                .map(b -> new BatchDto(b.getBatchId(), b.getQuantity(), b.getExpiryDate()))
+                .collect(Collectors.toList());
+
+        return new InventoryResponse(productId, productName, batchDtos);
+    }
+
+    @Override
+    @Transactional
+    public void updateInventory(UpdateInventoryRequest request) {
+        // Validate input: null -> error, empty -> no-op
+        if (request == null) {
+            throw new IllegalArgumentException("UpdateInventoryRequest must not be null");
+        }
+        if (request.getBatchUpdates() == null) {
+            throw new IllegalArgumentException("batchUpdates must not be null");
+        }
+        if (request.getBatchUpdates().isEmpty()) {
+            // nothing to do
+            return;
+        }
+
+        deduct(request.getBatchUpdates(), null);
+    }
+
+    @Override
+    @Transactional
+    public void releaseInventory(UpdateInventoryRequest request) {
+        if (request == null || request.getBatchUpdates() == null) {
+            throw new IllegalArgumentException("batchUpdates must not be null");
+        }
+        List<BatchUpdateDto> negated = new ArrayList<>(request.getBatchUpdates().size());
+        for (BatchUpdateDto update : request.getBatchUpdates()) {
+            if (update.getQuantityToDeduct() == null || update.getQuantityToDeduct() <= 0) {
+                throw new IllegalArgumentException("Released quantity must be greater than zero.");
+            }
+            negated.add(new BatchUpdateDto(update.getBatchId(), -update.getQuantityToDeduct()));
+        }
+        if (!negated.isEmpty()) {
+            deduct(negated, null);
+        }
+    }
+
+    @Override
+    @Transactional
+    public ReserveResponse reserve(ReserveRequest request) {
+        if (request == null || request.getProductId() == null) {
+            throw new IllegalArgumentException("ReserveRequest must have a productId");
+        }
+        if (request.getQuantity() == null || request.getQuantity() <= 0) {
+            throw new IllegalArgumentException("Reserve quantity must be greater than zero.");
+        }
+        if (writeBehindLedger != null) {
+            // Check, allocate and deduct without another writer in between
+            return writeBehindLedger.locked(() -> allocateAndDeduct(request));
+        }
+        return allocateAndDeduct(request);
+    }
+
+    private ReserveResponse allocateAndDeduct(ReserveRequest request) {
+        Long productId = request.getProductId();
+        List<InventoryBatch> batches = findBatches(productId);
+        if (batches.isEmpty()) {
+            throw new ProductNotFoundException("No inventory found for productId: " + productId);
+        }
+
+        long available = 0;
+        for (InventoryBatch batch : batches) {
+            available += batch.getQuantity();
+        }
+        if (available < request.getQuantity()) {
+            throw new InsufficientInventoryException("Insufficient inventory for productId: " + productId
+                    + ". Requested: " + request.getQuantity() + ", Available: " + available);
+        }
+
+        // The batches are already loaded, so the deductions do not re-query them
+        List<BatchUpdateDto> allocation = allocate(batches, request.getQuantity());
+        Map<Long, InventoryBatch> batchesById = new HashMap<>();
+        for (InventoryBatch batch : batches) {
+            batchesById.put(batch.getBatchId(), batch);
+        }
+        deduct(allocation, batchesById);
+        return new ReserveResponse(productId, productCatalog.getName(productId), getHandlerType(), allocation);
+    }
+
+    private List<InventoryBatch> findBatches(Long productId) {
+        if (writeBehindLedger != null) {
+            return writeBehindLedger.getBatches(productId);
+        }
+        return inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId);
+    }
+
+    /**
+     * Applies the deductions in the ledger when write-behind is enabled, otherwise
+     * to the given batches, loading them if {@code batchesById} is null.
+     */
+    private void deduct(List<BatchUpdateDto> batchUpdates, Map<Long, InventoryBatch> batchesById) {
+        if (writeBehindLedger != null) {
+            eventPublisher.publishEvent(new InventoryChangedEvent(writeBehindLedger.apply(batchUpdates)));
+            return;
+        }
+        applyDeductions(batchUpdates, batchesById != null ? batchesById : loadBatches(batchUpdates));
+    }
+
+    /**
+     * Loads every batch referenced by the updates with a single query.
+     */
+    private Map<Long, InventoryBatch> loadBatches(List<BatchUpdateDto> batchUpdates) {
+        List<Long> batchIds = new ArrayList<>(batchUpdates.size());
+        for (BatchUpdateDto update : batchUpdates) {
+            batchIds.add(update.getBatchId());
+        }
+        Map<Long, InventoryBatch> batchesById = new HashMap<>();
+        for (InventoryBatch batch : inventoryBatchRepository.findAllById(batchIds)) {
+            batchesById.put(batch.getBatchId(), batch);
+        }
+        return batchesById;
+    }
+
+    /**
+     * Applies signed deductions (negative values add stock back), keeping the
+     * availability counters and change feed in step. The dirty batches are flushed
+     * as one JDBC batch at commit.
+     */
+    private void applyDeductions(List<BatchUpdateDto> batchUpdates, Map<Long, InventoryBatch> batchesById) {
+        Map<Long, Long> deductedByProduct = new HashMap<>();
+        List<InventoryChangeDto> changes = new ArrayList<>(batchUpdates.size());
+        for (BatchUpdateDto update : batchUpdates) {
+            InventoryBatch batch = batchesById.get(update.getBatchId());
+            if (batch == null) {
+                throw new IllegalArgumentException("Batch not found: " + update.getBatchId());
+            }
+
+            int newQuantity = batch.getQuantity() - update.getQuantityToDeduct();
+            if (newQuantity < 0) {
+                throw new IllegalArgumentException(
+                        "Insufficient quantity in batch: " + update.getBatchId());
+            }
+            batch.setQuantity(newQuantity);
+            inventoryBatchRepository.save(batch);
+            deductedByProduct.merge(batch.getProductId(), update.getQuantityToDeduct().longValue(), Long::sum);
+            // The flush increments the @Version column by one
+            changes.add(new InventoryChangeDto(0, batch.getBatchId(), batch.getProductId(),
+                    productCatalog.getName(batch.getProductId()), newQuantity, batch.getExpiryDate(), batch.getVersion() + 1));
+        }
+
+        // Keep the availability counters consistent within the same transaction
+        deductedByProduct.forEach(productAvailabilityRepository::decrement);
+        eventPublisher.publishEvent(new InventoryChangedEvent(changes));
+    }
+}
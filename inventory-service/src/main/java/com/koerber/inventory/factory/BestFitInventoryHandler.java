@@ -0,0 +1,52 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills an order from the single smallest batch that can cover it, so only one
+ * row is written; ties go to the earliest expiry. Falls back to FEFO when no
+ * single batch is large enough.
+ */
+@Component
+public class BestFitInventoryHandler extends AbstractInventoryHandler {
+
+    public static final String HANDLER_TYPE = "BEST_FIT";
+
+    public BestFitInventoryHandler(InventoryBatchRepository inventoryBatchRepository,
+                                   ProductAvailabilityRepository productAvailabilityRepository,
+                                   ApplicationEventPublisher eventPublisher,
+                                   ProductCatalog productCatalog) {
+        super(inventoryBatchRepository, productAvailabilityRepository, eventPublisher, productCatalog);
+    }
+
+    @Override
+    public List<BatchUpdateDto> allocate(List<InventoryBatch> batches, int quantity) {
+        InventoryBatch bestFit = null;
+        for (InventoryBatch batch : batches) {
+            if (batch.getQuantity() >= quantity
+                    && (bestFit == null || batch.getQuantity() < bestFit.getQuantity())) {
+                bestFit = batch;
+            }
+        }
+        List<BatchUpdateDto> allocation = new ArrayList<>();
+        if (bestFit != null) {
+            allocation.add(new BatchUpdateDto(bestFit.getBatchId(), quantity));
+            return allocation;
+        }
+        return DefaultInventoryHandler.allocateFefo(batches, quantity, allocation);
+    }
+
+    @Override
+    public String getHandlerType() {
+        return HANDLER_TYPE;
+    }
+}
@@ -0,0 +1,70 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.config.AllocationProperties;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Relaxed FEFO that touches as few batches as possible. Batches expiring within
+ * the configured tolerance of the earliest non-empty batch are treated as
+ * interchangeable and drawn largest first; anything still missing is taken from
+ * the remaining batches in FEFO order.
+ */
+@Component
+public class FewestBatchesInventoryHandler extends AbstractInventoryHandler {
+
+    public static final String HANDLER_TYPE = "FEWEST_BATCHES";
+
+    private final AllocationProperties allocationProperties;
+
+    public FewestBatchesInventoryHandler(InventoryBatchRepository inventoryBatchRepository,
+                                         ProductAvailabilityRepository productAvailabilityRepository,
+                                         ApplicationEventPublisher eventPublisher,
+                                         ProductCatalog productCatalog,
+                                         AllocationProperties allocationProperties) {
+        super(inventoryBatchRepository, productAvailabilityRepository, eventPublisher, productCatalog);
+        this.allocationProperties = allocationProperties;
+    }
+
+    @Override
+    public List<BatchUpdateDto> allocate(List<InventoryBatch> batches, int quantity) {
+        List<InventoryBatch> window = new ArrayList<>();
+        List<InventoryBatch> rest = new ArrayList<>();
+        LocalDate windowEnd = null;
+        for (InventoryBatch batch : batches) {
+            if (batch.getQuantity() <= 0) continue;
+            if (windowEnd == null) {
+                windowEnd = batch.getExpiryDate().plusDays(allocationProperties.getExpiryToleranceDays());
+            }
+            (batch.getExpiryDate().isAfter(windowEnd) ? rest : window).add(batch);
+        }
+
+        // Stable sort: equal quantities keep their expiry order
+        window.sort(Comparator.comparing(InventoryBatch::getQuantity).reversed());
+
+        List<BatchUpdateDto> allocation = new ArrayList<>();
+        int remaining = quantity;
+        for (InventoryBatch batch : window) {
+            if (remaining <= 0) break;
+            int deductAmount = Math.min(batch.getQuantity(), remaining);
+            remaining -= deductAmount;
+            allocation.add(new BatchUpdateDto(batch.getBatchId(), deductAmount));
+        }
+        return DefaultInventoryHandler.allocateFefo(rest, remaining, allocation);
+    }
+
+    @Override
+    public String getHandlerType() {
+        return HANDLER_TYPE;
+    }
+}
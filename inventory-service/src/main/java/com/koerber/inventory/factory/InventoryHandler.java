@@ -1,13 +1,21 @@
 package com.koerber.inventory.factory;
 
+import com.koerber.common.tracing.Traced;
+import com.koerber.inventory.dto.BatchUpdateDto;
 import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.ReserveRequest;
+import com.koerber.inventory.dto.ReserveResponse;
 import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.koerber.inventory.model.InventoryBatch;
+
+import java.util.List;
 
 /**
  * Strategy interface for inventory handling operations.
  * Implementations can provide different inventory management strategies
  * (e.g., FEFO, FIFO, LIFO) making the system easily extensible.
  */
+@Traced
 public interface InventoryHandler {
 
     /**
@@ -25,6 +33,34 @@ public interface InventoryHandler {
      */
     void updateInventory(UpdateInventoryRequest request);
 
+    /**
+     * Returns previously deducted quantities to their batches, e.g. to undo a
+     * reservation whose order could not be completed.
+     *
+     * @param request the batches and quantities to add back
+     */
+    void releaseInventory(UpdateInventoryRequest request);
+
+    /**
+     * Allocates the requested quantity across the product's batches using this
+     * handler's strategy and deducts it, in one transaction.
+     *
+     * @param request the product and quantity to reserve
+     * @return the batch deductions that were applied
+     */
+    ReserveResponse reserve(ReserveRequest request);
+
+    /**
+     * Chooses the batches to deduct from, without reading or changing any stored state.
+     * Called only when the batches hold at least {@code quantity} units in total; the
+     * result must cover exactly {@code quantity}.
+     *
+     * @param batches  the product's batches sorted by expiry date (ascending)
+     * @param quantity the quantity to allocate, greater than zero
+     * @return deductions to apply, in the order they should be listed to the caller
+     */
+    List<BatchUpdateDto> allocate(List<InventoryBatch> batches, int quantity);
+
     /**
      * Returns the handler type key used by the factory for lookup.
      *
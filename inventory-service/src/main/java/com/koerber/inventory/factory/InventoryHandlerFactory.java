@@ -1,7 +1,11 @@
 package com.koerber.inventory.factory;
 
+import com.koerber.inventory.config.AllocationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
@@ -11,15 +15,31 @@ import java.util.stream.Collectors;
  * Factory class for obtaining the appropriate InventoryHandler implementation.
  * New handler strategies can be added by implementing the InventoryHandler interface
  * and annotating with @Component - they will be automatically registered here.
+ *
+ * <p>The per-product strategy configuration in {@link AllocationProperties} is resolved
+ * to handler instances once at construction, so an unknown strategy fails startup
+ * and per-call lookups are a single map read.
  */
 @Component
 public class InventoryHandlerFactory {
 
     private final Map<String, InventoryHandler> handlers;
+    private final InventoryHandler productDefaultHandler;
+    private final Map<Long, InventoryHandler> productHandlers;
 
     public InventoryHandlerFactory(List<InventoryHandler> handlerList) {
+        this(handlerList, new AllocationProperties());
+    }
+
+    @Autowired
+    public InventoryHandlerFactory(List<InventoryHandler> handlerList, AllocationProperties allocationProperties) {
         this.handlers = handlerList.stream()
                 .collect(Collectors.toMap(InventoryHandler::getHandlerType, Function.identity()));
+        this.productDefaultHandler = getHandler(allocationProperties.getDefaultStrategy());
+
+        Map<Long, InventoryHandler> resolved = new HashMap<>();
+        allocationProperties.getProducts().forEach((productId, type) -> resolved.put(productId, getHandler(type)));
+        this.productHandlers = Collections.unmodifiableMap(resolved);
     }
 
     /**
@@ -45,4 +65,15 @@ public class InventoryHandlerFactory {
     public InventoryHandler getDefaultHandler() {
         return getHandler(DefaultInventoryHandler.HANDLER_TYPE);
     }
+
+    /**
+     * Returns the handler configured for a product, or the configured default strategy.
+     *
+     * @param productId the product identifier, may be null
+     * @return the InventoryHandler to use for the product
+     */
+    public InventoryHandler getHandlerForProduct(Long productId) {
+        InventoryHandler handler = productHandlers.get(productId);
+        return handler != null ? handler : productDefaultHandler;
+    }
 }
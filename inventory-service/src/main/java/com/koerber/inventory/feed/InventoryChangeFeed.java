@@ -0,0 +1,184 @@
+package com.koerber.inventory.feed;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequenced stream of committed inventory changes, served to subscribers over SSE.
+ *
+ * <p>Every committed {@link InventoryChangedEvent} is given consecutive sequence
+ * numbers and kept in a fixed-size ring buffer. Subscribers resume from the last
+ * sequence they saw; if that has already been overwritten they receive a
+ * {@code resync} event and must reload from the snapshot endpoint. One import
+ * chunk publishes up to {@code inventory.import.chunk-size} changes at once, so the
+ * ring must be several chunks large for subscribers to keep up through an import.
+ *
+ * <p>Sequence numbers restart when the service restarts; each run has a distinct
+ * epoch, and subscribers presenting a stale epoch are told to resync.
+ *
+ * <p>All sends happen on a single dispatcher thread, so a slow subscriber never
+ * blocks the committing request thread.
+ */
+@Slf4j
+@Component
+public class InventoryChangeFeed {
+
+    public static final String CHANGE_EVENT = "change";
+    public static final String RESYNC_EVENT = "resync";
+
+    private final long epoch = System.currentTimeMillis();
+    private final InventoryChangeDto[] ring;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService dispatcher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-feed-dispatcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private long headSequence; // guarded by this
+
+    public InventoryChangeFeed(@Value("${inventory.feed.buffer-size:100000}") int bufferSize,
+                               @Value("${inventory.feed.heartbeat-interval-ms:15000}") long heartbeatIntervalMs,
+                               @Value("${inventory.import.chunk-size:10000}") int importChunkSize) {
+        if (bufferSize <= importChunkSize) {
+            log.warn("inventory.feed.buffer-size ({}) is not larger than inventory.import.chunk-size ({}); "
+                    + "subscribers will have to resync during imports", bufferSize, importChunkSize);
+        }
+        this.ring = new InventoryChangeDto[bufferSize];
+        dispatcher.scheduleAtFixedRate(this::sendHeartbeats,
+                heartbeatIntervalMs, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @TransactionalEventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        publish(event.changes());
+    }
+
+    /**
+     * Assigns sequence numbers to the given changes and schedules delivery.
+     *
+     * @param changes committed batch states, in the order they should be applied
+     */
+    public void publish(List<InventoryChangeDto> changes) {
+        synchronized (this) {
+            for (InventoryChangeDto change : changes) {
+                change.setSequence(++headSequence);
+                ring[(int) (headSequence % ring.length)] = change;
+            }
+        }
+        dispatcher.execute(this::drainAll);
+    }
+
+    /**
+     * Returns the sequence number of the most recent change. A snapshot taken after
+     * reading this value reflects at least every change up to it.
+     */
+    public synchronized long currentSequence() {
+        return headSequence;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Opens a subscription delivering every change after {@code since}.
+     *
+     * @param since      last sequence the subscriber has applied, or null to receive only new changes
+     * @param sinceEpoch epoch the {@code since} value belongs to, or null if unknown
+     * @return the emitter streaming the changes
+     */
+    public SseEmitter subscribe(Long since, Long sinceEpoch) {
+        SseEmitter emitter = new SseEmitter(0L);
+        // A sequence from another epoch is meaningless here; MAX_VALUE forces a resync
+        long start = since == null ? currentSequence()
+                : sinceEpoch != null && sinceEpoch != epoch ? Long.MAX_VALUE : since;
+        Subscription subscription = new Subscription(emitter, start);
+        emitter.onCompletion(() -> subscriptions.remove(subscription));
+        emitter.onError(ex -> subscriptions.remove(subscription));
+        subscriptions.add(subscription);
+        dispatcher.execute(() -> drain(subscription));
+        return emitter;
+    }
+
+    private void drainAll() {
+        for (Subscription subscription : subscriptions) {
+            drain(subscription);
+        }
+    }
+
+    private void drain(Subscription subscription) {
+        while (true) {
+            InventoryChangeDto next;
+            synchronized (this) {
+                // Stale: the subscriber is ahead of us (other epoch) or behind what the ring retains
+                boolean stale = subscription.lastSent > headSequence
+                        || subscription.lastSent < headSequence - ring.length;
+                if (!stale && subscription.lastSent == headSequence) {
+                    return;
+                }
+                next = stale ? null : ring[(int) ((subscription.lastSent + 1) % ring.length)];
+            }
+            try {
+                if (next == null) {
+                    subscription.emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(""));
+                    close(subscription);
+                    return;
+                }
+                subscription.emitter.send(SseEmitter.event()
+                        .id(String.valueOf(next.getSequence()))
+                        .name(CHANGE_EVENT)
+                        .data(next, MediaType.APPLICATION_JSON));
+                subscription.lastSent = next.getSequence();
+            } catch (IOException | IllegalStateException ex) {
+                log.debug("Dropping inventory feed subscriber: {}", ex.getMessage());
+                close(subscription);
+                return;
+            }
+        }
+    }
+
+    private void sendHeartbeats() {
+        for (Subscription subscription : subscriptions) {
+            try {
+                subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException ex) {
+                close(subscription);
+            }
+        }
+    }
+
+    private void close(Subscription subscription) {
+        subscriptions.remove(subscription);
+        subscription.emitter.complete();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscriptions.forEach(subscription -> subscription.emitter.complete());
+        dispatcher.shutdownNow();
+    }
+
+    private static final class Subscription {
+        private final SseEmitter emitter;
+        private long lastSent; // only touched on the dispatcher thread
+
+        private Subscription(SseEmitter emitter, long lastSent) {
+            this.emitter = emitter;
+            this.lastSent = lastSent;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.koerber.inventory.feed;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+
+import java.util.List;
+
+/**
+ * Application event published inside a write transaction listing the batches it
+ * changed. Listeners should use {@code @TransactionalEventListener} so they only
+ * observe committed state.
+ */
+public record InventoryChangedEvent(List<InventoryChangeDto> changes) {
+}
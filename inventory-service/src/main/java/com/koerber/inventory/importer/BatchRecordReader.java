@@ -0,0 +1,28 @@
+package com.koerber.inventory.importer;
+
+import com.koerber.inventory.dto.BatchImportDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-style reader over an import body. Rows are parsed one at a time so that
+ * the full payload is never held in memory.
+ */
+public interface BatchRecordReader extends Closeable {
+
+    /**
+     * Reads the next row from the underlying stream.
+     *
+     * @return the next row, or null once the stream is exhausted
+     * @throws IllegalArgumentException if the row is malformed
+     */
+    BatchImportDto next() throws IOException;
+
+    /**
+     * Returns the 1-based position of the last row returned, for error reporting.
+     *
+     * @return the current record number
+     */
+    long getRecordNumber();
+}
@@ -0,0 +1,121 @@
+package com.koerber.inventory.importer;
+
+import com.koerber.inventory.dto.BatchImportDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads CSV rows using the same header layout as the Liquibase seed file
+ * (batch_id,product_id,product_name,quantity,expiry_date). Columns are matched
+ * by header name, so their order is not significant. Double-quoted fields are
+ * supported for product names containing commas.
+ */
+public class CsvBatchRecordReader implements BatchRecordReader {
+
+    private static final String[] REQUIRED_COLUMNS =
+            {"batch_id", "product_id", "product_name", "quantity", "expiry_date"};
+
+    private final BufferedReader reader;
+    private final int[] columnIndexes = new int[REQUIRED_COLUMNS.length];
+    private long recordNumber;
+
+    public CsvBatchRecordReader(InputStream in) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        readHeader();
+    }
+
+    private void readHeader() throws IOException {
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV import body is empty; a header row is required");
+        }
+        List<String> columns = split(header);
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            positions.put(columns.get(i).trim().toLowerCase(), i);
+        }
+        for (int i = 0; i < REQUIRED_COLUMNS.length; i++) {
+            Integer position = positions.get(REQUIRED_COLUMNS[i]);
+            if (position == null) {
+                throw new IllegalArgumentException("CSV header is missing column: " + REQUIRED_COLUMNS[i]);
+            }
+            columnIndexes[i] = position;
+        }
+    }
+
+    @Override
+    public BatchImportDto next() throws IOException {
+        String line;
+        do {
+            line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+        } while (line.isBlank());
+
+        recordNumber++;
+        List<String> fields = split(line);
+        try {
+            return new BatchImportDto(
+                    Long.valueOf(field(fields, 0)),
+                    Long.valueOf(field(fields, 1)),
+                    field(fields, 2),
+                    Integer.valueOf(field(fields, 3)),
+                    LocalDate.parse(field(fields, 4)));
+        } catch (NumberFormatException | DateTimeParseException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Malformed CSV record " + recordNumber + ": " + ex.getMessage());
+        }
+    }
+
+    private String field(List<String> fields, int column) {
+        return fields.get(columnIndexes[column]).trim();
+    }
+
+    @Override
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+}
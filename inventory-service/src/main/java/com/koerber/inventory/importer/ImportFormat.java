@@ -0,0 +1,40 @@
+package com.koerber.inventory.importer;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Body formats accepted by the batch import endpoint.
+ */
+public enum ImportFormat {
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final MediaType mediaType;
+
+    ImportFormat(String mediaType) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+    }
+
+    public String getMediaType() {
+        return mediaType.toString();
+    }
+
+    /**
+     * Resolves the import format from a request Content-Type header.
+     *
+     * @param contentType the raw Content-Type value, parameters (e.g. charset) are ignored
+     * @return the matching ImportFormat
+     * @throws IllegalArgumentException if the content type is not supported
+     */
+    public static ImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType requested = MediaType.parseMediaType(contentType);
+            for (ImportFormat format : values()) {
+                if (format.mediaType.isCompatibleWith(requested)) {
+                    return format;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Unsupported import content type: " + contentType);
+    }
+}
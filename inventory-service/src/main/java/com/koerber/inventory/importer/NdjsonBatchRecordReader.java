@@ -0,0 +1,47 @@
+package com.koerber.inventory.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.dto.BatchImportDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads newline-delimited JSON, one {@link BatchImportDto} object per line,
+ * using Jackson's streaming MappingIterator.
+ */
+public class NdjsonBatchRecordReader implements BatchRecordReader {
+
+    private final MappingIterator<BatchImportDto> iterator;
+    private long recordNumber;
+
+    public NdjsonBatchRecordReader(InputStream in, ObjectMapper objectMapper) throws IOException {
+        this.iterator = objectMapper.readerFor(BatchImportDto.class).readValues(in);
+    }
+
+    @Override
+    public BatchImportDto next() throws IOException {
+        try {
+            if (!iterator.hasNextValue()) {
+                return null;
+            }
+            recordNumber++;
+            return iterator.nextValue();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Malformed NDJSON record " + (recordNumber + 1) + ": "
+                    + ex.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+}
@@ -0,0 +1,231 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import com.koerber.inventory.repository.InventoryBatchJdbcRepository;
+import com.koerber.inventory.writebehind.WriteBehindLedger;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable journal of committed batch changes, so a restarted instance recovers its
+ * stock from local files instead of the Liquibase seed data.
+ *
+ * <p>Every {@link InventoryChangedEvent} raised by the handlers and the batch import
+ * is appended after commit, and the request waits for the group-commit fsync before
+ * it returns. Snapshots are taken periodically from the database and let older
+ * journal segments be deleted. On start, the latest snapshot plus the journal tail
+ * are written back into inventory_batch and the availability counters are rebuilt,
+ * before the web server accepts requests.
+ *
+ * <p>A change that cannot be appended leaves a gap that replay would silently
+ * skip. Each failure is counted in {@code inventory.journal.append-failures},
+ * reports the journal DOWN and leaves a {@value #REBUILD_MARKER} file in the
+ * directory until a snapshot taken after it covers the gap. A snapshot is
+ * attempted at once. Start fails while the marker is present.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.journal.enabled", havingValue = "true")
+public class InventoryJournal implements SmartLifecycle, HealthIndicator {
+
+    static final String REBUILD_MARKER = "REBUILD-REQUIRED";
+
+    private final InventoryBatchJdbcRepository inventoryBatchJdbcRepository;
+    private final ProductCatalog productCatalog;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<WriteBehindLedger> writeBehindLedger;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.journal.dir:./data/journal}")
+    private Path directory;
+
+    @Value("${inventory.journal.segment-size-mb:64}")
+    private int segmentSizeMb;
+
+    @Value("${inventory.journal.snapshot-interval-ms:300000}")
+    private long snapshotIntervalMs;
+
+    @Value("${inventory.import.jdbc-batch-size:1000}")
+    private int jdbcBatchSize;
+
+    private volatile MappedJournal journal;
+    private ScheduledExecutorService snapshotter;
+    private long lastSnapshotPosition = -1;
+    private final Object markerLock = new Object();
+    private final AtomicLong appendFailures = new AtomicLong();
+    // Append failures that happened before the latest snapshot started reading, so it covers them
+    private volatile long coveredFailures;
+
+    @Override
+    public void start() {
+        if (Files.exists(directory.resolve(REBUILD_MARKER))) {
+            throw new IllegalStateException("Inventory journal in " + directory + " has a gap: committed changes"
+                    + " were not journaled and no snapshot covered them. Restore inventory_batch from a trusted"
+                    + " source, then delete the directory to start a new journal");
+        }
+        try {
+            int segmentSize = segmentSizeMb * 1024 * 1024;
+            long started = System.nanoTime();
+            JournalRecovery.RecoveredState state = JournalRecovery.recover(directory, segmentSize);
+            if (!state.batches().isEmpty()) {
+                Map<Long, String> namesByProduct = new HashMap<>();
+                for (InventoryChangeDto batch : state.batches().values()) {
+                    // A record journalled without a name leaves the product row as it is
+                    if (!batch.getProductName().isEmpty()) {
+                        namesByProduct.put(batch.getProductId(), batch.getProductName());
+                    }
+                }
+                transactionTemplate.executeWithoutResult(status -> {
+                    productCatalog.register(namesByProduct);
+                    inventoryBatchJdbcRepository.restoreBatches(state.batches().values(), jdbcBatchSize);
+                });
+            }
+            log.info("Recovered {} batches from {} snapshot records and {} journal records in {} ms",
+                    state.batches().size(), state.snapshotRecords(), state.replayedRecords(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+            journal = MappedJournal.open(directory, segmentSize);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not recover inventory journal from " + directory, ex);
+        }
+        snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, snapshotIntervalMs, snapshotIntervalMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return journal != null;
+    }
+
+    @Override
+    public int getPhase() {
+        // Before the web server (which starts late in the default phase ordering)
+        return 0;
+    }
+
+    @TransactionalEventListener
+    public void onInventoryChanged(InventoryChangedEvent event) throws InterruptedIOException {
+        MappedJournal current = journal;
+        if (current == null) {
+            log.warn("Inventory journal not started; {} changes not journaled", event.changes().size());
+            return;
+        }
+        List<InventoryChangeDto> changes = event.changes();
+        long end = 0;
+        try {
+            for (InventoryChangeDto change : changes) {
+                end = current.append(change);
+            }
+        } catch (RuntimeException ex) {
+            onAppendFailed(changes.size(), ex);
+            throw ex;
+        }
+        current.awaitDurable(end);
+    }
+
+    @Override
+    public Health health() {
+        long failures = appendFailures.get();
+        if (failures > coveredFailures) {
+            return Health.down()
+                    .withDetail("reason", "Committed changes were not journaled; waiting for a snapshot to cover them")
+                    .withDetail("appendFailures", failures)
+                    .build();
+        }
+        MappedJournal current = journal;
+        return current == null ? Health.unknown().build() : Health.up().withDetail("position", current.position()).build();
+    }
+
+    /**
+     * Writes a snapshot of every batch and drops the journal segments it covers.
+     */
+    public synchronized void snapshot() throws IOException {
+        long failures = appendFailures.get();
+        long position = journal.position();
+        if (position == lastSnapshotPosition && failures == coveredFailures) {
+            return;
+        }
+        // Everything journaled before the position must be in the rows we read
+        writeBehindLedger.ifAvailable(WriteBehindLedger::flush);
+        long count = JournalSnapshots.write(directory, position, inventoryBatchJdbcRepository::forEachBatch);
+        journal.deleteSegmentsBefore(position);
+        lastSnapshotPosition = position;
+        log.info("Inventory snapshot of {} batches at journal position {}", count, position);
+        if (failures > coveredFailures) {
+            coveredFailures = failures;
+            synchronized (markerLock) {
+                if (appendFailures.get() == failures) {
+                    Files.deleteIfExists(directory.resolve(REBUILD_MARKER));
+                    log.info("Inventory snapshot covers the {} failed journal appends", failures);
+                }
+            }
+        }
+    }
+
+    private void onAppendFailed(int changes, RuntimeException ex) {
+        meterRegistry.counter("inventory.journal.append-failures").increment();
+        log.error("Could not journal {} committed changes; the journal has a gap until the next snapshot", changes, ex);
+        synchronized (markerLock) {
+            appendFailures.incrementAndGet();
+            try {
+                Files.writeString(directory.resolve(REBUILD_MARKER), "Journal append failed: " + ex.getMessage());
+            } catch (IOException markerEx) {
+                log.error("Could not write {} to {}", REBUILD_MARKER, directory, markerEx);
+            }
+        }
+        try {
+            snapshotter.execute(this::snapshotQuietly);
+        } catch (RejectedExecutionException shuttingDown) {
+            // Stopping; the marker makes the next start fail instead of replaying the gap
+        }
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception ex) {
+            log.warn("Inventory snapshot failed: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary encoding shared by journal segments and snapshots. Each record is
+ * {@code [int payloadLength][payload][int crc32c(payload)]}, where the payload is
+ * the batch's full state after a change. Because records carry absolute state and
+ * the batch version, replaying one twice or out of order is harmless.
+ */
+final class JournalCodec {
+
+    /** Length and checksum framing around the payload. */
+    static final int FRAME_OVERHEAD = 8;
+
+    private static final int FIXED_PAYLOAD = 8 + 8 + 4 + 8 + 8 + 2;
+
+    private JournalCodec() {
+    }
+
+    static byte[] nameBytes(InventoryChangeDto record) {
+        return record.getProductName() == null ? new byte[0] : record.getProductName().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static int encodedSize(byte[] name) {
+        return FRAME_OVERHEAD + FIXED_PAYLOAD + name.length;
+    }
+
+    /**
+     * Writes one framed record at the buffer's position, which must have room for
+     * {@link #encodedSize(byte[])} bytes.
+     */
+    static void write(ByteBuffer buffer, InventoryChangeDto record, byte[] name) {
+        int start = buffer.position();
+        buffer.putInt(FIXED_PAYLOAD + name.length);
+        buffer.putLong(record.getBatchId());
+        buffer.putLong(record.getProductId());
+        buffer.putInt(record.getQuantity());
+        buffer.putLong(record.getExpiryDate().toEpochDay());
+        buffer.putLong(record.getVersion() == null ? 0L : record.getVersion());
+        buffer.putShort((short) name.length);
+        buffer.put(name);
+        buffer.putInt(checksum(buffer, start + 4, FIXED_PAYLOAD + name.length));
+    }
+
+    /**
+     * Reads the record at the buffer's position. Returns null, leaving the position
+     * unchanged, at the zero-filled end of a segment, when the buffer does not hold
+     * a complete frame, or when the frame fails its checksum (a torn write).
+     */
+    static InventoryChangeDto read(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.remaining() < 4) {
+            return null;
+        }
+        int length = buffer.getInt(start);
+        if (length < FIXED_PAYLOAD || length > buffer.remaining() - FRAME_OVERHEAD) {
+            return null;
+        }
+        if (buffer.getInt(start + 4 + length) != checksum(buffer, start + 4, length)) {
+            return null;
+        }
+        buffer.position(start + 4);
+        long batchId = buffer.getLong();
+        long productId = buffer.getLong();
+        int quantity = buffer.getInt();
+        LocalDate expiry = LocalDate.ofEpochDay(buffer.getLong());
+        long version = buffer.getLong();
+        byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+        buffer.position(start + 4 + length + 4);
+        return new InventoryChangeDto(0, batchId, productId, new String(name, StandardCharsets.UTF_8),
+                quantity, expiry, version);
+    }
+
+    /**
+     * @return the number of bytes the frame at the buffer's position needs, or -1 if
+     *         even its length prefix is not available
+     */
+    static int frameLength(ByteBuffer buffer) {
+        return buffer.remaining() < 4 ? -1 : buffer.getInt(buffer.position()) + FRAME_OVERHEAD;
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.duplicate().limit(offset + length).position(offset));
+        return (int) crc.getValue();
+    }
+}
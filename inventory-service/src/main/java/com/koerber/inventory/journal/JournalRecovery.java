@@ -0,0 +1,52 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Rebuilds batch state from the newest snapshot plus the journal tail after it.
+ */
+public final class JournalRecovery {
+
+    private JournalRecovery() {
+    }
+
+    public static RecoveredState recover(Path directory, int segmentSize) throws IOException {
+        Map<Long, InventoryChangeDto> batches = new HashMap<>();
+        long[] counts = new long[2];
+
+        long from = 0;
+        Optional<Path> snapshot = JournalSnapshots.latest(directory);
+        if (snapshot.isPresent()) {
+            from = JournalSnapshots.load(snapshot.get(), record -> {
+                batches.put(record.getBatchId(), record);
+                counts[0]++;
+            });
+        }
+        long end = MappedJournal.replay(directory, segmentSize, from, record -> {
+            // Skip records the (possibly fuzzy) snapshot already reflects
+            InventoryChangeDto current = batches.get(record.getBatchId());
+            if (current == null || record.getVersion() > current.getVersion()) {
+                batches.put(record.getBatchId(), record);
+            }
+            counts[1]++;
+        });
+        return new RecoveredState(batches, from, end, counts[0], counts[1]);
+    }
+
+    /**
+     * @param batches         latest state of every batch, keyed by batch id
+     * @param snapshotPosition journal position of the loaded snapshot (0 if none)
+     * @param endPosition     position after the last valid journal record
+     * @param snapshotRecords batches read from the snapshot
+     * @param replayedRecords journal records read after the snapshot
+     */
+    public record RecoveredState(Map<Long, InventoryChangeDto> batches, long snapshotPosition, long endPosition,
+                                 long snapshotRecords, long replayedRecords) {
+    }
+}
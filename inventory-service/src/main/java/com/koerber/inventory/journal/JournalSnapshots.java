@@ -0,0 +1,162 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Compact snapshots of every batch's state, named {@code snapshot-<position>.bin}
+ * after the journal position they were taken at. Recovery loads the newest
+ * snapshot and replays the journal from that position.
+ *
+ * <p>A snapshot may be fuzzy: batches changed while it was written can appear in
+ * either state. That is safe because replay applies a journal record only when
+ * its version is newer than the batch's.
+ */
+public final class JournalSnapshots {
+
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x4B534E50; // "KSNP"
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private JournalSnapshots() {
+    }
+
+    /**
+     * Writes a snapshot atomically (temp file, fsync, rename) and deletes older ones.
+     *
+     * @param position journal position the snapshot covers
+     * @param source   called once with a sink that must receive every batch
+     * @return number of batches written
+     */
+    public static long write(Path directory, long position,
+                             Consumer<Consumer<InventoryChangeDto>> source) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, position, SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        long count;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            SnapshotWriter writer = new SnapshotWriter(channel);
+            ByteBuffer header = ByteBuffer.allocate(4 + 8 + 8);
+            header.putInt(MAGIC).putLong(position).putLong(0L).flip();
+            channel.write(header);
+            source.accept(writer);
+            writer.flush();
+            header.clear();
+            header.putInt(MAGIC).putLong(position).putLong(writer.count).flip();
+            channel.write(header, 0);
+            channel.force(true);
+            count = writer.count;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path old : files.filter(p -> isSnapshot(p) && !p.equals(target)).toList()) {
+                Files.deleteIfExists(old);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the newest complete snapshot, if any
+     */
+    public static Optional<Path> latest(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(JournalSnapshots::isSnapshot).max(Comparator.comparing(Path::getFileName));
+        }
+    }
+
+    /**
+     * Streams the batches of a snapshot to the consumer.
+     *
+     * @return the journal position to replay from
+     */
+    public static long load(Path snapshot, Consumer<InventoryChangeDto> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+            fill(channel, buffer, 20);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an inventory snapshot: " + snapshot);
+            }
+            long position = buffer.getLong();
+            long count = buffer.getLong();
+            for (long i = 0; i < count; i++) {
+                int frame;
+                while ((frame = JournalCodec.frameLength(buffer)) < 0 || buffer.remaining() < frame) {
+                    fill(channel, buffer, Math.max(frame, 4));
+                }
+                InventoryChangeDto record = JournalCodec.read(buffer);
+                if (record == null) {
+                    throw new IOException("Corrupt record " + i + " in snapshot " + snapshot);
+                }
+                consumer.accept(record);
+            }
+            return position;
+        }
+    }
+
+    private static void fill(FileChannel channel, ByteBuffer buffer, int needed) throws IOException {
+        // The buffer is in read mode; top it up to at least `needed` readable bytes
+        buffer.compact();
+        while (buffer.position() < needed) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Snapshot truncated");
+            }
+        }
+        buffer.flip();
+    }
+
+    private static boolean isSnapshot(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    private static final class SnapshotWriter implements Consumer<InventoryChangeDto> {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long count;
+
+        private SnapshotWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void accept(InventoryChangeDto record) {
+            byte[] name = JournalCodec.nameBytes(record);
+            try {
+                if (buffer.remaining() < JournalCodec.encodedSize(name)) {
+                    flush();
+                }
+                JournalCodec.write(buffer, record, name);
+                count++;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal stored in fixed-size, memory-mapped segment files
+ * ({@code journal-<index>.log}).
+ *
+ * <p>A record's position is {@code segmentIndex * segmentSize + offset}; a record
+ * that does not fit in the rest of a segment starts the next one. Appends only copy
+ * into the mapping. A single flusher thread forces pages to disk and then releases
+ * every appender waiting in {@link #awaitDurable(long)} up to the forced position,
+ * so concurrent writers share one fsync (group commit).
+ */
+@Slf4j
+public class MappedJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object durability = new Object();
+    private final List<MappedByteBuffer> sealedSegments = new ArrayList<>();
+    private final Thread flusher;
+
+    private MappedByteBuffer segment;
+    private long segmentIndex;
+    private volatile long writtenPosition;
+    private volatile long durablePosition;
+    private volatile boolean open = true;
+
+    private MappedJournal(Path directory, int segmentSize, long segmentIndex, int offset) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.segmentIndex = segmentIndex;
+        this.segment = map(segmentIndex);
+        // Clear anything after the last valid record, e.g. the remains of a torn write
+        for (int i = offset; i < segmentSize; i++) {
+            segment.put(i, (byte) 0);
+        }
+        segment.position(offset);
+        this.writtenPosition = position(segmentIndex, segmentSize, offset);
+        this.durablePosition = writtenPosition;
+        this.flusher = new Thread(this::flushLoop, "inventory-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Opens the journal for appending after its last valid record, creating the
+     * directory and first segment if needed.
+     */
+    public static MappedJournal open(Path directory, int segmentSize) throws IOException {
+        Files.createDirectories(directory);
+        List<Long> segments = segmentIndexes(directory);
+        if (segments.isEmpty()) {
+            return new MappedJournal(directory, segmentSize, 0, 0);
+        }
+        long last = segments.get(segments.size() - 1);
+        int end = scan(segmentFile(directory, last), segmentSize, null);
+        return new MappedJournal(directory, segmentSize, last, end);
+    }
+
+    /**
+     * Reads every record at or after {@code fromPosition} in journal order.
+     *
+     * @return the position after the last valid record
+     */
+    public static long replay(Path directory, int segmentSize, long fromPosition,
+                              Consumer<InventoryChangeDto> consumer) throws IOException {
+        long startSegment = fromPosition / segmentSize;
+        long end = fromPosition;
+        for (long index : segmentIndexes(directory)) {
+            if (index < startSegment) {
+                continue;
+            }
+            int from = index == startSegment ? (int) (fromPosition % segmentSize) : 0;
+            int offset = scanFrom(segmentFile(directory, index), segmentSize, from, consumer);
+            end = position(index, segmentSize, offset);
+        }
+        return end;
+    }
+
+    /**
+     * Copies the record into the current segment.
+     *
+     * @return the position just after the record; pass it to {@link #awaitDurable(long)}
+     */
+    public long append(InventoryChangeDto record) {
+        byte[] name = JournalCodec.nameBytes(record);
+        int size = JournalCodec.encodedSize(name);
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Journal record larger than a segment: " + size);
+        }
+        long end;
+        appendLock.lock();
+        try {
+            if (!open) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            if (segment.remaining() < size) {
+                roll();
+            }
+            int start = segment.position();
+            try {
+                JournalCodec.write(segment, record, name);
+            } catch (RuntimeException ex) {
+                // A half-written record would end replay there and hide every record after it
+                segment.position(start);
+                throw ex;
+            }
+            end = position(segmentIndex, segmentSize, segment.position());
+            writtenPosition = end;
+        } finally {
+            appendLock.unlock();
+        }
+        synchronized (durability) {
+            durability.notifyAll();
+        }
+        return end;
+    }
+
+    /**
+     * Blocks until everything up to {@code position} has been forced to disk.
+     */
+    public void awaitDurable(long position) throws InterruptedIOException {
+        synchronized (durability) {
+            while (durablePosition < position) {
+                if (!open) {
+                    throw new IllegalStateException("Journal closed before position " + position + " was durable");
+                }
+                try {
+                    durability.wait();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted waiting for journal flush");
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the position the next record will be written at (or after)
+     */
+    public long position() {
+        return writtenPosition;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Deletes segments that lie entirely before {@code position}, once a snapshot
+     * covers them.
+     */
+    public void deleteSegmentsBefore(long position) throws IOException {
+        long keepFrom = position / segmentSize;
+        for (long index : segmentIndexes(directory)) {
+            if (index < keepFrom) {
+                Files.deleteIfExists(segmentFile(directory, index));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            open = false;
+        } finally {
+            appendLock.unlock();
+        }
+        synchronized (durability) {
+            durability.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        segment.force();
+    }
+
+    private void roll() throws UncheckedIOException {
+        sealedSegments.add(segment);
+        segmentIndex++;
+        try {
+            segment = map(segmentIndex);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create journal segment " + segmentIndex, ex);
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            synchronized (durability) {
+                while (open && writtenPosition == durablePosition) {
+                    try {
+                        durability.wait();
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                }
+            }
+            long target;
+            List<MappedByteBuffer> toForce;
+            appendLock.lock();
+            try {
+                target = writtenPosition;
+                toForce = new ArrayList<>(sealedSegments);
+                sealedSegments.clear();
+                toForce.add(segment);
+            } finally {
+                appendLock.unlock();
+            }
+            for (MappedByteBuffer buffer : toForce) {
+                buffer.force();
+            }
+            synchronized (durability) {
+                durablePosition = target;
+                durability.notifyAll();
+                if (!open && writtenPosition == durablePosition) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private MappedByteBuffer map(long index) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(directory, index),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private static int scan(Path file, int segmentSize, Consumer<InventoryChangeDto> consumer) throws IOException {
+        return scanFrom(file, segmentSize, 0, consumer);
+    }
+
+    private static int scanFrom(Path file, int segmentSize, int from,
+                                Consumer<InventoryChangeDto> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(channel.size(), segmentSize));
+            buffer.position(Math.min(from, buffer.limit()));
+            InventoryChangeDto record;
+            while ((record = JournalCodec.read(buffer)) != null) {
+                if (consumer != null) {
+                    consumer.accept(record);
+                }
+            }
+            return buffer.position();
+        }
+    }
+
+    private static long position(long segmentIndex, int segmentSize, int offset) {
+        return segmentIndex * segmentSize + offset;
+    }
+
+    private static Path segmentFile(Path directory, long index) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+    }
+
+    private static List<Long> segmentIndexes(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.startsWith(SEGMENT_PREFIX) && n.endsWith(SEGMENT_SUFFIX))
+                    .map(n -> Long.parseLong(n.substring(SEGMENT_PREFIX.length(), n.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -4,6 +4,7 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -24,12 +25,17 @@ public class InventoryBatch {
     @Column(name = "product_id", nullable = false)
     private Long productId;
 
-    @Column(name = "product_name", nullable = false)
-    private String productName;
-
     @Column(nullable = false)
     private Integer quantity;
 
     @Column(name = "expiry_date", nullable = false)
     private LocalDate expiryDate;
+
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    public InventoryBatch(Long batchId, Long productId, Integer quantity, LocalDate expiryDate) {
+        this(batchId, productId, quantity, expiryDate, 0L);
+    }
 }
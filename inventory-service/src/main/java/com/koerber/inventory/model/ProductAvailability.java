@@ -0,0 +1,28 @@
+package com.koerber.inventory.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Materialised total of all batch quantities for a product. Kept consistent with
+ * inventory_batch by every write path, so stock checks are a primary-key lookup.
+ */
+@Entity
+@Table(name = "product_availability")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductAvailability {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "available_quantity", nullable = false)
+    private Long availableQuantity;
+}
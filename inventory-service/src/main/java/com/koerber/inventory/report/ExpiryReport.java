@@ -0,0 +1,9 @@
+package com.koerber.inventory.report;
+
+import java.time.LocalDate;
+
+/**
+ * Stock that expires on or before {@code cutoff}, totalled per product.
+ */
+public record ExpiryReport(int withinDays, LocalDate cutoff, ExpiryTotals totals) {
+}
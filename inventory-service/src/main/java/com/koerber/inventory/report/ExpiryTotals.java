@@ -0,0 +1,150 @@
+package com.koerber.inventory.report;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Per-product totals of expiring stock, kept in parallel primitive arrays indexed
+ * through an open-addressing table on the product id, so that adding a batch row
+ * allocates nothing once its product has been seen. Not thread-safe: each scan
+ * fills its own instance and the results are merged with {@link #addAll}.
+ */
+public final class ExpiryTotals {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] productIds = new long[INITIAL_CAPACITY];
+    private long[] quantities = new long[INITIAL_CAPACITY];
+    private int[] batchCounts = new int[INITIAL_CAPACITY];
+    private long[] earliestExpiry = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /** Slot -> entry index + 1; 0 marks an empty slot. Length is a power of two. */
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * Returns the entry index of the product, or -1 if it has not been added.
+     */
+    public int indexOf(long productId) {
+        int mask = slots.length - 1;
+        for (int slot = hash(productId) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            if (productIds[entry - 1] == productId) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Adds one batch to its product's totals.
+     *
+     * @param index           the product's entry, from {@link #indexOf} or {@link #addProduct}
+     * @param quantity        the batch quantity
+     * @param expiryEpochDay  the batch expiry date as an epoch day
+     */
+    public void addBatch(int index, long quantity, long expiryEpochDay) {
+        quantities[index] += quantity;
+        batchCounts[index]++;
+        if (expiryEpochDay < earliestExpiry[index]) {
+            earliestExpiry[index] = expiryEpochDay;
+        }
+    }
+
+    /**
+     * Starts an empty entry for a product that {@link #indexOf} did not find.
+     *
+     * @return the new entry index
+     */
+    public int addProduct(long productId) {
+        if (size == productIds.length) {
+            grow();
+        }
+        int index = size++;
+        productIds[index] = productId;
+        earliestExpiry[index] = Long.MAX_VALUE;
+        insertSlot(productId, index);
+        return index;
+    }
+
+    /**
+     * Merges another instance's totals into this one.
+     */
+    public void addAll(ExpiryTotals other) {
+        for (int i = 0; i < other.size; i++) {
+            int index = indexOf(other.productIds[i]);
+            if (index < 0) {
+                index = addProduct(other.productIds[i]);
+            }
+            quantities[index] += other.quantities[i];
+            batchCounts[index] += other.batchCounts[i];
+            earliestExpiry[index] = Math.min(earliestExpiry[index], other.earliestExpiry[i]);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long productId(int index) {
+        return productIds[index];
+    }
+
+    public long quantity(int index) {
+        return quantities[index];
+    }
+
+    public int batchCount(int index) {
+        return batchCounts[index];
+    }
+
+    public LocalDate earliestExpiry(int index) {
+        return LocalDate.ofEpochDay(earliestExpiry[index]);
+    }
+
+    /**
+     * Returns the entry indexes ordered by earliest expiry, then product id.
+     */
+    public int[] orderByExpiry() {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> earliestExpiry[a] != earliestExpiry[b]
+                ? Long.compare(earliestExpiry[a], earliestExpiry[b])
+                : Long.compare(productIds[a], productIds[b]));
+        int[] sorted = new int[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = order[i];
+        }
+        return sorted;
+    }
+
+    private void grow() {
+        int capacity = productIds.length * 2;
+        productIds = Arrays.copyOf(productIds, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        batchCounts = Arrays.copyOf(batchCounts, capacity);
+        earliestExpiry = Arrays.copyOf(earliestExpiry, capacity);
+        slots = new int[capacity * 2];
+        for (int i = 0; i < size; i++) {
+            insertSlot(productIds[i], i);
+        }
+    }
+
+    private void insertSlot(long productId, int index) {
+        int mask = slots.length - 1;
+        int slot = hash(productId) & mask;
+        while (slots[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = index + 1;
+    }
+
+    private static int hash(long productId) {
+        long h = productId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
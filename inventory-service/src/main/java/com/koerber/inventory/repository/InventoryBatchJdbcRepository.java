@@ -0,0 +1,139 @@
+package com.koerber.inventory.repository;
+
+import com.koerber.inventory.dto.BatchDeltaDto;
+import com.koerber.inventory.dto.BatchImportDto;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to inventory_batch for bulk paths where going through the
+ * JPA persistence context would cost one entity and one statement per row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryBatchJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_batch (batch_id, product_id, quantity, expiry_date) VALUES (?, ?, ?, ?)";
+
+    private static final String ADD_AVAILABILITY_SQL =
+            "MERGE INTO product_availability t "
+            + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS BIGINT))) s (product_id, quantity) "
+            + "ON t.product_id = s.product_id "
+            + "WHEN MATCHED THEN UPDATE SET available_quantity = t.available_quantity + s.quantity "
+            + "WHEN NOT MATCHED THEN INSERT (product_id, available_quantity) VALUES (s.product_id, s.quantity)";
+
+    // Snapshot records carry the product name, so this full scan joins the product table
+    private static final String SELECT_ALL_SQL =
+            "SELECT b.batch_id, b.product_id, p.product_name, b.quantity, b.expiry_date, b.version "
+            + "FROM inventory_batch b JOIN product p ON p.product_id = b.product_id ORDER BY b.batch_id";
+
+    private static final String RESTORE_SQL =
+            "MERGE INTO inventory_batch (batch_id, product_id, quantity, expiry_date, version) "
+            + "KEY (batch_id) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String REBUILD_AVAILABILITY_SQL =
+            "INSERT INTO product_availability (product_id, available_quantity) "
+            + "SELECT product_id, SUM(quantity) FROM inventory_batch GROUP BY product_id";
+
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE inventory_batch SET quantity = quantity - ?, version = ? WHERE batch_id = ?";
+
+    private static final String SUBTRACT_AVAILABILITY_SQL =
+            "UPDATE product_availability SET available_quantity = available_quantity - ? WHERE product_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the given rows using JDBC batches of at most {@code batchSize} statements.
+     * Their products must exist already. Runs in the caller's transaction.
+     *
+     * @param rows      rows to insert
+     * @param batchSize maximum number of statements per JDBC batch
+     */
+    public void batchInsert(List<BatchImportDto> rows, int batchSize) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize, (ps, row) -> {
+            ps.setLong(1, row.getBatchId());
+            ps.setLong(2, row.getProductId());
+            ps.setInt(3, row.getQuantity());
+            ps.setDate(4, Date.valueOf(row.getExpiryDate()));
+        });
+    }
+
+    /**
+     * Adds received quantities to the per-product availability counters, creating
+     * counters for new products. Runs in the caller's transaction.
+     *
+     * @param quantitiesByProduct quantity to add, keyed by product id
+     */
+    public void addAvailability(Map<Long, Long> quantitiesByProduct) {
+        List<Object[]> args = new ArrayList<>(quantitiesByProduct.size());
+        quantitiesByProduct.forEach((productId, quantity) -> args.add(new Object[]{productId, quantity}));
+        jdbcTemplate.batchUpdate(ADD_AVAILABILITY_SQL, args);
+    }
+
+    /**
+     * Streams every batch row to the consumer without materialising the full table.
+     *
+     * @param consumer receives one row at a time, in batch id order
+     */
+    public void forEachBatch(Consumer<InventoryChangeDto> consumer) {
+        jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+            consumer.accept(new InventoryChangeDto(0, rs.getLong(1), rs.getLong(2), rs.getString(3),
+                    rs.getInt(4), rs.getDate(5).toLocalDate(), rs.getLong(6)));
+        });
+    }
+
+    /**
+     * Overwrites batch rows with recovered state, inserting missing ones, then
+     * recomputes every availability counter from the batches. Their products must
+     * exist already. Runs in the caller's transaction.
+     *
+     * @param batches   recovered batch state
+     * @param batchSize maximum number of statements per JDBC batch
+     */
+    public void restoreBatches(Collection<InventoryChangeDto> batches, int batchSize) {
+        jdbcTemplate.batchUpdate(RESTORE_SQL, batches, batchSize, (ps, row) -> {
+            ps.setLong(1, row.getBatchId());
+            ps.setLong(2, row.getProductId());
+            ps.setInt(3, row.getQuantity());
+            ps.setDate(4, Date.valueOf(row.getExpiryDate()));
+            ps.setLong(5, row.getVersion());
+        });
+        jdbcTemplate.update("DELETE FROM product_availability");
+        jdbcTemplate.update(REBUILD_AVAILABILITY_SQL);
+    }
+
+    /**
+     * Subtracts accumulated deltas from their batch rows, one statement per batch,
+     * and from the availability counters, one statement per product. Runs in the
+     * caller's transaction.
+     *
+     * @param deltas    net change per batch
+     * @param batchSize maximum number of statements per JDBC batch
+     */
+    public void applyDeltas(Collection<BatchDeltaDto> deltas, int batchSize) {
+        jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, deltas, batchSize, (ps, delta) -> {
+            ps.setLong(1, delta.getQuantityDeducted());
+            ps.setLong(2, delta.getVersion());
+            ps.setLong(3, delta.getBatchId());
+        });
+        Map<Long, Long> deductedByProduct = new HashMap<>();
+        for (BatchDeltaDto delta : deltas) {
+            deductedByProduct.merge(delta.getProductId(), delta.getQuantityDeducted(), Long::sum);
+        }
+        List<Object[]> args = new ArrayList<>(deductedByProduct.size());
+        deductedByProduct.forEach((productId, quantity) -> args.add(new Object[]{quantity, productId}));
+        jdbcTemplate.batchUpdate(SUBTRACT_AVAILABILITY_SQL, args);
+    }
+}
@@ -3,11 +3,14 @@ package com.koerber.inventory.repository;
 import com.koerber.inventory.model.InventoryBatch;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
 public interface InventoryBatchRepository extends JpaRepository<InventoryBatch, Long> {
 
+    // Read-only, so that outside a write transaction it is served by the read datasource when one is configured
+    @Transactional(readOnly = true)
     List<InventoryBatch> findByProductIdOrderByExpiryDateAsc(Long productId);
 }
@@ -0,0 +1,77 @@
+package com.koerber.inventory.repository;
+
+import com.koerber.inventory.config.ReadDataSourceProperties;
+import com.koerber.inventory.report.ExpiryTotals;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Read-only scans for reports. They run on a connection pool of their own, sized
+ * to the report parallelism, so that a long report never holds connections the
+ * order path is waiting for. The pool connects to the read datasource when one
+ * is configured, otherwise to the primary.
+ */
+@Repository
+public class InventoryReportRepository {
+
+    private static final String EXPIRING_RANGE_SQL =
+            "SELECT product_id, quantity, expiry_date FROM inventory_batch "
+            + "WHERE batch_id >= ? AND batch_id < ? AND quantity > 0 AND expiry_date <= ?";
+
+    private final HikariDataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryReportRepository(DataSourceProperties dataSourceProperties,
+                                     ReadDataSourceProperties readDataSourceProperties,
+                                     @Value("${inventory.reporting.parallelism:2}") int parallelism) {
+        if (readDataSourceProperties.isEnabled()) {
+            this.dataSource = readDataSourceProperties.createPool("inventory-reporting", parallelism);
+        } else {
+            this.dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            this.dataSource.setPoolName("inventory-reporting");
+            this.dataSource.setMaximumPoolSize(parallelism);
+            this.dataSource.setReadOnly(true);
+        }
+        this.dataSource.setMinimumIdle(0);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(1000);
+    }
+
+    /**
+     * Returns the lowest and highest batch id, or an empty array when there are no batches.
+     */
+    public long[] batchIdRange() {
+        return jdbcTemplate.query("SELECT MIN(batch_id), MAX(batch_id) FROM inventory_batch", rs -> {
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? new long[0] : new long[] {min, rs.getLong(2)};
+        });
+    }
+
+    /**
+     * Adds every batch with {@code fromBatchId <= batch_id < toBatchId} that still
+     * holds stock and expires on or before the cutoff to the totals.
+     */
+    public void addExpiring(long fromBatchId, long toBatchId, LocalDate cutoff, ExpiryTotals totals) {
+        jdbcTemplate.query(EXPIRING_RANGE_SQL, rs -> {
+            long productId = rs.getLong(1);
+            int index = totals.indexOf(productId);
+            if (index < 0) {
+                index = totals.addProduct(productId);
+            }
+            totals.addBatch(index, rs.getInt(2), rs.getDate(3).toLocalDate().toEpochDay());
+        }, fromBatchId, toBatchId, Date.valueOf(cutoff));
+    }
+
+    @PreDestroy
+    public void close() {
+        dataSource.close();
+    }
+}
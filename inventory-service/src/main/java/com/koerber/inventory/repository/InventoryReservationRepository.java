@@ -0,0 +1,111 @@
+package com.koerber.inventory.repository;
+
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.ReserveResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Plain JDBC access to inventory_reservation and its lines: what a bulk
+ * reservation made under a caller's id took from which batches, and whether it
+ * has been released. Every method runs in the caller's transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryReservationRepository {
+
+    public enum Status {
+        RESERVED,
+        RELEASED
+    }
+
+    private static final String LOCK_SQL =
+            "SELECT status FROM inventory_reservation WHERE reservation_id = ? FOR UPDATE";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_reservation (reservation_id, status, created_at) VALUES (?, ?, ?)";
+
+    private static final String UPDATE_STATUS_SQL =
+            "UPDATE inventory_reservation SET status = ? WHERE reservation_id = ?";
+
+    private static final String INSERT_LINE_SQL =
+            "INSERT INTO inventory_reservation_line "
+            + "(reservation_id, line_no, batch_no, product_id, strategy, batch_id, quantity) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_LINES_SQL =
+            "SELECT l.line_no, l.product_id, p.product_name, l.strategy, l.batch_id, l.quantity "
+            + "FROM inventory_reservation_line l JOIN product p ON p.product_id = l.product_id "
+            + "WHERE l.reservation_id = ? ORDER BY l.line_no, l.batch_no";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the reservation's status and locks its row until the transaction ends.
+     *
+     * @return the status, or empty if no reservation has that id
+     */
+    public Optional<Status> lockStatus(String reservationId) {
+        List<String> status = jdbcTemplate.queryForList(LOCK_SQL, String.class, reservationId);
+        return status.stream().findFirst().map(Status::valueOf);
+    }
+
+    /**
+     * Records a reservation id, which locks it until the transaction ends. If a
+     * concurrent transaction recorded the same id first, throws
+     * {@link OptimisticLockingFailureException} so that the caller retries and
+     * finds it with {@link #lockStatus}.
+     */
+    public void insert(String reservationId, Status status) {
+        try {
+            jdbcTemplate.update(INSERT_SQL, reservationId, status.name(), Timestamp.from(Instant.now()));
+        } catch (DuplicateKeyException ex) {
+            throw new OptimisticLockingFailureException(
+                    "Reservation " + reservationId + " was recorded concurrently", ex);
+        }
+    }
+
+    public void updateStatus(String reservationId, Status status) {
+        jdbcTemplate.update(UPDATE_STATUS_SQL, status.name(), reservationId);
+    }
+
+    /**
+     * Stores every batch deduction of the reserved lines, in request order.
+     */
+    public void insertLines(String reservationId, List<ReserveResponse> lines) {
+        List<Object[]> args = new ArrayList<>();
+        for (int lineNo = 0; lineNo < lines.size(); lineNo++) {
+            ReserveResponse line = lines.get(lineNo);
+            List<BatchUpdateDto> batchUpdates = line.getBatchUpdates();
+            for (int batchNo = 0; batchNo < batchUpdates.size(); batchNo++) {
+                BatchUpdateDto update = batchUpdates.get(batchNo);
+                args.add(new Object[]{reservationId, lineNo, batchNo, line.getProductId(), line.getStrategy(),
+                        update.getBatchId(), update.getQuantityToDeduct()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_LINE_SQL, args);
+    }
+
+    /**
+     * Returns the reserved lines in request order.
+     */
+    public List<ReserveResponse> findLines(String reservationId) {
+        List<ReserveResponse> lines = new ArrayList<>();
+        jdbcTemplate.query(SELECT_LINES_SQL, rs -> {
+            int lineNo = rs.getInt(1);
+            if (lineNo == lines.size()) {
+                lines.add(new ReserveResponse(rs.getLong(2), rs.getString(3), rs.getString(4), new ArrayList<>()));
+            }
+            lines.get(lineNo).getBatchUpdates().add(new BatchUpdateDto(rs.getLong(5), rs.getInt(6)));
+        }, reservationId);
+        return lines;
+    }
+}
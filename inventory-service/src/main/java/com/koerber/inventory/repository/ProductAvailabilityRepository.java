@@ -0,0 +1,23 @@
+package com.koerber.inventory.repository;
+
+import com.koerber.inventory.model.ProductAvailability;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ProductAvailabilityRepository extends JpaRepository<ProductAvailability, Long> {
+
+    /**
+     * Atomically subtracts a deducted quantity from the product's counter.
+     * Must run in the same transaction as the batch update it mirrors.
+     *
+     * @return number of rows updated (0 if the product has no counter)
+     */
+    @Modifying
+    @Query("UPDATE ProductAvailability a SET a.availableQuantity = a.availableQuantity - :quantity "
+            + "WHERE a.productId = :productId")
+    int decrement(@Param("productId") Long productId, @Param("quantity") long quantity);
+}
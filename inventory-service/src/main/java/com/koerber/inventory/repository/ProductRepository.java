@@ -0,0 +1,56 @@
+package com.koerber.inventory.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * Plain JDBC access to the product table, read through {@code ProductCatalog}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductRepository {
+
+    private static final String SELECT_ALL_SQL = "SELECT product_id, product_name FROM product";
+
+    private static final String SELECT_NAME_SQL = "SELECT product_name FROM product WHERE product_id = ?";
+
+    private static final String UPSERT_SQL =
+            "MERGE INTO product (product_id, product_name) KEY (product_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Streams every product to the consumer.
+     */
+    public void forEachProduct(BiConsumer<Long, String> consumer) {
+        jdbcTemplate.query(SELECT_ALL_SQL, rs -> {
+            consumer.accept(rs.getLong(1), rs.getString(2));
+        });
+    }
+
+    /**
+     * @return the product's name, or null when there is no such product
+     */
+    public String findName(long productId) {
+        List<String> names = jdbcTemplate.queryForList(SELECT_NAME_SQL, String.class, productId);
+        return names.isEmpty() ? null : names.get(0);
+    }
+
+    /**
+     * Inserts new products and renames existing ones, in one JDBC batch. Runs in the
+     * caller's transaction.
+     *
+     * @param namesByProduct product name, keyed by product id
+     */
+    public void upsert(Map<Long, String> namesByProduct) {
+        List<Object[]> args = new ArrayList<>(namesByProduct.size());
+        namesByProduct.forEach((productId, name) -> args.add(new Object[]{productId, name}));
+        jdbcTemplate.batchUpdate(UPSERT_SQL, args);
+    }
+}
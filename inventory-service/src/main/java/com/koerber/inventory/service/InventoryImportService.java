@@ -0,0 +1,12 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.dto.BatchImportResponse;
+import com.koerber.inventory.importer.ImportFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface InventoryImportService {
+
+    BatchImportResponse importBatches(InputStream body, ImportFormat format) throws IOException;
+}
@@ -0,0 +1,8 @@
+package com.koerber.inventory.service;
+
+import com.koerber.inventory.report.ExpiryReport;
+
+public interface InventoryReportService {
+
+    ExpiryReport findExpiring(int withinDays);
+}
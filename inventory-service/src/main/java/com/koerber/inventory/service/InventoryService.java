@@ -1,6 +1,12 @@
 package com.koerber.inventory.service;
 
+import com.koerber.inventory.dto.AvailabilityResponse;
+import com.koerber.inventory.dto.BulkReserveRequest;
+import com.koerber.inventory.dto.BulkReserveResponse;
 import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.ReleaseRequest;
+import com.koerber.inventory.dto.ReserveRequest;
+import com.koerber.inventory.dto.ReserveResponse;
 import com.koerber.inventory.dto.UpdateInventoryRequest;
 
 public interface InventoryService {
@@ -8,4 +14,12 @@ public interface InventoryService {
     InventoryResponse getInventorySortedByExpiry(Long productId);
 
     void updateInventory(UpdateInventoryRequest request);
+
+    void releaseReservation(ReleaseRequest request);
+
+    ReserveResponse reserve(ReserveRequest request);
+
+    BulkReserveResponse reserveAll(BulkReserveRequest request);
+
+    AvailabilityResponse getAvailableQuantity(Long productId);
 }
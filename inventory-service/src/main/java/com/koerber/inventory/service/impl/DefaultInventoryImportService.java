@@ -0,0 +1,132 @@
+package com.koerber.inventory.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.BatchImportDto;
+import com.koerber.inventory.dto.BatchImportResponse;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import com.koerber.inventory.importer.BatchRecordReader;
+import com.koerber.inventory.importer.CsvBatchRecordReader;
+import com.koerber.inventory.importer.ImportFormat;
+import com.koerber.inventory.importer.NdjsonBatchRecordReader;
+import com.koerber.inventory.repository.InventoryBatchJdbcRepository;
+import com.koerber.inventory.service.InventoryImportService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams an import body into inventory_batch. Rows are parsed incrementally and
+ * written in chunks; each chunk is committed in its own transaction using JDBC
+ * batches, so memory use is bounded by the chunk size rather than the payload.
+ * Product availability counters are incremented in the same chunk transaction, and
+ * each committed chunk is published to the change feed.
+ * A failure aborts the import but chunks committed before it are kept.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DefaultInventoryImportService implements InventoryImportService {
+
+    private final InventoryBatchJdbcRepository inventoryBatchJdbcRepository;
+    private final ProductCatalog productCatalog;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.import.chunk-size:10000}")
+    private int chunkSize;
+
+    @Value("${inventory.import.jdbc-batch-size:1000}")
+    private int jdbcBatchSize;
+
+    @Override
+    public BatchImportResponse importBatches(InputStream body, ImportFormat format) throws IOException {
+        long start = System.nanoTime();
+        long rowsImported = 0;
+        int chunksCommitted = 0;
+        List<BatchImportDto> chunk = new ArrayList<>(chunkSize);
+
+        try (BatchRecordReader reader = openReader(body, format)) {
+            BatchImportDto row;
+            while ((row = reader.next()) != null) {
+                validate(row, reader.getRecordNumber());
+                chunk.add(row);
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, rowsImported);
+                    rowsImported += chunk.size();
+                    chunksCommitted++;
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, rowsImported);
+                rowsImported += chunk.size();
+                chunksCommitted++;
+            }
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException(ex.getMessage() + " (" + rowsImported
+                    + " rows committed before failure)", ex);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        double rowsPerSecond = elapsedNanos == 0 ? rowsImported : rowsImported * 1_000_000_000d / elapsedNanos;
+        log.info("Imported {} inventory batches in {} chunks, {} ms ({} rows/s)",
+                rowsImported, chunksCommitted, elapsedMillis, Math.round(rowsPerSecond));
+        return new BatchImportResponse(rowsImported, chunksCommitted, elapsedMillis, rowsPerSecond);
+    }
+
+    private BatchRecordReader openReader(InputStream body, ImportFormat format) throws IOException {
+        return switch (format) {
+            case CSV -> new CsvBatchRecordReader(body);
+            case NDJSON -> new NdjsonBatchRecordReader(body, objectMapper);
+        };
+    }
+
+    private void writeChunk(List<BatchImportDto> chunk, long rowsBefore) {
+        try {
+            Map<Long, Long> receivedByProduct = new HashMap<>();
+            Map<Long, String> namesByProduct = new HashMap<>();
+            List<InventoryChangeDto> changes = new ArrayList<>(chunk.size());
+            for (BatchImportDto row : chunk) {
+                receivedByProduct.merge(row.getProductId(), row.getQuantity().longValue(), Long::sum);
+                namesByProduct.put(row.getProductId(), row.getProductName());
+                changes.add(new InventoryChangeDto(0, row.getBatchId(), row.getProductId(),
+                        row.getProductName(), row.getQuantity(), row.getExpiryDate(), 0L));
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                productCatalog.register(namesByProduct);
+                inventoryBatchJdbcRepository.batchInsert(chunk, jdbcBatchSize);
+                inventoryBatchJdbcRepository.addAvailability(receivedByProduct);
+                eventPublisher.publishEvent(new InventoryChangedEvent(changes));
+            });
+        } catch (DataAccessException ex) {
+            throw new IllegalArgumentException("Failed to write records " + (rowsBefore + 1) + "-"
+                    + (rowsBefore + chunk.size()) + ": " + ex.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private static void validate(BatchImportDto row, long recordNumber) {
+        if (row == null || row.getBatchId() == null || row.getProductId() == null
+                || row.getProductName() == null || row.getQuantity() == null || row.getExpiryDate() == null) {
+            throw new IllegalArgumentException("Record " + recordNumber
+                    + " is missing one of batchId, productId, productName, quantity, expiryDate");
+        }
+        if (row.getQuantity() < 0) {
+            throw new IllegalArgumentException("Record " + recordNumber + " has a negative quantity");
+        }
+    }
+}
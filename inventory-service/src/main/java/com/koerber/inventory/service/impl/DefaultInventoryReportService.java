@@ -0,0 +1,109 @@
+package com.koerber.inventory.service.impl;
+
+import com.koerber.common.exception.ServiceOverloadedException;
+import com.koerber.inventory.report.ExpiryReport;
+import com.koerber.inventory.report.ExpiryTotals;
+import com.koerber.inventory.repository.InventoryReportRepository;
+import com.koerber.inventory.service.InventoryReportService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Builds reports by splitting the batch id range into keyset ranges that are
+ * scanned in parallel on a dedicated fork-join pool, one reporting connection per
+ * worker. Each range fills its own primitive totals; halves are merged on join.
+ * At most {@code max-concurrent} reports run at once; further requests get 503.
+ */
+@Service
+public class DefaultInventoryReportService implements InventoryReportService {
+
+    private final InventoryReportRepository inventoryReportRepository;
+    private final long rangeSize;
+    private final int maxWithinDays;
+    private final Semaphore runningReports;
+    private final ForkJoinPool pool;
+
+    public DefaultInventoryReportService(InventoryReportRepository inventoryReportRepository,
+                                         @Value("${inventory.reporting.parallelism:2}") int parallelism,
+                                         @Value("${inventory.reporting.range-size:50000}") long rangeSize,
+                                         @Value("${inventory.reporting.max-concurrent:1}") int maxConcurrent,
+                                         @Value("${inventory.reporting.max-within-days:3650}") int maxWithinDays) {
+        if (parallelism <= 0 || rangeSize <= 0 || maxConcurrent <= 0) {
+            throw new IllegalArgumentException(
+                    "inventory.reporting parallelism, range-size and max-concurrent must be positive");
+        }
+        this.inventoryReportRepository = inventoryReportRepository;
+        this.rangeSize = rangeSize;
+        this.maxWithinDays = maxWithinDays;
+        this.runningReports = new Semaphore(maxConcurrent);
+        this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("inventory-report-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    /**
+     * Totals, per product, the stock in batches expiring within the given number
+     * of days, including batches already past expiry.
+     */
+    @Override
+    public ExpiryReport findExpiring(int withinDays) {
+        if (withinDays < 0 || withinDays > maxWithinDays) {
+            throw new IllegalArgumentException("withinDays must be between 0 and " + maxWithinDays);
+        }
+        if (!runningReports.tryAcquire()) {
+            throw new ServiceOverloadedException("Too many inventory reports running; retry later", 5);
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().plusDays(withinDays);
+            long[] idRange = inventoryReportRepository.batchIdRange();
+            ExpiryTotals totals = idRange.length == 0
+                    ? new ExpiryTotals()
+                    : pool.invoke(new ExpiringRangeTask(idRange[0], idRange[1] + 1, cutoff));
+            return new ExpiryReport(withinDays, cutoff, totals);
+        } finally {
+            runningReports.release();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private final class ExpiringRangeTask extends RecursiveTask<ExpiryTotals> {
+
+        private final long fromBatchId;
+        private final long toBatchId;
+        private final LocalDate cutoff;
+
+        private ExpiringRangeTask(long fromBatchId, long toBatchId, LocalDate cutoff) {
+            this.fromBatchId = fromBatchId;
+            this.toBatchId = toBatchId;
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        protected ExpiryTotals compute() {
+            if (toBatchId - fromBatchId <= rangeSize) {
+                ExpiryTotals totals = new ExpiryTotals();
+                inventoryReportRepository.addExpiring(fromBatchId, toBatchId, cutoff, totals);
+                return totals;
+            }
+            long middle = fromBatchId + (toBatchId - fromBatchId) / 2;
+            ExpiringRangeTask lower = new ExpiringRangeTask(fromBatchId, middle, cutoff);
+            lower.fork();
+            ExpiryTotals totals = new ExpiringRangeTask(middle, toBatchId, cutoff).compute();
+            totals.addAll(lower.join());
+            return totals;
+        }
+    }
+}
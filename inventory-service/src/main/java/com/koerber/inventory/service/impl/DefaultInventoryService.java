@@ -1,25 +1,315 @@
 package com.koerber.inventory.service.impl;
 
+import com.koerber.common.util.SingleFlight;
+import com.koerber.inventory.cache.InventoryResponseCache;
+import com.koerber.inventory.datasource.ReplicaLagGuard;
+import com.koerber.inventory.dto.AvailabilityResponse;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.BulkReserveRequest;
+import com.koerber.inventory.dto.BulkReserveResponse;
 import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.ReleaseRequest;
+import com.koerber.inventory.dto.ReserveRequest;
+import com.koerber.inventory.dto.ReserveResponse;
 import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.koerber.inventory.escrow.EscrowLedger;
+import com.koerber.inventory.exception.InventoryConflictException;
+import com.koerber.inventory.exception.ProductNotFoundException;
 import com.koerber.inventory.factory.InventoryHandlerFactory;
+import com.koerber.inventory.repository.InventoryReservationRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
 import com.koerber.inventory.service.InventoryService;
+import com.koerber.inventory.writebehind.WriteBehindLedger;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DefaultInventoryService implements InventoryService {
 
+    private static final int MAX_RESERVATION_ID_LENGTH = 64;
+
     private final InventoryHandlerFactory inventoryHandlerFactory;
+    private final ProductAvailabilityRepository productAvailabilityRepository;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final ReplicaLagGuard replicaLagGuard;
+    private final InventoryResponseCache inventoryResponseCache;
+    private final InventoryReservationRepository inventoryReservationRepository;
+
+    // Concurrent reads of a hot product share one batch query, but only while its
+    // cache version is unchanged: a reader that has seen a write's version bump
+    // never joins a query that started before the write
+    private final SingleFlight<ReadKey, InventoryResponse> inventoryReads = new SingleFlight<>();
+
+    @Value("${inventory.update.max-attempts:3}")
+    private int maxUpdateAttempts = 3;
+
+    @Value("${inventory.update.retry-backoff-ms:5}")
+    private long retryBackoffMs;
+
+    private WriteBehindLedger writeBehindLedger;
+    private EscrowLedger escrowLedger;
+
+    @Autowired(required = false)
+    public void setWriteBehindLedger(WriteBehindLedger writeBehindLedger) {
+        this.writeBehindLedger = writeBehindLedger;
+    }
+
+    @Autowired(required = false)
+    public void setEscrowLedger(EscrowLedger escrowLedger) {
+        this.escrowLedger = escrowLedger;
+    }
 
     @Override
     public InventoryResponse getInventorySortedByExpiry(Long productId) {
-        return inventoryHandlerFactory.getDefaultHandler().getInventorySortedByExpiry(productId);
+        if (isEscrowed(productId)) {
+            return escrowLedger.getInventory(productId);
+        }
+        Supplier<InventoryResponse> read =
+                () -> inventoryHandlerFactory.getHandlerForProduct(productId).getInventorySortedByExpiry(productId);
+        if (replicaLagGuard.mustReadPrimary(productId)) {
+            // Read-your-writes: an in-flight query may be reading the replica from before the write
+            return replicaLagGuard.readPrimary(read);
+        }
+        ReadKey key = new ReadKey(productId, inventoryResponseCache.getVersion(productId));
+        return inventoryReads.execute(key, read);
     }
 
+    /**
+     * Applies the update, retrying the whole transaction when a concurrent deduction
+     * on the same batch wins the optimistic lock. Gives up with
+     * {@link InventoryConflictException} once the attempt budget is spent.
+     */
     @Override
     public void updateInventory(UpdateInventoryRequest request) {
-        inventoryHandlerFactory.getDefaultHandler().updateInventory(request);
+        Long productId = request != null ? request.getProductId() : null;
+        if (isEscrowed(productId) && request.getBatchUpdates() != null) {
+            escrowLedger.apply(productId, request.getBatchUpdates());
+            return;
+        }
+        withOptimisticRetry(productId, () -> {
+            inventoryHandlerFactory.getHandlerForProduct(productId).updateInventory(request);
+            return null;
+        });
+    }
+
+    /**
+     * Gives back exactly what the bulk reservation with this id took, once. An id
+     * that is unknown is recorded as released, so that a reservation still on its
+     * way under that id is refused instead of taking stock nobody will release.
+     */
+    @Override
+    public void releaseReservation(ReleaseRequest request) {
+        String reservationId = request != null ? request.getReservationId() : null;
+        if (reservationId == null) {
+            throw new IllegalArgumentException("reservationId must not be null");
+        }
+        validateReservationId(reservationId);
+        withOptimisticRetry(null, () -> transactionTemplate.execute(status -> {
+            Optional<InventoryReservationRepository.Status> recorded =
+                    inventoryReservationRepository.lockStatus(reservationId);
+            if (recorded.isEmpty()) {
+                inventoryReservationRepository.insert(reservationId, InventoryReservationRepository.Status.RELEASED);
+            } else if (recorded.get() == InventoryReservationRepository.Status.RESERVED) {
+                for (ReserveResponse line : inventoryReservationRepository.findLines(reservationId)) {
+                    releaseLine(line.getProductId(), line.getBatchUpdates());
+                }
+                inventoryReservationRepository.updateStatus(reservationId, InventoryReservationRepository.Status.RELEASED);
+            }
+            return null;
+        }));
+    }
+
+    private void releaseLine(Long productId, List<BatchUpdateDto> batchUpdates) {
+        if (isEscrowed(productId)) {
+            List<BatchUpdateDto> negated = new ArrayList<>(batchUpdates.size());
+            for (BatchUpdateDto update : batchUpdates) {
+                negated.add(new BatchUpdateDto(update.getBatchId(), -update.getQuantityToDeduct()));
+            }
+            escrowLedger.apply(productId, negated);
+            return;
+        }
+        inventoryHandlerFactory.getHandlerForProduct(productId)
+                .releaseInventory(new UpdateInventoryRequest(productId, batchUpdates));
+    }
+
+    /**
+     * Reserves stock with the product's configured allocation strategy, under the
+     * same optimistic retry policy as {@link #updateInventory}.
+     */
+    @Override
+    public ReserveResponse reserve(ReserveRequest request) {
+        Long productId = request != null ? request.getProductId() : null;
+        return withOptimisticRetry(productId, () -> reserveLine(request));
+    }
+
+    /**
+     * Reserves every line in one transaction: if any line cannot be filled, none of
+     * the deductions are kept. Lines are applied in productId order so that
+     * concurrent carts touch shared batches in the same order; the response keeps
+     * the request order. A conflict on any line retries the whole cart.
+     *
+     * <p>With a {@code reservationId}, what each line took is recorded so that
+     * {@link #releaseReservation} can give back exactly that. Repeating the request
+     * returns the recorded reservation instead of reserving again; an id that was
+     * released is refused with {@link InventoryConflictException}.
+     */
+    @Override
+    public BulkReserveResponse reserveAll(BulkReserveRequest request) {
+        if (request == null || request.getLines() == null || request.getLines().isEmpty()) {
+            throw new IllegalArgumentException("At least one reserve line is required.");
+        }
+        List<ReserveRequest> lines = request.getLines();
+        for (ReserveRequest line : lines) {
+            if (line == null || line.getProductId() == null) {
+                throw new IllegalArgumentException("Every reserve line must have a productId");
+            }
+        }
+        String reservationId = request.getReservationId();
+        if (reservationId != null) {
+            validateReservationId(reservationId);
+        }
+        Integer[] applyOrder = new Integer[lines.size()];
+        for (int i = 0; i < applyOrder.length; i++) {
+            applyOrder[i] = i;
+        }
+        Arrays.sort(applyOrder, Comparator.comparing(i -> lines.get(i).getProductId()));
+
+        Long firstProductId = lines.get(applyOrder[0]).getProductId();
+        return withOptimisticRetry(firstProductId, () -> transactionTemplate.execute(status -> {
+            if (reservationId != null) {
+                Optional<InventoryReservationRepository.Status> recorded =
+                        inventoryReservationRepository.lockStatus(reservationId);
+                if (recorded.isPresent()) {
+                    return replayReservation(reservationId, recorded.get(), lines);
+                }
+                inventoryReservationRepository.insert(reservationId, InventoryReservationRepository.Status.RESERVED);
+            }
+            ReserveResponse[] results = new ReserveResponse[lines.size()];
+            for (int i : applyOrder) {
+                ReserveRequest line = lines.get(i);
+                results[i] = reserveLine(line);
+            }
+            BulkReserveResponse response = new BulkReserveResponse(List.of(results));
+            if (reservationId != null) {
+                inventoryReservationRepository.insertLines(reservationId, response.getLines());
+            }
+            return response;
+        }));
+    }
+
+    private BulkReserveResponse replayReservation(String reservationId, InventoryReservationRepository.Status status,
+                                                  List<ReserveRequest> lines) {
+        if (status == InventoryReservationRepository.Status.RELEASED) {
+            throw new InventoryConflictException("Reservation " + reservationId + " was released", null);
+        }
+        List<ReserveResponse> recorded = inventoryReservationRepository.findLines(reservationId);
+        boolean same = recorded.size() == lines.size();
+        for (int i = 0; same && i < lines.size(); i++) {
+            int reserved = recorded.get(i).getBatchUpdates().stream().mapToInt(BatchUpdateDto::getQuantityToDeduct).sum();
+            same = recorded.get(i).getProductId().equals(lines.get(i).getProductId())
+                    && lines.get(i).getQuantity() != null && reserved == lines.get(i).getQuantity();
+        }
+        if (!same) {
+            throw new IllegalArgumentException("Reservation " + reservationId + " was made for different lines");
+        }
+        return new BulkReserveResponse(recorded);
+    }
+
+    private static void validateReservationId(String reservationId) {
+        if (reservationId.isBlank() || reservationId.length() > MAX_RESERVATION_ID_LENGTH) {
+            throw new IllegalArgumentException(
+                    "reservationId must be 1 to " + MAX_RESERVATION_ID_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * Reserves one line from the escrow when the product is escrowed, otherwise
+     * with the product's allocation strategy.
+     */
+    private ReserveResponse reserveLine(ReserveRequest line) {
+        if (line != null && isEscrowed(line.getProductId())) {
+            if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Reserve quantity must be greater than zero.");
+            }
+            return escrowLedger.reserve(line.getProductId(), line.getQuantity());
+        }
+        Long productId = line != null ? line.getProductId() : null;
+        return inventoryHandlerFactory.getHandlerForProduct(productId).reserve(line);
+    }
+
+    private boolean isEscrowed(Long productId) {
+        return escrowLedger != null && escrowLedger.manages(productId);
+    }
+
+    private <T> T withOptimisticRetry(Long productId, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException ex) {
+                String productTag = String.valueOf(productId);
+                if (attempt >= maxUpdateAttempts) {
+                    meterRegistry.counter("inventory.update.conflicts", "productId", productTag).increment();
+                    throw new InventoryConflictException("Inventory for productId " + productId
+                            + " was modified concurrently; gave up after " + attempt + " attempts", ex);
+                }
+                meterRegistry.counter("inventory.update.retries", "productId", productTag).increment();
+                // Hibernate has already logged the stale batch update (HHH100501) at ERROR
+                log.info("Inventory for productId {} was modified concurrently; retrying (attempt {} of {}): {}",
+                        productId, attempt + 1, maxUpdateAttempts, ex.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        if (retryBackoffMs <= 0) {
+            return;
+        }
+        try {
+            // Jittered so that colliding writers do not retry in lock-step
+            Thread.sleep(ThreadLocalRandom.current().nextLong(retryBackoffMs * attempt + 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InventoryConflictException("Interrupted while retrying inventory update", ex);
+        }
+    }
+
+    @Override
+    public AvailabilityResponse getAvailableQuantity(Long productId) {
+        if (isEscrowed(productId)) {
+            return new AvailabilityResponse(productId, escrowLedger.getAvailable(productId));
+        }
+        if (writeBehindLedger != null) {
+            // The availability rows lag the ledger by up to one flush
+            OptionalLong available = writeBehindLedger.getAvailable(productId);
+            if (available.isEmpty()) {
+                throw new ProductNotFoundException("No inventory found for productId: " + productId);
+            }
+            return new AvailabilityResponse(productId, available.getAsLong());
+        }
+        return replicaLagGuard.read(productId, () -> productAvailabilityRepository.findById(productId))
+                .map(a -> new AvailabilityResponse(a.getProductId(), a.getAvailableQuantity()))
+                .orElseThrow(() -> new ProductNotFoundException("No inventory found for productId: " + productId));
+    }
+
+    private record ReadKey(Long productId, long version) {
     }
 }
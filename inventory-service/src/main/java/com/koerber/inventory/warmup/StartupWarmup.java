@@ -0,0 +1,100 @@
+package com.koerber.inventory.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.common.warmup.AbstractStartupWarmup;
+import com.koerber.inventory.dto.BatchDto;
+import com.koerber.inventory.dto.InventoryResponse;
+import com.koerber.inventory.dto.ReserveRequest;
+import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.koerber.inventory.factory.InventoryHandler;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the request hot paths in-process at startup so the JIT has compiled them
+ * before the instance takes traffic: every allocation strategy over a scratch
+ * product's batches, JSON (de)serialisation of the inventory payloads, and the
+ * batch and availability queries for the scratch product, which has no rows.
+ * Nothing is written.
+ *
+ * <p>Configured by {@code inventory.warmup.*}; see {@link AbstractStartupWarmup}.
+ */
+@Component
+public class StartupWarmup extends AbstractStartupWarmup<StartupWarmup.Scratch> {
+
+    private static final int SCRATCH_BATCHES = 8;
+
+    private final List<InventoryHandler> handlers;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final ProductAvailabilityRepository productAvailabilityRepository;
+    private final ObjectMapper objectMapper;
+    private final long scratchProductId;
+
+    public StartupWarmup(List<InventoryHandler> handlers,
+                         InventoryBatchRepository inventoryBatchRepository,
+                         ProductAvailabilityRepository productAvailabilityRepository,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${inventory.warmup.enabled:true}") boolean enabled,
+                         @Value("${inventory.warmup.iterations:2000}") int iterations,
+                         @Value("${inventory.warmup.max-duration-ms:20000}") long maxDurationMs,
+                         @Value("${inventory.warmup.scratch-product-id:-1}") long scratchProductId) {
+        super("inventory", meterRegistry, enabled, iterations, maxDurationMs);
+        this.handlers = handlers;
+        this.inventoryBatchRepository = inventoryBatchRepository;
+        this.productAvailabilityRepository = productAvailabilityRepository;
+        this.objectMapper = objectMapper;
+        this.scratchProductId = scratchProductId;
+    }
+
+    @Override
+    protected void iteration(Scratch scratch, int i) throws IOException {
+        // Vary the quantity so every allocation strategy takes its partial and multi-batch branches
+        int quantity = 1 + i % scratch.totalQuantity();
+        for (InventoryHandler handler : handlers) {
+            handler.allocate(scratch.batches(), quantity);
+        }
+
+        byte[] body = objectMapper.writeValueAsBytes(scratch.response());
+        objectMapper.readValue(body, InventoryResponse.class);
+        objectMapper.readValue(scratch.reserveBody(), ReserveRequest.class);
+        objectMapper.readValue(scratch.updateBody(), UpdateInventoryRequest.class);
+
+        inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(scratchProductId);
+        productAvailabilityRepository.findById(scratchProductId);
+    }
+
+    @Override
+    protected Scratch prepare() throws IOException {
+        LocalDate today = LocalDate.now();
+        List<InventoryBatch> batches = new ArrayList<>();
+        List<BatchDto> batchDtos = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < SCRATCH_BATCHES; i++) {
+            long batchId = -1L - i;
+            int quantity = 10 * (i + 1);
+            LocalDate expiry = today.plusDays(3L * i);
+            batches.add(new InventoryBatch(batchId, scratchProductId, quantity, expiry));
+            batchDtos.add(new BatchDto(batchId, quantity, expiry));
+            total += quantity;
+        }
+        InventoryResponse response = new InventoryResponse(scratchProductId, "Warm-up", batchDtos);
+        byte[] reserveBody = objectMapper.writeValueAsBytes(new ReserveRequest(scratchProductId, 5));
+        byte[] updateBody = objectMapper.writeValueAsBytes(new UpdateInventoryRequest(scratchProductId,
+                handlers.get(0).allocate(batches, total / 2)));
+        return new Scratch(batches, total, response, reserveBody, updateBody);
+    }
+
+    record Scratch(List<InventoryBatch> batches, int totalQuantity, InventoryResponse response,
+                   byte[] reserveBody, byte[] updateBody) {
+    }
+}
@@ -0,0 +1,419 @@
+package com.koerber.inventory.writebehind;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.BatchDeltaDto;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.exception.InventoryConflictException;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchJdbcRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Authoritative in-memory batch quantities with deferred persistence.
+ *
+ * <p>Deductions and releases are checked and applied to the in-memory counters
+ * under one lock, so reservations never oversell. Once the caller's transaction
+ * commits, the change is folded into a per-batch delta; a background flush
+ * writes every dirty batch with one batched {@code UPDATE} and adjusts the
+ * availability counters in the same transaction. A thousand deductions from
+ * one batch between flushes therefore cost one row write. If the caller's
+ * transaction rolls back, the in-memory deduction is undone.
+ *
+ * <p>Flushes run every {@code inventory.write-behind.flush-interval-ms} and on
+ * shutdown. When {@code inventory.write-behind.max-dirty-batches} batches are
+ * waiting, a flush is started early and writers block until it completes.
+ *
+ * <p>Committed changes still raise {@link InventoryChangedEvent}, so the change
+ * feed and the journal see them immediately. Only the database rows lag, by at
+ * most one flush interval. Without the journal, a crash loses unflushed deltas.
+ *
+ * <p>The in-memory quantities include deductions of transactions still in
+ * flight, so change events are not built from them. Each batch also keeps its
+ * committed quantity; a transaction's changes are taken from it, and the batch
+ * version advanced, only when that transaction commits.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.write-behind.enabled", havingValue = "true")
+public class WriteBehindLedger implements SmartLifecycle {
+
+    private static final Comparator<InventoryBatch> EXPIRY_ORDER =
+            Comparator.comparing(InventoryBatch::getExpiryDate).thenComparing(InventoryBatch::getBatchId);
+
+    private final InventoryBatchJdbcRepository inventoryBatchJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ProductCatalog productCatalog;
+    private final long flushIntervalMs;
+    private final int maxDirtyBatches;
+    private final int jdbcBatchSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition drained = lock.newCondition();
+    private final Map<Long, InventoryBatch> batches = new HashMap<>();
+    private final Map<Long, List<InventoryBatch>> batchesByProduct = new HashMap<>();
+    private final Map<Long, Integer> committedQuantities = new HashMap<>();
+    private Map<Long, BatchDeltaDto> pending = new HashMap<>();
+
+    // Serialises flushes so that deltas for one batch reach the database in order
+    private final Object flushMonitor = new Object();
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public WriteBehindLedger(InventoryBatchJdbcRepository inventoryBatchJdbcRepository,
+                             TransactionTemplate transactionTemplate,
+                             ProductCatalog productCatalog,
+                             MeterRegistry meterRegistry,
+                             @Value("${inventory.write-behind.flush-interval-ms:100}") long flushIntervalMs,
+                             @Value("${inventory.write-behind.max-dirty-batches:10000}") int maxDirtyBatches,
+                             @Value("${inventory.import.jdbc-batch-size:1000}") int jdbcBatchSize) {
+        this.inventoryBatchJdbcRepository = inventoryBatchJdbcRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.productCatalog = productCatalog;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxDirtyBatches = maxDirtyBatches;
+        this.jdbcBatchSize = jdbcBatchSize;
+        Gauge.builder("inventory.write-behind.dirty-batches", this, WriteBehindLedger::getDirtyBatches)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            inventoryBatchJdbcRepository.forEachBatch(this::register);
+            log.info("Write-behind ledger loaded {} batches", batches.size());
+        } finally {
+            lock.unlock();
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "inventory-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flusher != null) {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // After the journal has restored the tables, and stopped before it
+        return 1;
+    }
+
+    /**
+     * Returns detached copies of the product's batches sorted by expiry date.
+     */
+    public List<InventoryBatch> getBatches(Long productId) {
+        lock.lock();
+        try {
+            List<InventoryBatch> productBatches = batchesByProduct.getOrDefault(productId, List.of());
+            List<InventoryBatch> copies = new ArrayList<>(productBatches.size());
+            for (InventoryBatch batch : productBatches) {
+                copies.add(new InventoryBatch(batch.getBatchId(), batch.getProductId(), batch.getQuantity(),
+                        batch.getExpiryDate(), batch.getVersion()));
+            }
+            return copies;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the product's total quantity, or empty for an unknown product.
+     */
+    public OptionalLong getAvailable(Long productId) {
+        lock.lock();
+        try {
+            List<InventoryBatch> productBatches = batchesByProduct.get(productId);
+            if (productBatches == null) {
+                return OptionalLong.empty();
+            }
+            long available = 0;
+            for (InventoryBatch batch : productBatches) {
+                available += batch.getQuantity();
+            }
+            return OptionalLong.of(available);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs the action while holding the ledger lock, so that a read of
+     * {@link #getBatches} and a following {@link #apply} see no interleaved writer.
+     */
+    public <T> T locked(Supplier<T> action) {
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies signed deductions (negative values add stock back) to the in-memory
+     * batches. Either every update is applied or, if a batch is unknown or would
+     * go negative, none is. The deltas are queued for the database when the
+     * current transaction commits and undone if it rolls back.
+     *
+     * @return the changed batches for {@link InventoryChangedEvent}. The list is
+     *         filled in with their committed state when the current transaction
+     *         completes (at once without a transaction), before transactional
+     *         listeners of the event run.
+     */
+    public List<InventoryChangeDto> apply(List<BatchUpdateDto> batchUpdates) {
+        lock.lock();
+        try {
+            awaitCapacity();
+            Map<Long, Long> deductedByBatch = new HashMap<>();
+            for (BatchUpdateDto update : batchUpdates) {
+                InventoryBatch batch = batches.get(update.getBatchId());
+                if (batch == null) {
+                    throw new IllegalArgumentException("Batch not found: " + update.getBatchId());
+                }
+                long deducted = deductedByBatch.merge(batch.getBatchId(),
+                        update.getQuantityToDeduct().longValue(), Long::sum);
+                if (batch.getQuantity() - deducted < 0) {
+                    throw new IllegalArgumentException("Insufficient quantity in batch: " + update.getBatchId());
+                }
+            }
+
+            for (BatchUpdateDto update : batchUpdates) {
+                InventoryBatch batch = batches.get(update.getBatchId());
+                batch.setQuantity(batch.getQuantity() - update.getQuantityToDeduct());
+            }
+            List<InventoryChangeDto> changes = new ArrayList<>(batchUpdates.size());
+            onCompletion(List.copyOf(batchUpdates), changes);
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes every committed delta to the database in one transaction. On failure
+     * the deltas are kept for the next attempt.
+     */
+    public void flush() {
+        synchronized (flushMonitor) {
+            Map<Long, BatchDeltaDto> dirty;
+            lock.lock();
+            try {
+                if (pending.isEmpty()) {
+                    drained.signalAll();
+                    return;
+                }
+                dirty = pending;
+                pending = new HashMap<>();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        inventoryBatchJdbcRepository.applyDeltas(dirty.values(), jdbcBatchSize));
+            } catch (RuntimeException ex) {
+                lock.lock();
+                try {
+                    // Older deltas first, so the merged version is the newest one
+                    dirty.forEach((batchId, delta) -> pending.merge(batchId, delta, WriteBehindLedger::combine));
+                } finally {
+                    lock.unlock();
+                }
+                throw ex;
+            }
+
+            lock.lock();
+            try {
+                drained.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Picks up batches created by the bulk import, which writes them with JDBC.
+     */
+    @TransactionalEventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        lock.lock();
+        try {
+            event.changes().forEach(this::register);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getDirtyBatches() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void register(InventoryChangeDto row) {
+        if (batches.containsKey(row.getBatchId())) {
+            return;
+        }
+        InventoryBatch batch = new InventoryBatch(row.getBatchId(), row.getProductId(), row.getQuantity(),
+                row.getExpiryDate(), row.getVersion());
+        batches.put(batch.getBatchId(), batch);
+        committedQuantities.put(batch.getBatchId(), batch.getQuantity());
+        List<InventoryBatch> productBatches = batchesByProduct.computeIfAbsent(batch.getProductId(), id -> new ArrayList<>());
+        int index = Collections.binarySearch(productBatches, batch, EXPIRY_ORDER);
+        productBatches.add(index < 0 ? -index - 1 : index, batch);
+    }
+
+    private void onCompletion(List<BatchUpdateDto> updates, List<InventoryChangeDto> changes) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            commit(updates, changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // Registered before the change event is published, so this runs before
+            // the journal appends it and a journal snapshot never misses the delta
+            @Override
+            public void afterCommit() {
+                commit(updates, changes);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    revert(updates, changes);
+                }
+            }
+        });
+    }
+
+    /**
+     * Folds the updates into the committed quantities and pending deltas, one
+     * version per update, and records the resulting committed state as the changes.
+     */
+    private void commit(List<BatchUpdateDto> updates, List<InventoryChangeDto> changes) {
+        lock.lock();
+        try {
+            for (BatchUpdateDto update : updates) {
+                InventoryBatch batch = batches.get(update.getBatchId());
+                int committed = committedQuantities.merge(batch.getBatchId(), -update.getQuantityToDeduct(), Integer::sum);
+                batch.setVersion(batch.getVersion() + 1);
+                pending.merge(batch.getBatchId(), new BatchDeltaDto(batch.getBatchId(), batch.getProductId(),
+                        update.getQuantityToDeduct(), batch.getVersion()), WriteBehindLedger::combine);
+                changes.add(committedChange(batch, committed));
+            }
+            if (pending.size() >= maxDirtyBatches) {
+                requestFlush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Puts the rolled-back deductions back. The versions were never advanced. The
+     * changes report the unchanged committed state, so that completion listeners
+     * such as the response cache still see which batches readers saw move.
+     */
+    private void revert(List<BatchUpdateDto> updates, List<InventoryChangeDto> changes) {
+        lock.lock();
+        try {
+            for (BatchUpdateDto update : updates) {
+                InventoryBatch batch = batches.get(update.getBatchId());
+                batch.setQuantity(batch.getQuantity() + update.getQuantityToDeduct());
+                changes.add(committedChange(batch, committedQuantities.get(batch.getBatchId())));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private InventoryChangeDto committedChange(InventoryBatch batch, int committedQuantity) {
+        return new InventoryChangeDto(0, batch.getBatchId(), batch.getProductId(),
+                productCatalog.getName(batch.getProductId()), committedQuantity, batch.getExpiryDate(),
+                batch.getVersion());
+    }
+
+    /**
+     * Blocks the caller while the dirty set is full. Must hold the lock.
+     */
+    private void awaitCapacity() {
+        while (running && pending.size() >= maxDirtyBatches) {
+            requestFlush();
+            try {
+                drained.await(flushIntervalMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InventoryConflictException("Interrupted while waiting for inventory to be flushed", ex);
+            }
+        }
+    }
+
+    private void requestFlush() {
+        if (flusher != null && !flusher.isShutdown()) {
+            flusher.execute(this::flushQuietly);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception ex) {
+            log.warn("Inventory write-behind flush failed, will retry: {}", ex.getMessage());
+        }
+    }
+
+    private static BatchDeltaDto combine(BatchDeltaDto older, BatchDeltaDto newer) {
+        return new BatchDeltaDto(older.getBatchId(), older.getProductId(),
+                older.getQuantityDeducted() + newer.getQuantityDeducted(),
+                Math.max(older.getVersion(), newer.getVersion()));
+    }
+}
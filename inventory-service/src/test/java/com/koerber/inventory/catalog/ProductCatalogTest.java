@@ -0,0 +1,87 @@
+package com.koerber.inventory.catalog;
+
+import com.koerber.inventory.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        doAnswer(inv -> {
+            BiConsumer<Long, String> consumer = inv.getArgument(0);
+            consumer.accept(1005L, "Smartwatch");
+            return null;
+        }).when(productRepository).forEachProduct(any());
+        catalog = new ProductCatalog(productRepository);
+        catalog.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getName_shouldServeLoadedProductsWithoutQuerying() {
+        assertThat(catalog.getName(1005L)).isEqualTo("Smartwatch");
+
+        verify(productRepository, never()).findName(anyLong());
+    }
+
+    @Test
+    void getName_onMiss_shouldReadOnceThenCache() {
+        when(productRepository.findName(2001L)).thenReturn("Charger");
+
+        assertThat(catalog.getName(2001L)).isEqualTo("Charger");
+        assertThat(catalog.getName(2001L)).isEqualTo("Charger");
+        assertThat(catalog.getName(9999L)).isNull();
+
+        verify(productRepository, times(1)).findName(2001L);
+    }
+
+    @Test
+    void register_shouldWriteOnlyChangedNames() {
+        catalog.register(Map.of(1005L, "Smartwatch"));
+        verify(productRepository, never()).upsert(anyMap());
+
+        catalog.register(Map.of(1005L, "Smartwatch", 2001L, "Charger"));
+        verify(productRepository).upsert(Map.of(2001L, "Charger"));
+        assertThat(catalog.getName(2001L)).isEqualTo("Charger");
+    }
+
+    @Test
+    void register_inTransaction_shouldCacheOnlyAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        catalog.register(Map.of(1005L, "Smartwatch Pro"));
+        assertThat(catalog.getName(1005L)).isEqualTo("Smartwatch");
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(catalog.getName(1005L)).isEqualTo("Smartwatch Pro");
+    }
+}
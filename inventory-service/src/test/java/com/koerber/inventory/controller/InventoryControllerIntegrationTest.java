@@ -1,17 +1,34 @@
 package com.koerber.inventory.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.common.sql.SqlStatistics;
+import com.koerber.common.sql.SqlStatisticsFilter;
+import com.koerber.inventory.cache.InventoryResponseCache;
 import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.BulkReserveRequest;
+import com.koerber.inventory.dto.ReleaseRequest;
+import com.koerber.inventory.dto.ReserveRequest;
 import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.koerber.inventory.exception.InventoryConflictException;
+import com.koerber.inventory.service.InventoryService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,6 +43,15 @@ class InventoryControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private InventoryService inventoryService;
+
+    @Autowired
+    private InventoryResponseCache inventoryResponseCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void getInventory_shouldReturnBatchesSortedByExpiryDate() throws Exception {
         mockMvc.perform(get("/inventory/1005"))
@@ -38,6 +64,19 @@ class InventoryControllerIntegrationTest {
                 .andExpect(jsonPath("$.batches[2].expiryDate").value("2026-05-30"));
     }
 
+    @Test
+    void warmup_shouldHaveCompletedBeforeReadinessIsReported() throws Exception {
+        mockMvc.perform(get("/actuator/warmup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.iterations").value(2000))
+                .andExpect(jsonPath("$.targetIterations").value(2000));
+
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+
     @Test
     void getInventory_shouldReturnSingleBatchForLaptop() throws Exception {
         mockMvc.perform(get("/inventory/1001"))
@@ -47,6 +86,50 @@ class InventoryControllerIntegrationTest {
                 .andExpect(jsonPath("$.batches", hasSize(1)));
     }
 
+    @Test
+    void getInventory_withTraceparent_shouldRecordHandlerAndRepositorySpansInCallersTrace() throws Exception {
+        String traceId = "0af7651916cd43dd8448eb211c80319c";
+        // A cached body would be served without reaching the handler
+        inventoryResponseCache.clear();
+
+        mockMvc.perform(get("/inventory/1001")
+                        .header("traceparent", "00-" + traceId + "-b7ad6b7169203331-01"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("traceparent", startsWith("00-" + traceId + "-")));
+
+        mockMvc.perform(get("/traces/" + traceId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("GET /inventory/{productId}"))
+                .andExpect(jsonPath("$[0].parentSpanId").value("b7ad6b7169203331"))
+                .andExpect(jsonPath("$[0].service").value("inventory-service"))
+                .andExpect(jsonPath("$[*].name", hasItems(
+                        "defaultInventoryHandler.getInventorySortedByExpiry",
+                        "inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc")));
+    }
+
+    @Test
+    void getInventory_shouldServeCachedBytesUntilProductChanges() throws Exception {
+        String csv = """
+                batch_id,product_id,product_name,quantity,expiry_date
+                401,2010,Charger,30,2026-10-01
+                """;
+        mockMvc.perform(post("/inventory/batches/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk());
+
+        assertThat(batchQuantity(2010L, 0)).isEqualTo(30);
+        double hits = meterRegistry.counter("inventory.response-cache.hits").count();
+        assertThat(batchQuantity(2010L, 0)).isEqualTo(30);
+        assertThat(meterRegistry.counter("inventory.response-cache.hits").count()).isEqualTo(hits + 1);
+
+        mockMvc.perform(post("/inventory/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UpdateInventoryRequest(2010L, List.of(new BatchUpdateDto(401L, 1))))))
+                .andExpect(status().isOk());
+
+        assertThat(batchQuantity(2010L, 0)).isEqualTo(29);
+    }
+
     @Test
     void getInventory_whenProductNotFound_shouldReturn404() throws Exception {
         mockMvc.perform(get("/inventory/9999"))
@@ -69,4 +152,282 @@ class InventoryControllerIntegrationTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.batches[0].quantity").value(63));
     }
+
+    @Test
+    void updateInventory_concurrentDeductionsOnSameBatch_shouldNotLoseUpdates() throws Exception {
+        // Batch 10 (Smartphone) starts at 83 units
+        int writers = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            results.add(pool.submit(() -> {
+                try {
+                    inventoryService.updateInventory(
+                            new UpdateInventoryRequest(1002L, List.of(new BatchUpdateDto(10L, 1))));
+                    return true;
+                } catch (InventoryConflictException ex) {
+                    return false;
+                }
+            }));
+        }
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            succeeded += result.get() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        mockMvc.perform(get("/inventory/1002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.batches[1].batchId").value(10))
+                .andExpect(jsonPath("$.batches[1].quantity").value(83 - succeeded));
+        mockMvc.perform(get("/inventory/1002/available"))
+                .andExpect(jsonPath("$.availableQuantity").value(29 + 83 - succeeded));
+    }
+
+    @Test
+    void updateInventory_shouldIssueConstantNumberOfStatementsRegardlessOfBatchCount() throws Exception {
+        UpdateInventoryRequest request = new UpdateInventoryRequest(1005L, List.of(
+                new BatchUpdateDto(2L, 1), new BatchUpdateDto(5L, 1), new BatchUpdateDto(7L, 1)));
+
+        MvcResult result = mockMvc.perform(post("/inventory/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // One batch select, one JDBC batch of updates, one availability decrement
+        SqlStatistics statistics = (SqlStatistics) result.getRequest()
+                .getAttribute(SqlStatisticsFilter.STATISTICS_ATTRIBUTE);
+        assertThat(statistics.getStatements()).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void getAvailableQuantity_shouldTrackDeductions() throws Exception {
+        mockMvc.perform(get("/inventory/1003/available"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productId").value(1003))
+                .andExpect(jsonPath("$.availableQuantity").value(56));
+
+        UpdateInventoryRequest request = new UpdateInventoryRequest(
+                1003L, List.of(new BatchUpdateDto(4L, 10), new BatchUpdateDto(8L, 1))
+        );
+        mockMvc.perform(post("/inventory/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/inventory/1003/available"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableQuantity").value(45));
+    }
+
+    @Test
+    void getAvailableQuantity_whenProductNotFound_shouldReturn404() throws Exception {
+        mockMvc.perform(get("/inventory/9999/available"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void reserve_shouldAllocateWithDefaultStrategy() throws Exception {
+        // Headphones: batch 6 (56 units, 2026-06-06) expires before batch 3
+        mockMvc.perform(post("/inventory/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ReserveRequest(1004L, 10))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productName").value("Headphones"))
+                .andExpect(jsonPath("$.strategy").value("DEFAULT"))
+                .andExpect(jsonPath("$.batchUpdates", hasSize(1)))
+                .andExpect(jsonPath("$.batchUpdates[0].batchId").value(6))
+                .andExpect(jsonPath("$.batchUpdates[0].quantityToDeduct").value(10));
+    }
+
+    @Test
+    void reserve_whenInsufficient_shouldReturn422() throws Exception {
+        mockMvc.perform(post("/inventory/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ReserveRequest(1004L, 10_000))))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void reserveAll_shouldReserveEveryLineInRequestOrder() throws Exception {
+        BulkReserveRequest request = new BulkReserveRequest(null, List.of(
+                new ReserveRequest(1005L, 5), new ReserveRequest(1004L, 1)));
+
+        mockMvc.perform(post("/inventory/reserve/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lines", hasSize(2)))
+                .andExpect(jsonPath("$.lines[0].productName").value("Smartwatch"))
+                .andExpect(jsonPath("$.lines[0].batchUpdates[0].batchId").value(5))
+                .andExpect(jsonPath("$.lines[1].productName").value("Headphones"));
+    }
+
+    @Test
+    void reserveAll_whenOneLineIsShort_shouldReserveNothing() throws Exception {
+        // 1004 is applied first and must be rolled back when 1005 falls short
+        long before = inventoryService.getAvailableQuantity(1004L).getAvailableQuantity();
+        BulkReserveRequest request = new BulkReserveRequest(null, List.of(
+                new ReserveRequest(1005L, 10_000), new ReserveRequest(1004L, 1)));
+
+        mockMvc.perform(post("/inventory/reserve/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isUnprocessableEntity());
+
+        mockMvc.perform(get("/inventory/1004/available"))
+                .andExpect(jsonPath("$.availableQuantity").value(before));
+    }
+
+    @Test
+    void reserveAll_withTheSameReservationId_shouldReserveOnce() throws Exception {
+        long before = inventoryService.getAvailableQuantity(1004L).getAvailableQuantity();
+        BulkReserveRequest request = new BulkReserveRequest("order-replay", List.of(new ReserveRequest(1004L, 2)));
+
+        String first = postJson("/inventory/reserve/bulk", request).andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        postJson("/inventory/reserve/bulk", request)
+                .andExpect(status().isOk())
+                .andExpect(content().json(first));
+
+        mockMvc.perform(get("/inventory/1004/available"))
+                .andExpect(jsonPath("$.availableQuantity").value(before - 2));
+    }
+
+    @Test
+    void releaseReservation_shouldGiveBackWhatItTookOnce() throws Exception {
+        long before = inventoryService.getAvailableQuantity(1005L).getAvailableQuantity();
+        BulkReserveRequest request = new BulkReserveRequest("order-release", List.of(new ReserveRequest(1005L, 2)));
+        postJson("/inventory/reserve/bulk", request).andExpect(status().isOk());
+
+        postJson("/inventory/release", new ReleaseRequest("order-release")).andExpect(status().isOk());
+        postJson("/inventory/release", new ReleaseRequest("order-release")).andExpect(status().isOk());
+
+        mockMvc.perform(get("/inventory/1005/available"))
+                .andExpect(jsonPath("$.availableQuantity").value(before));
+        // A released reservation cannot be taken again under the same id
+        postJson("/inventory/reserve/bulk", request).andExpect(status().isConflict());
+    }
+
+    @Test
+    void releaseReservation_beforeTheReservation_shouldRefuseItWhenItArrives() throws Exception {
+        long before = inventoryService.getAvailableQuantity(1004L).getAvailableQuantity();
+
+        postJson("/inventory/release", new ReleaseRequest("order-late")).andExpect(status().isOk());
+        postJson("/inventory/reserve/bulk", new BulkReserveRequest("order-late", List.of(new ReserveRequest(1004L, 1))))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(get("/inventory/1004/available"))
+                .andExpect(jsonPath("$.availableQuantity").value(before));
+    }
+
+    @Test
+    void releaseReservation_withoutAnId_shouldReturn400() throws Exception {
+        postJson("/inventory/release", new ReleaseRequest(null)).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void importBatches_csv_shouldInsertRowsAndReportThroughput() throws Exception {
+        String csv = """
+                batch_id,product_id,product_name,quantity,expiry_date
+                101,2001,"Charger, USB-C",15,2026-10-01
+                102,2001,"Charger, USB-C",25,2026-07-15
+                """;
+
+        mockMvc.perform(post("/inventory/batches/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported").value(2))
+                .andExpect(jsonPath("$.chunksCommitted").value(1))
+                .andExpect(jsonPath("$.rowsPerSecond").isNumber());
+
+        mockMvc.perform(get("/inventory/2001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productName").value("Charger, USB-C"))
+                .andExpect(jsonPath("$.batches", hasSize(2)))
+                .andExpect(jsonPath("$.batches[0].batchId").value(102));
+
+        mockMvc.perform(get("/inventory/2001/available"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableQuantity").value(40));
+    }
+
+    @Test
+    void importBatches_ndjson_shouldInsertRows() throws Exception {
+        String ndjson = """
+                {"batchId":201,"productId":2002,"productName":"Keyboard","quantity":12,"expiryDate":"2027-01-10"}
+                {"batchId":202,"productId":2002,"productName":"Keyboard","quantity":8,"expiryDate":"2026-12-01"}
+                """;
+
+        mockMvc.perform(post("/inventory/batches/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rowsImported").value(2));
+
+        mockMvc.perform(get("/inventory/2002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.batches", hasSize(2)))
+                .andExpect(jsonPath("$.batches[0].quantity").value(8));
+    }
+
+    @Test
+    void importBatches_underNewName_shouldRenameTheProductForEveryBatch() throws Exception {
+        mockMvc.perform(post("/inventory/batches/import")
+                        .contentType("text/csv")
+                        .content("""
+                                batch_id,product_id,product_name,quantity,expiry_date
+                                421,2004,Webcam,5,2026-11-01
+                                """))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/inventory/2004"))
+                .andExpect(jsonPath("$.productName").value("Webcam"));
+
+        mockMvc.perform(post("/inventory/batches/import")
+                        .contentType("text/csv")
+                        .content("""
+                                batch_id,product_id,product_name,quantity,expiry_date
+                                422,2004,Webcam HD,7,2026-12-01
+                                """))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/inventory/2004"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productName").value("Webcam HD"))
+                .andExpect(jsonPath("$.batches", hasSize(2)));
+    }
+
+    @Test
+    void importBatches_whenRowIsInvalid_shouldReturn400() throws Exception {
+        String csv = """
+                batch_id,product_id,product_name,quantity,expiry_date
+                301,2003,Mouse,-4,2026-10-01
+                """;
+
+        mockMvc.perform(post("/inventory/batches/import")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("negative quantity")));
+
+        mockMvc.perform(get("/inventory/2003"))
+                .andExpect(status().isNotFound());
+    }
+
+    private ResultActions postJson(String path, Object body) throws Exception {
+        return mockMvc.perform(post(path)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(body)));
+    }
+
+    private int batchQuantity(long productId, int index) throws Exception {
+        MvcResult result = mockMvc.perform(get("/inventory/" + productId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn();
+        JsonNode body = objectMapper.readTree(result.getResponse().getContentAsByteArray());
+        return body.path("batches").path(index).path("quantity").asInt();
+    }
 }
@@ -0,0 +1,93 @@
+package com.koerber.inventory.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.UpdateInventoryRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class InventoryFeedControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private JsonNode snapshot() throws Exception {
+        MvcResult started = mockMvc.perform(get("/inventory/snapshot"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+
+    private static String awaitContent(MockHttpServletResponse response, String expected) throws Exception {
+        for (int i = 0; i < 50 && !response.getContentAsString().contains(expected); i++) {
+            Thread.sleep(100);
+        }
+        return response.getContentAsString();
+    }
+
+    @Test
+    void snapshot_shouldListEveryBatchWithFeedPosition() throws Exception {
+        JsonNode snapshot = snapshot();
+
+        assertThat(snapshot.get("epoch").asLong()).isPositive();
+        assertThat(snapshot.get("sequence").isNumber()).isTrue();
+        assertThat(snapshot.get("batches").size()).isGreaterThanOrEqualTo(10);
+        assertThat(snapshot.get("batches").get(0).get("productName").asText()).isEqualTo("Laptop");
+    }
+
+    @Test
+    void changes_shouldStreamCommittedUpdatesAfterSnapshotPosition() throws Exception {
+        JsonNode snapshot = snapshot();
+        long since = snapshot.get("sequence").asLong();
+
+        UpdateInventoryRequest request = new UpdateInventoryRequest(1004L, List.of(new BatchUpdateDto(3L, 2)));
+        mockMvc.perform(post("/inventory/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        MvcResult subscription = mockMvc.perform(get("/inventory/changes")
+                        .param("since", String.valueOf(since))
+                        .param("epoch", snapshot.get("epoch").asText()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String stream = awaitContent(subscription.getResponse(), "\"batchId\":3");
+        assertThat(stream).contains("id:" + (since + 1));
+        assertThat(stream).contains("event:change");
+        assertThat(stream).contains("\"batchId\":3");
+        assertThat(stream).contains("\"quantity\":18");
+    }
+
+    @Test
+    void changes_withForeignEpoch_shouldRequestResync() throws Exception {
+        MvcResult subscription = mockMvc.perform(get("/inventory/changes")
+                        .param("since", "5")
+                        .param("epoch", "1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(awaitContent(subscription.getResponse(), "event:resync")).contains("event:resync");
+    }
+}
@@ -0,0 +1,142 @@
+package com.koerber.inventory.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Read/write routing against two H2 databases standing in for primary and replica.
+ * Both are migrated and seeded at startup, but nothing replicates between them, so
+ * a read served by the replica is recognisable by its stale or replica-only rows.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:inventorydb-routing-primary;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "inventory.datasource.read.url=" + InventoryReadRoutingIntegrationTest.REPLICA_URL,
+        "inventory.datasource.read.initialize=true",
+        "spring.datasource.hikari.maximum-pool-size=7",
+        "inventory.datasource.read.max-lag-ms=500",
+        "inventory.warmup.iterations=200"
+})
+class InventoryReadRoutingIntegrationTest {
+
+    static final String REPLICA_URL = "jdbc:h2:mem:inventorydb-routing-replica;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void primaryPool_shouldUseTheHikariProperties() throws Exception {
+        HikariDataSource primary = (HikariDataSource) dataSource.unwrap(LazyConnectionDataSourceProxy.class)
+                .getTargetDataSource();
+
+        assertThat(primary.getMaximumPoolSize()).isEqualTo(7);
+        assertThat(primary.getPoolName()).isEqualTo("inventory-primary");
+    }
+
+    @Test
+    void getInventory_shouldReadFromTheReplica() throws Exception {
+        replica.update("UPDATE inventory_batch SET quantity = 60 WHERE batch_id = 1");
+
+        mockMvc.perform(get("/inventory/1001"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productName").value("Laptop"))
+                .andExpect(jsonPath("$.batches[0].quantity").value(60));
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT quantity FROM inventory_batch WHERE batch_id = 1", Integer.class)).isEqualTo(68);
+    }
+
+    @Test
+    void getAvailable_afterWrite_shouldReadThePrimaryUntilMaxLagHasPassed() throws Exception {
+        assertThat(available(1002L)).isEqualTo(112);
+        double fallbacks = meterRegistry.counter("inventory.datasource.read.primary-fallbacks").count();
+
+        mockMvc.perform(post("/inventory/update")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UpdateInventoryRequest(1002L, List.of(new BatchUpdateDto(9L, 5))))))
+                .andExpect(status().isOk());
+
+        // The write went to the primary only, and reads of the product follow it there
+        assertThat(replica.queryForObject(
+                "SELECT quantity FROM inventory_batch WHERE batch_id = 9", Integer.class)).isEqualTo(29);
+        assertThat(available(1002L)).isEqualTo(107);
+        assertThat(meterRegistry.counter("inventory.datasource.read.primary-fallbacks").count())
+                .isEqualTo(fallbacks + 1);
+
+        // Past max-lag-ms the replica is trusted again; this one never catches up
+        Thread.sleep(600);
+        assertThat(available(1002L)).isEqualTo(112);
+    }
+
+    @Test
+    void findExpiring_shouldScanTheReadDatasource() throws Exception {
+        LocalDate expiry = LocalDate.now().plusDays(3);
+        replica.update("INSERT INTO product (product_id, product_name) VALUES (9401, 'Replica Only')");
+        replica.update("INSERT INTO inventory_batch (batch_id, product_id, quantity, expiry_date) VALUES (94011, 9401, 12, ?)",
+                Date.valueOf(expiry));
+
+        MvcResult started = mockMvc.perform(get("/inventory/expiring").param("withinDays", "30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        JsonNode replicaOnly = null;
+        for (JsonNode product : objectMapper.readTree(result.getResponse().getContentAsString()).get("products")) {
+            if (product.get("productId").asLong() == 9401L) {
+                replicaOnly = product;
+            }
+        }
+        assertThat(replicaOnly).isNotNull();
+        assertThat(replicaOnly.get("quantity").asLong()).isEqualTo(12);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM inventory_batch WHERE product_id = 9401", Integer.class)).isZero();
+    }
+
+    private long available(long productId) throws Exception {
+        MvcResult result = mockMvc.perform(get("/inventory/" + productId + "/available"))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("availableQuantity").asLong();
+    }
+}
@@ -0,0 +1,69 @@
+package com.koerber.inventory.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class InventoryReportControllerIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void findExpiring_shouldTotalStockedBatchesUpToCutoffPerProduct() throws Exception {
+        LocalDate today = LocalDate.now();
+        String csv = "batch_id,product_id,product_name,quantity,expiry_date\n"
+                + "411,2020,Yoghurt,10," + today.plusDays(5) + "\n"
+                + "412,2020,Yoghurt,5," + today.plusDays(20) + "\n"
+                + "413,2020,Yoghurt,7," + today.plusDays(400) + "\n"
+                + "414,2020,Yoghurt,0," + today.plusDays(1) + "\n";
+        mockMvc.perform(post("/inventory/batches/import").contentType("text/csv").content(csv))
+                .andExpect(status().isOk());
+
+        JsonNode report = expiring(30);
+
+        assertThat(report.get("cutoff").asText()).isEqualTo(today.plusDays(30).toString());
+        JsonNode yoghurt = null;
+        for (JsonNode product : report.get("products")) {
+            if (product.get("productId").asLong() == 2020L) {
+                yoghurt = product;
+            }
+        }
+        assertThat(yoghurt).isNotNull();
+        assertThat(yoghurt.get("batches").asInt()).isEqualTo(2);
+        assertThat(yoghurt.get("quantity").asLong()).isEqualTo(15);
+        assertThat(yoghurt.get("earliestExpiry").asText()).isEqualTo(today.plusDays(5).toString());
+    }
+
+    @Test
+    void findExpiring_withNegativeDays_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/inventory/expiring").param("withinDays", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode expiring(int withinDays) throws Exception {
+        MvcResult started = mockMvc.perform(get("/inventory/expiring").param("withinDays", String.valueOf(withinDays)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult result = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
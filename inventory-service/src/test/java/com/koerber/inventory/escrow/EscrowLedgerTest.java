@@ -0,0 +1,173 @@
+package com.koerber.inventory.escrow;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.cache.InventoryResponseCache;
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.BatchDeltaDto;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.ReserveResponse;
+import com.koerber.inventory.exception.InsufficientInventoryException;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchJdbcRepository;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class EscrowLedgerTest {
+
+    private InventoryBatchJdbcRepository jdbcRepository;
+    private ApplicationEventPublisher eventPublisher;
+    private InventoryResponseCache responseCache;
+    private EscrowLedger escrow;
+
+    @BeforeEach
+    void setUp() {
+        InventoryBatchRepository batchRepository = mock(InventoryBatchRepository.class);
+        when(batchRepository.findByProductIdOrderByExpiryDateAsc(1005L)).thenReturn(List.of(
+                new InventoryBatch(5L, 1005L, 39, LocalDate.of(2026, 3, 31), 0L),
+                new InventoryBatch(7L, 1005L, 4000, LocalDate.of(2026, 4, 24), 3L)));
+        jdbcRepository = mock(InventoryBatchJdbcRepository.class);
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        ProductCatalog productCatalog = mock(ProductCatalog.class);
+        when(productCatalog.getName(1005L)).thenReturn("Smartwatch");
+        responseCache = new InventoryResponseCache(new ObjectMapper().findAndRegisterModules(),
+                new SimpleMeterRegistry(), 1 << 20);
+        // A very long interval so that only explicit flushes write
+        escrow = new EscrowLedger(batchRepository, jdbcRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), eventPublisher,
+                productCatalog, responseCache, new SimpleMeterRegistry(), Set.of(1005L), 8, 3_600_000, 1000);
+        escrow.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        escrow.stop();
+    }
+
+    @Test
+    void reserve_shouldTakeEarliestExpiryFirstAndFlushOneDeltaPerBatch() {
+        ReserveResponse first = escrow.reserve(1005L, 30);
+        ReserveResponse second = escrow.reserve(1005L, 20);
+
+        assertThat(first.getBatchUpdates()).containsExactly(new BatchUpdateDto(5L, 30));
+        assertThat(second.getBatchUpdates()).containsExactly(new BatchUpdateDto(5L, 9), new BatchUpdateDto(7L, 11));
+        assertThat(second.getStrategy()).isEqualTo(EscrowLedger.HANDLER_TYPE);
+        assertThat(escrow.getAvailable(1005L)).isEqualTo(3989);
+
+        escrow.flush();
+
+        assertThat(flushedDeltas()).containsExactlyInAnyOrder(
+                new BatchDeltaDto(5L, 1005L, 39, 1),
+                new BatchDeltaDto(7L, 1005L, 11, 4));
+        ArgumentCaptor<InventoryChangedEvent> event = ArgumentCaptor.forClass(InventoryChangedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().changes()).extracting(c -> c.getQuantity()).containsExactlyInAnyOrder(0, 3989);
+    }
+
+    @Test
+    void reserve_shouldInvalidateTheCachedResponseBeforeTheFlush() {
+        byte[] before = responseCache.get(1005L, () -> escrow.getInventory(1005L));
+
+        TransactionSynchronizationManager.initSynchronization();
+        escrow.reserve(1005L, 30);
+        assertThat(responseCache.get(1005L, () -> escrow.getInventory(1005L))).isSameAs(before);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        byte[] after = responseCache.get(1005L, () -> escrow.getInventory(1005L));
+        assertThat(new String(after)).contains("\"quantity\":9,");
+        verify(jdbcRepository, never()).applyDeltas(any(), anyInt());
+    }
+
+    @Test
+    void reserve_fromManyThreads_shouldNeverOversell() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger reserved = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    try {
+                        reserved.addAndGet(escrow.reserve(1005L, 1).getBatchUpdates().get(0).getQuantityToDeduct());
+                    } catch (InsufficientInventoryException ex) {
+                        // sold out
+                    }
+                    if (i % 100 == 0) {
+                        escrow.maintain();
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+
+        assertThat(reserved.get()).isEqualTo(4039);
+        assertThat(escrow.getAvailable(1005L)).isZero();
+        assertThatThrownBy(() -> escrow.reserve(1005L, 1)).isInstanceOf(InsufficientInventoryException.class);
+    }
+
+    @Test
+    void apply_whenTransactionRollsBack_shouldReturnDeductionsAndDropReleases() {
+        TransactionSynchronizationManager.initSynchronization();
+        escrow.apply(1005L, List.of(new BatchUpdateDto(5L, 10), new BatchUpdateDto(7L, -5)));
+        assertThat(escrow.getAvailable(1005L)).isEqualTo(4029);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(s -> s.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThat(escrow.getAvailable(1005L)).isEqualTo(4039);
+        escrow.flush();
+        verify(jdbcRepository, never()).applyDeltas(any(), anyInt());
+    }
+
+    @Test
+    void apply_whenBatchShortOrUnknown_shouldApplyNothing() {
+        assertThatThrownBy(() -> escrow.apply(1005L, List.of(new BatchUpdateDto(7L, 1), new BatchUpdateDto(5L, 40))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient quantity in batch: 5");
+        assertThatThrownBy(() -> escrow.apply(1005L, List.of(new BatchUpdateDto(99L, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Batch not found: 99");
+
+        assertThat(escrow.getAvailable(1005L)).isEqualTo(4039);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BatchDeltaDto> flushedDeltas() {
+        ArgumentCaptor<Collection<BatchDeltaDto>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(jdbcRepository).applyDeltas(captor.capture(), anyInt());
+        return new ArrayList<>(captor.getValue());
+    }
+}
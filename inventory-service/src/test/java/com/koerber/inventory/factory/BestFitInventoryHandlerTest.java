@@ -0,0 +1,78 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ExtendWith(MockitoExtension.class)
+class BestFitInventoryHandlerTest {
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private BestFitInventoryHandler handler;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        handler = new BestFitInventoryHandler(inventoryBatchRepository, productAvailabilityRepository, eventPublisher, productCatalog);
+    }
+
+    @Test
+    void allocate_picksSmallestBatchThatCoversQuantity() {
+        List<InventoryBatch> batches = List.of(
+                new InventoryBatch(1L, 100L, 5, today),
+                new InventoryBatch(2L, 100L, 50, today.plusDays(1)),
+                new InventoryBatch(3L, 100L, 12, today.plusDays(2)));
+
+        assertThat(handler.allocate(batches, 10))
+                .extracting(BatchUpdateDto::getBatchId, BatchUpdateDto::getQuantityToDeduct)
+                .containsExactly(tuple(3L, 10));
+    }
+
+    @Test
+    void allocate_equalSizes_prefersEarliestExpiry() {
+        List<InventoryBatch> batches = List.of(
+                new InventoryBatch(1L, 100L, 20, today),
+                new InventoryBatch(2L, 100L, 20, today.plusDays(1)));
+
+        assertThat(handler.allocate(batches, 15))
+                .extracting(BatchUpdateDto::getBatchId)
+                .containsExactly(1L);
+    }
+
+    @Test
+    void allocate_noSingleBatchLargeEnough_fallsBackToFefo() {
+        List<InventoryBatch> batches = List.of(
+                new InventoryBatch(1L, 100L, 5, today),
+                new InventoryBatch(2L, 100L, 8, today.plusDays(1)));
+
+        assertThat(handler.allocate(batches, 10))
+                .extracting(BatchUpdateDto::getBatchId, BatchUpdateDto::getQuantityToDeduct)
+                .containsExactly(tuple(1L, 5), tuple(2L, 5));
+    }
+}
@@ -1,22 +1,30 @@
 package com.koerber.inventory.factory;
 
+import com.koerber.inventory.catalog.ProductCatalog;
 import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.ReserveRequest;
+import com.koerber.inventory.dto.ReserveResponse;
 import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.koerber.inventory.exception.InsufficientInventoryException;
+import com.koerber.inventory.feed.InventoryChangedEvent;
 import com.koerber.inventory.model.InventoryBatch;
 import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,11 +33,20 @@ class DefaultInventoryHandlerTest {
     @Mock
     private InventoryBatchRepository inventoryBatchRepository;
 
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
     private DefaultInventoryHandler handler;
 
     @BeforeEach
     void setUp() {
-        handler = new DefaultInventoryHandler(inventoryBatchRepository);
+        handler = new DefaultInventoryHandler(inventoryBatchRepository, productAvailabilityRepository, eventPublisher, productCatalog);
     }
 
     @Test
@@ -60,8 +77,8 @@ class DefaultInventoryHandlerTest {
 
     @Test
     void updateInventory_validSingleBatch_deductsQuantityAndSaves() {
-        InventoryBatch batch = new InventoryBatch(5L, 100L, "Gadget", 20, LocalDate.now());
-        when(inventoryBatchRepository.findById(5L)).thenReturn(Optional.of(batch));
+        InventoryBatch batch = new InventoryBatch(5L, 100L, 20, LocalDate.now());
+        when(inventoryBatchRepository.findAllById(List.of(5L))).thenReturn(List.of(batch));
         when(inventoryBatchRepository.save(any(InventoryBatch.class))).thenAnswer(inv -> inv.getArgument(0));
 
         UpdateInventoryRequest req = new UpdateInventoryRequest(100L, List.of(new BatchUpdateDto(5L, 5)));
@@ -70,12 +87,31 @@ class DefaultInventoryHandlerTest {
 
         assertThat(batch.getQuantity()).isEqualTo(15);
         verify(inventoryBatchRepository).save(batch);
+        verify(productAvailabilityRepository).decrement(100L, 5L);
+        verify(eventPublisher).publishEvent(argThat((Object event) ->
+                event instanceof InventoryChangedEvent changed
+                        && changed.changes().size() == 1
+                        && changed.changes().get(0).getBatchId() == 5L
+                        && changed.changes().get(0).getQuantity() == 15));
+    }
+
+    @Test
+    void updateInventory_multipleBatchesOfSameProduct_decrementsAvailabilityOnce() {
+        InventoryBatch first = new InventoryBatch(5L, 100L, 20, LocalDate.now());
+        InventoryBatch second = new InventoryBatch(6L, 100L, 10, LocalDate.now().plusDays(1));
+        when(inventoryBatchRepository.findAllById(List.of(5L, 6L))).thenReturn(List.of(first, second));
+
+        handler.updateInventory(new UpdateInventoryRequest(100L, List.of(
+                new BatchUpdateDto(5L, 20), new BatchUpdateDto(6L, 4))));
+
+        verify(productAvailabilityRepository).decrement(100L, 24L);
+        verifyNoMoreInteractions(productAvailabilityRepository);
     }
 
     @Test
     void updateInventory_insufficientQuantity_throwsIllegalArgumentException() {
-        InventoryBatch batch = new InventoryBatch(5L, 100L, "Gadget", 3, LocalDate.now());
-        when(inventoryBatchRepository.findById(5L)).thenReturn(Optional.of(batch));
+        InventoryBatch batch = new InventoryBatch(5L, 100L, 3, LocalDate.now());
+        when(inventoryBatchRepository.findAllById(List.of(5L))).thenReturn(List.of(batch));
 
         UpdateInventoryRequest req = new UpdateInventoryRequest(100L, List.of(new BatchUpdateDto(5L, 5)));
 
@@ -84,6 +120,36 @@ class DefaultInventoryHandlerTest {
                 .hasMessageContaining("Insufficient quantity");
 
         verify(inventoryBatchRepository, never()).save(any());
+        verifyNoInteractions(productAvailabilityRepository, eventPublisher);
     }
-}
 
+    @Test
+    void reserve_allocatesAcrossBatchesInExpiryOrder() {
+        InventoryBatch first = new InventoryBatch(5L, 100L, 4, LocalDate.now());
+        InventoryBatch second = new InventoryBatch(6L, 100L, 10, LocalDate.now().plusDays(1));
+        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(100L)).thenReturn(List.of(first, second));
+
+        ReserveResponse response = handler.reserve(new ReserveRequest(100L, 6));
+
+        assertThat(response.getStrategy()).isEqualTo(DefaultInventoryHandler.HANDLER_TYPE);
+        assertThat(response.getBatchUpdates())
+                .extracting(BatchUpdateDto::getBatchId, BatchUpdateDto::getQuantityToDeduct)
+                .containsExactly(tuple(5L, 4), tuple(6L, 2));
+        assertThat(first.getQuantity()).isZero();
+        assertThat(second.getQuantity()).isEqualTo(8);
+        verify(productAvailabilityRepository).decrement(100L, 6L);
+    }
+
+    @Test
+    void reserve_insufficientTotal_throwsWithoutDeducting() {
+        InventoryBatch batch = new InventoryBatch(5L, 100L, 3, LocalDate.now());
+        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(100L)).thenReturn(List.of(batch));
+
+        assertThatThrownBy(() -> handler.reserve(new ReserveRequest(100L, 5)))
+                .isInstanceOf(InsufficientInventoryException.class)
+                .hasMessageContaining("Available: 3");
+
+        verify(inventoryBatchRepository, never()).save(any());
+        verifyNoInteractions(productAvailabilityRepository, eventPublisher);
+    }
+}
@@ -0,0 +1,95 @@
+package com.koerber.inventory.factory;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.config.AllocationProperties;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@ExtendWith(MockitoExtension.class)
+class FewestBatchesInventoryHandlerTest {
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private FewestBatchesInventoryHandler handler;
+
+    private final LocalDate today = LocalDate.now();
+
+    @BeforeEach
+    void setUp() {
+        AllocationProperties properties = new AllocationProperties();
+        properties.setExpiryToleranceDays(7);
+        handler = new FewestBatchesInventoryHandler(
+                inventoryBatchRepository, productAvailabilityRepository, eventPublisher, productCatalog, properties);
+    }
+
+    @Test
+    void allocate_withinTolerance_takesLargestBatchFirst() {
+        List<InventoryBatch> batches = List.of(
+                new InventoryBatch(1L, 100L, 3, today),
+                new InventoryBatch(2L, 100L, 4, today.plusDays(2)),
+                new InventoryBatch(3L, 100L, 30, today.plusDays(5)));
+
+        assertThat(handler.allocate(batches, 20))
+                .extracting(BatchUpdateDto::getBatchId, BatchUpdateDto::getQuantityToDeduct)
+                .containsExactly(tuple(3L, 20));
+    }
+
+    @Test
+    void allocate_beyondTolerance_keepsFefoForLaterBatches() {
+        List<InventoryBatch> batches = List.of(
+                new InventoryBatch(1L, 100L, 0, today.minusDays(1)),
+                new InventoryBatch(2L, 100L, 3, today),
+                new InventoryBatch(3L, 100L, 6, today.plusDays(7)),
+                new InventoryBatch(4L, 100L, 5, today.plusDays(20)),
+                new InventoryBatch(5L, 100L, 50, today.plusDays(30)));
+
+        // The empty batch does not anchor the window; batches 2 and 3 are interchangeable
+        assertThat(handler.allocate(batches, 12))
+                .extracting(BatchUpdateDto::getBatchId, BatchUpdateDto::getQuantityToDeduct)
+                .containsExactly(tuple(3L, 6), tuple(2L, 3), tuple(4L, 3));
+    }
+
+    @Test
+    void factory_resolvesConfiguredStrategyPerProduct() {
+        DefaultInventoryHandler defaultHandler =
+                new DefaultInventoryHandler(inventoryBatchRepository, productAvailabilityRepository, eventPublisher, productCatalog);
+        AllocationProperties properties = new AllocationProperties();
+        properties.getProducts().put(100L, FewestBatchesInventoryHandler.HANDLER_TYPE);
+
+        InventoryHandlerFactory factory = new InventoryHandlerFactory(List.of(defaultHandler, handler), properties);
+
+        assertThat(factory.getHandlerForProduct(100L)).isSameAs(handler);
+        assertThat(factory.getHandlerForProduct(200L)).isSameAs(defaultHandler);
+        assertThat(factory.getHandlerForProduct(null)).isSameAs(defaultHandler);
+
+        properties.getProducts().put(300L, "UNKNOWN");
+        assertThatThrownBy(() -> new InventoryHandlerFactory(List.of(defaultHandler, handler), properties))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("UNKNOWN");
+    }
+}
@@ -0,0 +1,78 @@
+package com.koerber.inventory.importer;
+
+import com.koerber.inventory.dto.BatchImportDto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CsvBatchRecordReaderTest {
+
+    private static InputStream body(String csv) {
+        return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void next_columnsInAnyOrder_mapsByHeaderName() throws IOException {
+        String csv = "quantity,expiry_date,product_name,product_id,batch_id\n"
+                + "40,2026-04-24,Smartwatch,1005,7\n";
+
+        try (CsvBatchRecordReader reader = new CsvBatchRecordReader(body(csv))) {
+            BatchImportDto row = reader.next();
+
+            assertThat(row).isEqualTo(new BatchImportDto(7L, 1005L, "Smartwatch", 40, LocalDate.of(2026, 4, 24)));
+            assertThat(reader.next()).isNull();
+            assertThat(reader.getRecordNumber()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void next_quotedFieldWithCommaAndEscapedQuote_isUnquoted() throws IOException {
+        String csv = "batch_id,product_id,product_name,quantity,expiry_date\n"
+                + "1,1001,\"Laptop, 14\"\" screen\",68,2026-06-25\n";
+
+        try (CsvBatchRecordReader reader = new CsvBatchRecordReader(body(csv))) {
+            assertThat(reader.next().getProductName()).isEqualTo("Laptop, 14\" screen");
+        }
+    }
+
+    @Test
+    void next_blankLinesAreSkipped() throws IOException {
+        String csv = "batch_id,product_id,product_name,quantity,expiry_date\n\n"
+                + "1,1001,Laptop,68,2026-06-25\n\n";
+
+        try (CsvBatchRecordReader reader = new CsvBatchRecordReader(body(csv))) {
+            assertThat(reader.next()).isNotNull();
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void constructor_missingColumn_throwsIllegalArgumentException() {
+        String csv = "batch_id,product_id,quantity,expiry_date\n";
+
+        assertThatThrownBy(() -> new CsvBatchRecordReader(body(csv)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("product_name");
+    }
+
+    @Test
+    void next_malformedNumber_reportsRecordNumber() throws IOException {
+        String csv = "batch_id,product_id,product_name,quantity,expiry_date\n"
+                + "1,1001,Laptop,68,2026-06-25\n"
+                + "2,1001,Laptop,lots,2026-06-25\n";
+
+        try (CsvBatchRecordReader reader = new CsvBatchRecordReader(body(csv))) {
+            reader.next();
+            assertThatThrownBy(reader::next)
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("record 2");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.feed.InventoryChangedEvent;
+import com.koerber.inventory.repository.InventoryBatchJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class InventoryJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<InventoryJournal> started = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        started.forEach(InventoryJournal::stop);
+    }
+
+    @Test
+    void appendFailure_reportsDownUntilASnapshotCoversTheGap() throws Exception {
+        InventoryJournal journal = start();
+        journal.onInventoryChanged(new InventoryChangedEvent(List.of(change(1L, 10))));
+
+        // No expiry date: the record cannot be encoded
+        assertThatThrownBy(() -> journal.onInventoryChanged(new InventoryChangedEvent(List.of(change(2L, null)))))
+                .isInstanceOf(NullPointerException.class);
+
+        assertThat(meterRegistry.counter("inventory.journal.append-failures").count()).isEqualTo(1);
+        assertThat(journal.health().getStatus()).isEqualTo(Status.DOWN);
+
+        journal.snapshot();
+
+        assertThat(journal.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(directory.resolve(InventoryJournal.REBUILD_MARKER)).doesNotExist();
+        // The failed record left nothing behind that would cut replay short
+        journal.onInventoryChanged(new InventoryChangedEvent(List.of(change(3L, 10))));
+        List<InventoryChangeDto> replayed = new ArrayList<>();
+        MappedJournal.replay(directory, 1024 * 1024, 0, replayed::add);
+        assertThat(replayed).extracting(InventoryChangeDto::getBatchId).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void start_afterAnUncoveredAppendFailure_refusesToReplay() throws Exception {
+        InventoryJournal journal = start();
+        journal.stop();
+
+        assertThatThrownBy(() -> journal.onInventoryChanged(new InventoryChangedEvent(List.of(change(1L, 10)))))
+                .hasMessage("Journal is closed");
+        assertThat(directory.resolve(InventoryJournal.REBUILD_MARKER)).exists();
+
+        assertThatThrownBy(this::start)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("has a gap");
+    }
+
+    @SuppressWarnings("unchecked")
+    private InventoryJournal start() {
+        InventoryJournal journal = new InventoryJournal(mock(InventoryBatchJdbcRepository.class),
+                mock(ProductCatalog.class), mock(TransactionTemplate.class), mock(ObjectProvider.class), meterRegistry);
+        ReflectionTestUtils.setField(journal, "directory", directory);
+        ReflectionTestUtils.setField(journal, "segmentSizeMb", 1);
+        ReflectionTestUtils.setField(journal, "snapshotIntervalMs", 3_600_000L);
+        ReflectionTestUtils.setField(journal, "jdbcBatchSize", 1000);
+        journal.start();
+        started.add(journal);
+        return journal;
+    }
+
+    private static InventoryChangeDto change(long batchId, Integer expiresInDays) {
+        LocalDate expiry = expiresInDays == null ? null : LocalDate.of(2026, 1, 1).plusDays(expiresInDays);
+        return new InventoryChangeDto(0, batchId, 1001L, "Laptop", 5, expiry, 1L);
+    }
+}
@@ -0,0 +1,107 @@
+package com.koerber.inventory.journal;
+
+import com.koerber.inventory.dto.InventoryChangeDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedJournalTest {
+
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void append_isReplayedAfterReopenAcrossSegments() throws Exception {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE)) {
+            long end = 0;
+            for (int i = 0; i < 2_000; i++) {
+                end = journal.append(change(i, 10, 1));
+            }
+            journal.awaitDurable(end);
+        }
+
+        List<InventoryChangeDto> replayed = new ArrayList<>();
+        MappedJournal.replay(directory, SEGMENT_SIZE, 0, replayed::add);
+
+        assertThat(segmentCount()).isGreaterThan(1);
+        assertThat(replayed).hasSize(2_000);
+        assertThat(replayed.get(1_999).getBatchId()).isEqualTo(1_999L);
+        assertThat(replayed.get(0).getProductName()).isEqualTo("Product 0");
+    }
+
+    @Test
+    void open_afterTornWrite_resumesAfterLastValidRecord() throws Exception {
+        long end;
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE)) {
+            journal.append(change(1, 10, 1));
+            end = journal.append(change(2, 20, 1));
+            journal.awaitDurable(end);
+        }
+        // Simulate a crash half-way through a third record
+        try (FileChannel channel = FileChannel.open(firstSegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(12).putInt(40).putLong(3L).flip(), end);
+        }
+
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE)) {
+            assertThat(journal.position()).isEqualTo(end);
+            journal.awaitDurable(journal.append(change(4, 40, 1)));
+        }
+
+        List<Long> batchIds = new ArrayList<>();
+        MappedJournal.replay(directory, SEGMENT_SIZE, 0, r -> batchIds.add(r.getBatchId()));
+        assertThat(batchIds).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    void recover_loadsSnapshotThenAppliesNewerJournalRecords() throws Exception {
+        try (MappedJournal journal = MappedJournal.open(directory, SEGMENT_SIZE)) {
+            journal.append(change(1, 10, 1));
+            long position = journal.position();
+            // Fuzzy snapshot: batch 2 was already at version 3 when the snapshot read it
+            JournalSnapshots.write(directory, position, sink -> {
+                sink.accept(change(1, 10, 1));
+                sink.accept(change(2, 5, 3));
+            });
+            journal.append(change(2, 7, 2)); // older than the snapshot, must be ignored
+            journal.awaitDurable(journal.append(change(1, 4, 2)));
+        }
+
+        JournalRecovery.RecoveredState state = JournalRecovery.recover(directory, SEGMENT_SIZE);
+
+        assertThat(state.snapshotRecords()).isEqualTo(2);
+        assertThat(state.replayedRecords()).isEqualTo(2);
+        assertThat(state.batches().get(1L).getQuantity()).isEqualTo(4);
+        assertThat(state.batches().get(2L).getQuantity()).isEqualTo(5);
+    }
+
+    private static InventoryChangeDto change(long batchId, int quantity, long version) {
+        return new InventoryChangeDto(0, batchId, batchId % 7, "Product " + batchId % 7, quantity,
+                LocalDate.of(2026, 1, 1).plusDays(batchId % 300), version);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".log")).count();
+        }
+    }
+
+    private Path firstSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(".log")).sorted().findFirst().orElseThrow();
+        }
+    }
+}
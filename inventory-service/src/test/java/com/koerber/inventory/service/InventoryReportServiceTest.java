@@ -0,0 +1,108 @@
+package com.koerber.inventory.service;
+
+import com.koerber.common.exception.ServiceOverloadedException;
+import com.koerber.inventory.report.ExpiryReport;
+import com.koerber.inventory.report.ExpiryTotals;
+import com.koerber.inventory.repository.InventoryReportRepository;
+import com.koerber.inventory.service.impl.DefaultInventoryReportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryReportServiceTest {
+
+    private static final LocalDate EXPIRY = LocalDate.of(2026, 11, 1);
+
+    @Mock
+    private InventoryReportRepository inventoryReportRepository;
+
+    private DefaultInventoryReportService reportService;
+
+    @BeforeEach
+    void setUp() {
+        reportService = new DefaultInventoryReportService(inventoryReportRepository, 2, 100, 1, 3650);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reportService.shutdown();
+    }
+
+    @Test
+    void findExpiring_shouldScanDisjointRangesCoveringAllIdsAndMergeTotals() {
+        when(inventoryReportRepository.batchIdRange()).thenReturn(new long[] {1, 1000});
+        List<long[]> ranges = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(inv -> {
+            long from = inv.getArgument(0);
+            long to = inv.getArgument(1);
+            ranges.add(new long[] {from, to});
+            // Every range holds one batch of each of 100 products, forcing the totals to grow
+            ExpiryTotals totals = inv.getArgument(3);
+            for (long productId = 1; productId <= 100; productId++) {
+                int index = totals.indexOf(productId);
+                if (index < 0) {
+                    index = totals.addProduct(productId);
+                }
+                totals.addBatch(index, productId, EXPIRY.plusDays(from).toEpochDay());
+            }
+            return null;
+        }).when(inventoryReportRepository).addExpiring(anyLong(), anyLong(), any(), any());
+
+        ExpiryReport report = reportService.findExpiring(30);
+
+        ranges.sort((a, b) -> Long.compare(a[0], b[0]));
+        assertThat(ranges.get(0)[0]).isEqualTo(1);
+        assertThat(ranges.get(ranges.size() - 1)[1]).isEqualTo(1001);
+        for (int i = 1; i < ranges.size(); i++) {
+            assertThat(ranges.get(i)[0]).isEqualTo(ranges.get(i - 1)[1]);
+            assertThat(ranges.get(i)[1] - ranges.get(i)[0]).isLessThanOrEqualTo(100);
+        }
+        ExpiryTotals totals = report.totals();
+        assertThat(totals.size()).isEqualTo(100);
+        int product7 = totals.indexOf(7);
+        assertThat(totals.batchCount(product7)).isEqualTo(ranges.size());
+        assertThat(totals.quantity(product7)).isEqualTo(7L * ranges.size());
+        assertThat(totals.earliestExpiry(product7)).isEqualTo(EXPIRY.plusDays(1));
+    }
+
+    @Test
+    void findExpiring_whenReportAlreadyRunning_shouldRefuseWithOverload() throws Exception {
+        CountDownLatch scanning = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(inventoryReportRepository.batchIdRange()).thenAnswer(inv -> {
+            scanning.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new long[0];
+        });
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> reportService.findExpiring(30));
+            assertThat(scanning.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> reportService.findExpiring(30))
+                    .isInstanceOf(ServiceOverloadedException.class);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
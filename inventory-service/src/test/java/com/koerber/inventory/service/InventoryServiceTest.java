@@ -1,25 +1,50 @@
 package com.koerber.inventory.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.inventory.cache.InventoryResponseCache;
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.config.ReadDataSourceProperties;
+import com.koerber.inventory.datasource.ReadRouting;
+import com.koerber.inventory.datasource.ReplicaLagGuard;
+import com.koerber.inventory.dto.AvailabilityResponse;
 import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.InventoryChangeDto;
 import com.koerber.inventory.dto.InventoryResponse;
 import com.koerber.inventory.dto.UpdateInventoryRequest;
+import com.koerber.inventory.exception.InventoryConflictException;
 import com.koerber.inventory.exception.ProductNotFoundException;
 import com.koerber.inventory.factory.DefaultInventoryHandler;
 import com.koerber.inventory.factory.InventoryHandlerFactory;
+import com.koerber.inventory.feed.InventoryChangedEvent;
 import com.koerber.inventory.model.InventoryBatch;
+import com.koerber.inventory.model.ProductAvailability;
 import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.InventoryReservationRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
 import com.koerber.inventory.service.impl.DefaultInventoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -31,26 +56,44 @@ class InventoryServiceTest {
     @Mock
     private InventoryBatchRepository inventoryBatchRepository;
 
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
     private DefaultInventoryHandler defaultInventoryHandler;
     private InventoryHandlerFactory inventoryHandlerFactory;
     private DefaultInventoryService inventoryService;
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryResponseCache inventoryResponseCache;
 
     @BeforeEach
     void setUp() {
-        defaultInventoryHandler = new DefaultInventoryHandler(inventoryBatchRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        defaultInventoryHandler = new DefaultInventoryHandler(inventoryBatchRepository, productAvailabilityRepository, eventPublisher, productCatalog);
         inventoryHandlerFactory = new InventoryHandlerFactory(List.of(defaultInventoryHandler));
-        inventoryService = new DefaultInventoryService(inventoryHandlerFactory);
+        inventoryResponseCache = new InventoryResponseCache(new ObjectMapper().findAndRegisterModules(),
+                meterRegistry, 1 << 20);
+        inventoryService = new DefaultInventoryService(inventoryHandlerFactory, productAvailabilityRepository,
+                meterRegistry, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new ReplicaLagGuard(new ReadDataSourceProperties(), meterRegistry), inventoryResponseCache,
+                mock(InventoryReservationRepository.class));
     }
 
     @Test
     void getInventorySortedByExpiry_shouldReturnSortedBatches() {
         Long productId = 1005L;
         List<InventoryBatch> batches = List.of(
-                new InventoryBatch(5L, productId, "Smartwatch", 39, LocalDate.of(2026, 3, 31)),
-                new InventoryBatch(7L, productId, "Smartwatch", 40, LocalDate.of(2026, 4, 24)),
-                new InventoryBatch(2L, productId, "Smartwatch", 52, LocalDate.of(2026, 5, 30))
+                new InventoryBatch(5L, productId, 39, LocalDate.of(2026, 3, 31)),
+                new InventoryBatch(7L, productId, 40, LocalDate.of(2026, 4, 24)),
+                new InventoryBatch(2L, productId, 52, LocalDate.of(2026, 5, 30))
         );
         when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId)).thenReturn(batches);
+        when(productCatalog.getName(productId)).thenReturn("Smartwatch");
 
         InventoryResponse response = inventoryService.getInventorySortedByExpiry(productId);
 
@@ -72,10 +115,112 @@ class InventoryServiceTest {
                 .hasMessageContaining("9999");
     }
 
+    @Test
+    void getInventorySortedByExpiry_concurrentReadsOfSameProduct_shareOneQuery() throws Exception {
+        Long productId = 1005L;
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId)).thenAnswer(inv -> {
+            queries.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of(new InventoryBatch(5L, productId, 39, LocalDate.of(2026, 3, 31)));
+        });
+
+        ExecutorService pool = Executors.newFixedThreadPool(6);
+        List<Future<InventoryResponse>> reads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            reads.add(pool.submit(() -> inventoryService.getInventorySortedByExpiry(productId)));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        for (Future<InventoryResponse> read : reads) {
+            assertThat(read.get(5, TimeUnit.SECONDS).getBatches()).hasSize(1);
+        }
+        pool.shutdown();
+
+        assertThat(queries).hasValue(1);
+    }
+
+    @Test
+    void getInventorySortedByExpiry_readerAfterWrite_shouldNotJoinQueryStartedBeforeIt() throws Exception {
+        Long productId = 1005L;
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger queries = new AtomicInteger();
+        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId)).thenAnswer(inv -> {
+            if (queries.incrementAndGet() == 1) {
+                queryStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return List.of(new InventoryBatch(5L, productId, 39, LocalDate.of(2026, 3, 31)));
+            }
+            return List.of(new InventoryBatch(5L, productId, 29, LocalDate.of(2026, 3, 31)));
+        });
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<byte[]> beforeWrite = pool.submit(() -> inventoryResponseCache.get(productId,
+                () -> inventoryService.getInventorySortedByExpiry(productId)));
+        assertThat(queryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // A write completes while the first query is still in flight
+        inventoryResponseCache.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangeDto(0, 5L, productId, "Smartwatch", 29, LocalDate.of(2026, 3, 31), 1L))));
+        byte[] afterWrite = inventoryResponseCache.get(productId,
+                () -> inventoryService.getInventorySortedByExpiry(productId));
+        release.countDown();
+        beforeWrite.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(queries).hasValue(2);
+        assertThat(new String(afterWrite)).contains("\"quantity\":29");
+        // The pre-write result was not cached under the new version
+        assertThat(new String(inventoryResponseCache.get(productId, () -> {
+            throw new AssertionError("expected a cache hit");
+        }))).contains("\"quantity\":29");
+    }
+
+    @Test
+    void getInventorySortedByExpiry_afterRecentWrite_shouldNotJoinReplicaReadInFlight() throws Exception {
+        Long productId = 1005L;
+        ReadDataSourceProperties readProperties = new ReadDataSourceProperties();
+        readProperties.setUrl("jdbc:h2:mem:unused-replica");
+        ReplicaLagGuard replicaLagGuard = new ReplicaLagGuard(readProperties, meterRegistry);
+        DefaultInventoryService routedService = new DefaultInventoryService(inventoryHandlerFactory,
+                productAvailabilityRepository, meterRegistry,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), replicaLagGuard, inventoryResponseCache,
+                mock(InventoryReservationRepository.class));
+
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Boolean> pinned = Collections.synchronizedList(new ArrayList<>());
+        when(inventoryBatchRepository.findByProductIdOrderByExpiryDateAsc(productId)).thenAnswer(inv -> {
+            pinned.add(ReadRouting.isPinnedToPrimary());
+            if (pinned.size() == 1) {
+                queryStarted.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return List.of(new InventoryBatch(5L, productId, 39, LocalDate.of(2026, 3, 31)));
+        });
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<InventoryResponse> replicaRead = pool.submit(() -> routedService.getInventorySortedByExpiry(productId));
+        assertThat(queryStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // The write commits while the replica read is in flight, before any cache version bump
+        replicaLagGuard.onInventoryChanged(new InventoryChangedEvent(List.of(
+                new InventoryChangeDto(0, 5L, productId, "Smartwatch", 29, LocalDate.of(2026, 3, 31), 1L))));
+        routedService.getInventorySortedByExpiry(productId);
+        release.countDown();
+        replicaRead.get(5, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(pinned).containsExactly(false, true);
+        assertThat(meterRegistry.counter("inventory.datasource.read.primary-fallbacks").count()).isEqualTo(1);
+    }
+
     @Test
     void updateInventory_shouldDeductQuantityFromBatches() {
-        InventoryBatch batch = new InventoryBatch(5L, 1005L, "Smartwatch", 39, LocalDate.of(2026, 3, 31));
-        when(inventoryBatchRepository.findById(5L)).thenReturn(Optional.of(batch));
+        InventoryBatch batch = new InventoryBatch(5L, 1005L, 39, LocalDate.of(2026, 3, 31));
+        when(inventoryBatchRepository.findAllById(List.of(5L))).thenReturn(List.of(batch));
         when(inventoryBatchRepository.save(any(InventoryBatch.class))).thenReturn(batch);
 
         UpdateInventoryRequest request = new UpdateInventoryRequest(
@@ -90,8 +235,8 @@ class InventoryServiceTest {
 
     @Test
     void updateInventory_whenInsufficientQuantity_shouldThrowException() {
-        InventoryBatch batch = new InventoryBatch(5L, 1005L, "Smartwatch", 5, LocalDate.of(2026, 3, 31));
-        when(inventoryBatchRepository.findById(5L)).thenReturn(Optional.of(batch));
+        InventoryBatch batch = new InventoryBatch(5L, 1005L, 5, LocalDate.of(2026, 3, 31));
+        when(inventoryBatchRepository.findAllById(List.of(5L))).thenReturn(List.of(batch));
 
         UpdateInventoryRequest request = new UpdateInventoryRequest(
                 1005L, List.of(new BatchUpdateDto(5L, 10))
@@ -104,7 +249,7 @@ class InventoryServiceTest {
 
     @Test
     void updateInventory_whenBatchNotFound_shouldThrowException() {
-        when(inventoryBatchRepository.findById(99L)).thenReturn(Optional.empty());
+        when(inventoryBatchRepository.findAllById(List.of(99L))).thenReturn(List.of());
 
         UpdateInventoryRequest request = new UpdateInventoryRequest(
                 1001L, List.of(new BatchUpdateDto(99L, 5))
@@ -114,4 +259,56 @@ class InventoryServiceTest {
                 .isInstanceOf(IllegalArgumentException.class)
                 .hasMessageContaining("Batch not found");
     }
+
+    @Test
+    void updateInventory_whenOptimisticLockConflict_shouldRetryWithFreshStateAndCountRetry() {
+        when(inventoryBatchRepository.findAllById(List.of(5L))).thenAnswer(inv -> List.of(
+                new InventoryBatch(5L, 1005L, 39, LocalDate.of(2026, 3, 31))));
+        when(inventoryBatchRepository.save(any(InventoryBatch.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(InventoryBatch.class, 5L))
+                .thenAnswer(inv -> inv.getArgument(0));
+
+        inventoryService.updateInventory(new UpdateInventoryRequest(1005L, List.of(new BatchUpdateDto(5L, 10))));
+
+        verify(inventoryBatchRepository, times(2)).save(argThat(b -> b.getQuantity() == 29));
+        verify(productAvailabilityRepository, times(1)).decrement(1005L, 10L);
+        assertThat(meterRegistry.counter("inventory.update.retries", "productId", "1005").count()).isEqualTo(1);
+        assertThat(meterRegistry.find("inventory.update.conflicts").counter()).isNull();
+    }
+
+    @Test
+    void updateInventory_whenConflictsExhaustRetryBudget_shouldThrowInventoryConflictException() {
+        when(inventoryBatchRepository.findAllById(List.of(5L))).thenAnswer(inv -> List.of(
+                new InventoryBatch(5L, 1005L, 39, LocalDate.of(2026, 3, 31))));
+        when(inventoryBatchRepository.save(any(InventoryBatch.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(InventoryBatch.class, 5L));
+
+        UpdateInventoryRequest request = new UpdateInventoryRequest(1005L, List.of(new BatchUpdateDto(5L, 10)));
+
+        assertThatThrownBy(() -> inventoryService.updateInventory(request))
+                .isInstanceOf(InventoryConflictException.class)
+                .hasMessageContaining("3 attempts");
+        verify(inventoryBatchRepository, times(3)).save(any());
+        assertThat(meterRegistry.counter("inventory.update.retries", "productId", "1005").count()).isEqualTo(2);
+        assertThat(meterRegistry.counter("inventory.update.conflicts", "productId", "1005").count()).isEqualTo(1);
+    }
+
+    @Test
+    void getAvailableQuantity_shouldReadCounterWithoutLoadingBatches() {
+        when(productAvailabilityRepository.findById(1005L)).thenReturn(Optional.of(new ProductAvailability(1005L, 131L)));
+
+        AvailabilityResponse response = inventoryService.getAvailableQuantity(1005L);
+
+        assertThat(response.getAvailableQuantity()).isEqualTo(131L);
+        verifyNoInteractions(inventoryBatchRepository);
+    }
+
+    @Test
+    void getAvailableQuantity_whenNoCounter_shouldThrowProductNotFoundException() {
+        when(productAvailabilityRepository.findById(9999L)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> inventoryService.getAvailableQuantity(9999L))
+                .isInstanceOf(ProductNotFoundException.class)
+                .hasMessageContaining("9999");
+    }
 }
@@ -0,0 +1,90 @@
+package com.koerber.inventory.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.factory.DefaultInventoryHandler;
+import com.koerber.inventory.repository.InventoryBatchRepository;
+import com.koerber.inventory.repository.ProductAvailabilityRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StartupWarmupTest {
+
+    @Mock
+    private InventoryBatchRepository inventoryBatchRepository;
+
+    @Mock
+    private ProductAvailabilityRepository productAvailabilityRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StartupWarmup warmup(boolean enabled, int iterations, long maxDurationMs) {
+        DefaultInventoryHandler handler =
+                new DefaultInventoryHandler(inventoryBatchRepository, productAvailabilityRepository, eventPublisher, productCatalog);
+        return new StartupWarmup(List.of(handler), inventoryBatchRepository, productAvailabilityRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry,
+                enabled, iterations, maxDurationMs, -1L);
+    }
+
+    @Test
+    void run_shouldQueryScratchProductOncePerIterationAndPublishProgress() {
+        StartupWarmup warmup = warmup(true, 50, 60_000);
+
+        warmup.run(null);
+
+        assertThat(warmup.getState()).isEqualTo(StartupWarmup.State.COMPLETED);
+        assertThat(warmup.getCompletedIterations()).isEqualTo(50);
+        verify(inventoryBatchRepository, times(50)).findByProductIdOrderByExpiryDateAsc(-1L);
+        verify(productAvailabilityRepository, times(50)).findById(-1L);
+        verifyNoMoreInteractions(inventoryBatchRepository, productAvailabilityRepository);
+        assertThat(meterRegistry.get("inventory.warmup.iterations").gauge().value()).isEqualTo(50);
+    }
+
+    @Test
+    void run_whenDurationElapses_shouldStopEarly() {
+        StartupWarmup warmup = warmup(true, Integer.MAX_VALUE, 0);
+
+        warmup.run(null);
+
+        assertThat(warmup.getState()).isEqualTo(StartupWarmup.State.COMPLETED);
+        assertThat(warmup.getCompletedIterations()).isLessThan(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void run_whenIterationFails_shouldEndWarmupWithoutFailingStartup() {
+        when(productAvailabilityRepository.findById(-1L)).thenThrow(new IllegalStateException("pool closed"));
+        StartupWarmup warmup = warmup(true, 50, 60_000);
+
+        warmup.run(null);
+
+        assertThat(warmup.getState()).isEqualTo(StartupWarmup.State.FAILED);
+        assertThat(warmup.getCompletedIterations()).isZero();
+    }
+
+    @Test
+    void run_whenDisabled_shouldDoNothing() {
+        StartupWarmup warmup = warmup(false, 50, 60_000);
+
+        warmup.run(null);
+
+        assertThat(warmup.getState()).isEqualTo(StartupWarmup.State.DISABLED);
+        verifyNoInteractions(inventoryBatchRepository, productAvailabilityRepository);
+    }
+}
@@ -0,0 +1,174 @@
+package com.koerber.inventory.writebehind;
+
+import com.koerber.inventory.catalog.ProductCatalog;
+import com.koerber.inventory.dto.BatchDeltaDto;
+import com.koerber.inventory.dto.BatchUpdateDto;
+import com.koerber.inventory.dto.InventoryChangeDto;
+import com.koerber.inventory.repository.InventoryBatchJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class WriteBehindLedgerTest {
+
+    private InventoryBatchJdbcRepository repository;
+    private WriteBehindLedger ledger;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        repository = mock(InventoryBatchJdbcRepository.class);
+        doAnswer(inv -> {
+            Consumer<InventoryChangeDto> consumer = inv.getArgument(0);
+            consumer.accept(new InventoryChangeDto(0, 7L, 1005L, "Smartwatch", 40, LocalDate.of(2026, 4, 24), 3L));
+            consumer.accept(new InventoryChangeDto(0, 5L, 1005L, "Smartwatch", 39, LocalDate.of(2026, 3, 31), 0L));
+            return null;
+        }).when(repository).forEachBatch(any());
+        // A very long interval so that only explicit flushes write
+        ledger = new WriteBehindLedger(repository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(ProductCatalog.class), new SimpleMeterRegistry(), 3_600_000, 10_000, 1000);
+        ledger.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getBatches_shouldReturnBatchesSortedByExpiry() {
+        assertThat(ledger.getBatches(1005L)).extracting(b -> b.getBatchId()).containsExactly(5L, 7L);
+        assertThat(ledger.getAvailable(1005L)).hasValue(79L);
+        assertThat(ledger.getAvailable(9999L)).isEmpty();
+    }
+
+    @Test
+    void flush_shouldWriteOneDeltaPerBatchForManyDeductions() {
+        for (int i = 0; i < 30; i++) {
+            ledger.apply(List.of(new BatchUpdateDto(5L, 1)));
+        }
+        ledger.apply(List.of(new BatchUpdateDto(7L, 2)));
+
+        ledger.flush();
+
+        List<BatchDeltaDto> deltas = flushedDeltas();
+        assertThat(deltas).containsExactlyInAnyOrder(
+                new BatchDeltaDto(5L, 1005L, 30, 30),
+                new BatchDeltaDto(7L, 1005L, 2, 4));
+        assertThat(ledger.getAvailable(1005L)).hasValue(47L);
+
+        ledger.flush();
+        verify(repository, times(1)).applyDeltas(any(), anyInt());
+    }
+
+    @Test
+    void apply_whenAnyBatchWouldGoNegative_shouldApplyNothing() {
+        List<BatchUpdateDto> updates = List.of(new BatchUpdateDto(5L, 10), new BatchUpdateDto(7L, 41));
+
+        assertThatThrownBy(() -> ledger.apply(updates))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Insufficient quantity in batch: 7");
+        assertThatThrownBy(() -> ledger.apply(List.of(new BatchUpdateDto(99L, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Batch not found: 99");
+        assertThat(ledger.getAvailable(1005L)).hasValue(79L);
+    }
+
+    @Test
+    void apply_whenTransactionRollsBack_shouldRestoreQuantityAndWriteNothing() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.apply(List.of(new BatchUpdateDto(5L, 10)));
+        assertThat(ledger.getAvailable(1005L)).hasValue(69L);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        ledger.flush();
+
+        assertThat(ledger.getAvailable(1005L)).hasValue(79L);
+        verify(repository, never()).applyDeltas(any(), anyInt());
+    }
+
+    @Test
+    void apply_withOverlappingTransactions_shouldReportOnlyCommittedState() {
+        List<List<InventoryChangeDto>> rolledBackChanges = new ArrayList<>();
+        List<TransactionSynchronization> rolledBack =
+                inTransaction(() -> rolledBackChanges.add(ledger.apply(List.of(new BatchUpdateDto(5L, 3)))));
+        List<List<InventoryChangeDto>> committedChanges = new ArrayList<>();
+        List<TransactionSynchronization> committed =
+                inTransaction(() -> committedChanges.add(ledger.apply(List.of(new BatchUpdateDto(5L, 4)))));
+        assertThat(ledger.getAvailable(1005L)).hasValue(72L);
+
+        complete(committed, TransactionSynchronization.STATUS_COMMITTED);
+        complete(rolledBack, TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // The committed event excludes the deduction of the transaction still in flight
+        assertThat(committedChanges.get(0)).extracting(InventoryChangeDto::getQuantity, InventoryChangeDto::getVersion)
+                .containsExactly(tuple(35, 1L));
+        // The rolled-back transaction reports the committed state and takes no version
+        assertThat(rolledBackChanges.get(0)).extracting(InventoryChangeDto::getQuantity, InventoryChangeDto::getVersion)
+                .containsExactly(tuple(35, 1L));
+        assertThat(ledger.getAvailable(1005L)).hasValue(75L);
+
+        ledger.apply(List.of(new BatchUpdateDto(5L, 1)));
+        ledger.flush();
+        assertThat(flushedDeltas()).containsExactly(new BatchDeltaDto(5L, 1005L, 5, 2));
+    }
+
+    @Test
+    void flush_whenWriteFails_shouldKeepDeltasForNextFlush() {
+        ledger.apply(List.of(new BatchUpdateDto(5L, 4)));
+        doThrow(new IllegalStateException("database down")).doNothing().when(repository).applyDeltas(any(), anyInt());
+
+        assertThatThrownBy(() -> ledger.flush()).hasMessage("database down");
+        ledger.apply(List.of(new BatchUpdateDto(5L, 1)));
+        ledger.flush();
+
+        assertThat(flushedDeltas()).containsExactly(new BatchDeltaDto(5L, 1005L, 5, 2));
+    }
+
+    private static List<TransactionSynchronization> inTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private static void complete(List<TransactionSynchronization> synchronizations, int status) {
+        if (status == TransactionSynchronization.STATUS_COMMITTED) {
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        }
+        synchronizations.forEach(synchronization -> synchronization.afterCompletion(status));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<BatchDeltaDto> flushedDeltas() {
+        ArgumentCaptor<Collection<BatchDeltaDto>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(repository, atLeastOnce()).applyDeltas(captor.capture(), anyInt());
+        return new ArrayList<>(captor.getValue());
+    }
+}
@@ -0,0 +1,97 @@
+package com.koerber.order.allocation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.dto.BatchUpdateDto;
+import com.koerber.order.dto.InventoryResponse;
+import com.koerber.order.dto.UpdateInventoryRequest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Single-product order path from inventory response bytes to update payload
+ * bytes. {@code boxed} is the previous path: bind the whole response to
+ * {@link InventoryResponse}, allocate into {@link BatchUpdateDto}s and serialise
+ * an {@link UpdateInventoryRequest}. {@code columns} streams into
+ * {@link InventoryColumns}, stopping once the order is covered, and writes the
+ * payload from {@link FefoAllocation}'s arrays.
+ *
+ * <pre>mvn -P benchmark test-compile exec:exec -Djmh.args="FefoAllocationBenchmark -prof gc"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FefoAllocationBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int batches;
+
+    // Share of the product's stock that the order asks for
+    @Param({"0.01", "0.9"})
+    public double orderShare;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private byte[] response;
+    private int quantity;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<BatchDto> batchDtos = new ArrayList<>(batches);
+        LocalDate expiry = LocalDate.of(2026, 1, 1);
+        long stock = 0;
+        for (int i = 0; i < batches; i++) {
+            int batchQuantity = 20 + i % 80;
+            batchDtos.add(new BatchDto(100_000L + i, batchQuantity, expiry.plusDays(i / 10)));
+            stock += batchQuantity;
+        }
+        response = objectMapper.writeValueAsBytes(new InventoryResponse(1005L, "Smartwatch", batchDtos));
+        quantity = (int) Math.max(1, stock * orderShare);
+    }
+
+    @Benchmark
+    public void boxed(Blackhole blackhole) throws IOException {
+        InventoryResponse inventory = objectMapper.readValue(response, InventoryResponse.class);
+        int remaining = quantity;
+        List<Long> reservedBatchIds = new ArrayList<>();
+        List<BatchUpdateDto> batchUpdates = new ArrayList<>();
+        for (BatchDto batch : inventory.getBatches()) {
+            if (remaining <= 0) break;
+            if (batch.getQuantity() <= 0) continue;
+            int deduct = Math.min(batch.getQuantity(), remaining);
+            remaining -= deduct;
+            reservedBatchIds.add(batch.getBatchId());
+            batchUpdates.add(new BatchUpdateDto(batch.getBatchId(), deduct));
+        }
+        blackhole.consume(objectMapper.writeValueAsBytes(new UpdateInventoryRequest(1005L, batchUpdates)));
+        blackhole.consume(reservedBatchIds.stream().map(String::valueOf).collect(Collectors.joining(",")));
+    }
+
+    @Benchmark
+    public void columns(Blackhole blackhole) throws IOException {
+        InventoryColumns inventory;
+        try (JsonParser parser = objectMapper.getFactory().createParser(response)) {
+            inventory = InventoryColumns.read(parser, quantity);
+        }
+        FefoAllocation allocation = FefoAllocation.allocate(inventory, quantity);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(64 + allocation.size() * 48);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            allocation.writeUpdateRequest(json, 1005L);
+        }
+        blackhole.consume(body);
+        blackhole.consume(allocation.joinBatchIds());
+    }
+}
@@ -0,0 +1,100 @@
+package com.koerber.order.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.common.exception.ServiceOverloadedException;
+import com.koerber.order.allocation.FefoAllocation;
+import com.koerber.order.allocation.InventoryColumns;
+import com.koerber.order.config.ConcurrencyLimitProperties;
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.limit.AdaptiveConcurrencyLimiter;
+import com.koerber.order.limit.ConcurrencyLimitClientInterceptor;
+import com.koerber.order.replica.InventoryReplica;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The inventory side of a single-product order (fetch batches, allocate FEFO,
+ * post the update) over real HTTP against {@link FakeInventoryServer}, with the
+ * server healthy or degraded. Sample mode reports the latency percentiles, so
+ * runs show how the tail follows inventory's; {@code limiter=adaptive} adds the
+ * outgoing concurrency limit, whose shed calls return immediately.
+ *
+ * <pre>mvn -P benchmark test-compile exec:exec -Djmh.args="InventoryClientBenchmark -t 16"</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class InventoryClientBenchmark {
+
+    private static final long PRODUCT_ID = 1005L;
+
+    @Param({"healthy", "lognormal", "tail", "errors"})
+    public String inventory;
+
+    @Param({"off", "adaptive"})
+    public String limiter;
+
+    private FakeInventoryServer server;
+    private InventoryShardRouter router;
+    private InventoryClient client;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = FakeInventoryServer.start();
+        // Enough stock that deducting one unit per call never runs out
+        server.stock(PRODUCT_ID, "Smartwatch",
+                new BatchDto(1L, Integer.MAX_VALUE / 2, LocalDate.of(2026, 3, 31)),
+                new BatchDto(2L, Integer.MAX_VALUE / 2, LocalDate.of(2026, 4, 24)));
+        server.setFaults(switch (inventory) {
+            case "healthy" -> InventoryFaults.none();
+            case "lognormal" -> InventoryFaults.none().withLatency(InventoryFaults.Latency.logNormal(5, 0.8));
+            case "tail" -> InventoryFaults.none().withLatency(InventoryFaults.Latency.bimodal(
+                    InventoryFaults.Latency.fixed(2), InventoryFaults.Latency.fixed(200), 0.02));
+            case "errors" -> InventoryFaults.none()
+                    .withLatency(InventoryFaults.Latency.uniform(1, 5))
+                    .withErrors(0.05, 503)
+                    .withResets(0.02);
+            default -> throw new IllegalArgumentException("Unknown inventory profile: " + inventory);
+        });
+
+        RestTemplate restTemplate = new RestTemplate();
+        if (limiter.equals("adaptive")) {
+            ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+            restTemplate.getInterceptors().add(new ConcurrencyLimitClientInterceptor(
+                    new AdaptiveConcurrencyLimiter("inventory", properties, new SimpleMeterRegistry()),
+                    properties.getRetryAfterSeconds()));
+        }
+        router = new InventoryShardRouter(List.of(server.getUrl()), 160, 1);
+        client = new InventoryClient(restTemplate, new InventoryReplica(), router, new ObjectMapper());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        router.shutdown();
+        server.close();
+    }
+
+    @Benchmark
+    public void reserveOne(Blackhole blackhole) {
+        try {
+            InventoryColumns inventoryColumns = client.getInventory(PRODUCT_ID, 1);
+            FefoAllocation allocation = FefoAllocation.allocate(inventoryColumns, 1);
+            client.updateInventory(PRODUCT_ID, allocation);
+            blackhole.consume(allocation);
+        } catch (RestClientException | ServiceOverloadedException ex) {
+            // Injected faults and shed calls are part of the measured distribution
+            blackhole.consume(ex);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.koerber.order.allocation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deductions chosen First-Expiry-First-Out, held as parallel primitive arrays.
+ * The update payload and the reserved-batch column are written from the
+ * arrays directly, without building a {@code BatchUpdateDto} per batch.
+ */
+public final class FefoAllocation {
+
+    private final long[] batchIds;
+    private final int[] quantities;
+    private final int size;
+    private final int allocated;
+
+    private FefoAllocation(long[] batchIds, int[] quantities, int size, int allocated) {
+        this.batchIds = batchIds;
+        this.quantities = quantities;
+        this.size = size;
+        this.allocated = allocated;
+    }
+
+    /**
+     * Takes from the earliest-expiring batches until {@code quantity} is covered or
+     * the batches run out.
+     */
+    public static FefoAllocation allocate(InventoryColumns inventory, int quantity) {
+        int capacity = inventory.size();
+        long[] batchIds = new long[capacity];
+        int[] quantities = new int[capacity];
+        int size = 0;
+        int remaining = quantity;
+        for (int i = 0; i < capacity && remaining > 0; i++) {
+            int deduct = Math.min(inventory.quantity(i), remaining);
+            batchIds[size] = inventory.batchId(i);
+            quantities[size] = deduct;
+            size++;
+            remaining -= deduct;
+        }
+        return new FefoAllocation(batchIds, quantities, size, quantity - remaining);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long batchId(int index) {
+        return batchIds[index];
+    }
+
+    public int quantity(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Units allocated, less than the requested quantity when stock ran out.
+     */
+    public int getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * Writes the POST /inventory/update body for these deductions.
+     */
+    public void writeUpdateRequest(JsonGenerator json, long productId) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("productId", productId);
+        json.writeArrayFieldStart("batchUpdates");
+        for (int i = 0; i < size; i++) {
+            json.writeStartObject();
+            json.writeNumberField("batchId", batchIds[i]);
+            json.writeNumberField("quantityToDeduct", quantities[i]);
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    /**
+     * Batch ids as stored in orders.reserved_batch_ids, e.g. {@code "5,7"}.
+     */
+    public String joinBatchIds() {
+        StringBuilder joined = new StringBuilder(size * 4);
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                joined.append(',');
+            }
+            joined.append(batchIds[i]);
+        }
+        return joined.toString();
+    }
+
+    public List<Long> batchIdList() {
+        List<Long> ids = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ids.add(batchIds[i]);
+        }
+        return ids;
+    }
+}
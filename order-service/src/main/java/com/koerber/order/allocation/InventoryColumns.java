@@ -0,0 +1,161 @@
+package com.koerber.order.allocation;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.dto.InventoryResponse;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A product's batches in expiry order, held as primitive columns instead of one
+ * boxed {@link BatchDto} per batch. Empty batches are left out.
+ *
+ * <p>{@link #read} builds the columns straight from the inventory-service JSON
+ * and can stop once the batches read cover the quantity being ordered; such a
+ * prefix is marked incomplete.
+ */
+public final class InventoryColumns {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String productName;
+    private final long[] batchIds;
+    private final int[] quantities;
+    private final int size;
+    private final long totalQuantity;
+    private final boolean complete;
+
+    private InventoryColumns(String productName, long[] batchIds, int[] quantities, int size,
+                             long totalQuantity, boolean complete) {
+        this.productName = productName;
+        this.batchIds = batchIds;
+        this.quantities = quantities;
+        this.size = size;
+        this.totalQuantity = totalQuantity;
+        this.complete = complete;
+    }
+
+    /**
+     * Streams a GET /inventory/{productId} body into columns. Reading stops after
+     * the first batches that hold at least {@code coverQuantity} units, provided
+     * the product name has been read.
+     *
+     * @param parser        positioned before the response object
+     * @param coverQuantity quantity after which the remaining batches are not needed;
+     *                      {@link Integer#MAX_VALUE} reads every batch
+     */
+    public static InventoryColumns read(JsonParser parser, int coverQuantity) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected an inventory object");
+        }
+        String productName = null;
+        long[] batchIds = new long[INITIAL_CAPACITY];
+        int[] quantities = new int[INITIAL_CAPACITY];
+        int size = 0;
+        long total = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            if ("productName".equals(field)) {
+                productName = parser.getValueAsString();
+            } else if ("batches".equals(field) && parser.currentToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    long batchId = 0;
+                    int quantity = 0;
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String batchField = parser.currentName();
+                        parser.nextToken();
+                        if ("batchId".equals(batchField)) {
+                            batchId = parser.getLongValue();
+                        } else if ("quantity".equals(batchField)) {
+                            quantity = parser.getIntValue();
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                    if (quantity <= 0) {
+                        continue;
+                    }
+                    if (size == batchIds.length) {
+                        batchIds = Arrays.copyOf(batchIds, size * 2);
+                        quantities = Arrays.copyOf(quantities, size * 2);
+                    }
+                    batchIds[size] = batchId;
+                    quantities[size] = quantity;
+                    size++;
+                    total += quantity;
+                    if (total >= coverQuantity && productName != null) {
+                        // The rest of the body is not needed to fill the order
+                        return new InventoryColumns(productName, batchIds, quantities, size, total, false);
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new InventoryColumns(productName, batchIds, quantities, size, total, true);
+    }
+
+    /**
+     * Converts an already deserialised response, e.g. one served by the local replica.
+     */
+    public static InventoryColumns of(InventoryResponse inventory) {
+        int capacity = inventory.getBatches().size();
+        long[] batchIds = new long[capacity];
+        int[] quantities = new int[capacity];
+        int size = 0;
+        long total = 0;
+        for (BatchDto batch : inventory.getBatches()) {
+            if (batch.getQuantity() > 0) {
+                batchIds[size] = batch.getBatchId();
+                quantities[size] = batch.getQuantity();
+                total += batch.getQuantity();
+                size++;
+            }
+        }
+        return new InventoryColumns(inventory.getProductName(), batchIds, quantities, size, total, true);
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long batchId(int index) {
+        return batchIds[index];
+    }
+
+    public int quantity(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Total units in the batches held, which is the product's full stock only when
+     * {@link #isComplete()}.
+     */
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    /**
+     * Whether every batch was read, as opposed to a prefix that covered the quantity.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Whether these columns are enough to decide an order for {@code quantity}:
+     * either they cover it or they hold all of the product's stock.
+     */
+    public boolean covers(int quantity) {
+        return complete || totalQuantity >= quantity;
+    }
+}
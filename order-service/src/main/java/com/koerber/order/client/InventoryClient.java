@@ -1,28 +1,202 @@
 package com.koerber.order.client;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.common.exception.ServiceOverloadedException;
+import com.koerber.common.tracing.Tracer;
+import com.koerber.common.util.SingleFlight;
+import com.koerber.order.allocation.FefoAllocation;
+import com.koerber.order.allocation.InventoryColumns;
+import com.koerber.order.dto.AvailabilityResponse;
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.dto.BulkReserveRequest;
+import com.koerber.order.dto.BulkReserveResponse;
 import com.koerber.order.dto.InventoryResponse;
-import com.koerber.order.dto.UpdateInventoryRequest;
+import com.koerber.order.dto.ReleaseRequest;
+import com.koerber.order.dto.ReserveRequest;
+import com.koerber.order.dto.ReserveResponse;
+import com.koerber.order.exception.InsufficientInventoryException;
+import com.koerber.order.replica.InventoryReplica;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class InventoryClient {
 
     private final RestTemplate restTemplate;
+    private final InventoryReplica inventoryReplica;
+    private final InventoryShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
+
+    // Concurrent orders for a hot product share one fetch instead of each calling inventory
+    private final SingleFlight<Long, InventoryColumns> inventoryFetches = new SingleFlight<>();
+    private final SingleFlight<Long, AvailabilityResponse> availabilityFetches = new SingleFlight<>();
+
+    /**
+     * Returns the product's batches in expiry order, read until they cover
+     * {@code quantity} or the batches run out.
+     */
+    public InventoryColumns getInventory(Long productId, int quantity) {
+        InventoryResponse replicated = inventoryReplica.getInventory(productId);
+        if (replicated != null) {
+            return InventoryColumns.of(replicated);
+        }
+        InventoryColumns shared = inventoryFetches.execute(productId, () -> fetchInventory(productId, quantity));
+        // The shared read stopped at the first caller's quantity, which may be less than ours
+        return shared.covers(quantity) ? shared : fetchInventory(productId, quantity);
+    }
+
+    public AvailabilityResponse getAvailability(Long productId) {
+        InventoryResponse replicated = inventoryReplica.getInventory(productId);
+        if (replicated != null) {
+            long available = 0;
+            for (BatchDto batch : replicated.getBatches()) {
+                available += batch.getQuantity();
+            }
+            return new AvailabilityResponse(productId, available);
+        }
+        String url = shardRouter.urlFor(productId) + "/inventory/" + productId + "/available";
+        return availabilityFetches.execute(productId, () -> restTemplate.getForObject(url, AvailabilityResponse.class));
+    }
+
+    /**
+     * Posts the deductions to POST /inventory/update, writing the JSON body
+     * straight from the allocation's arrays.
+     */
+    public void updateInventory(Long productId, FefoAllocation allocation) {
+        String url = shardRouter.urlFor(productId) + "/inventory/update";
+        restTemplate.execute(url, HttpMethod.POST, request -> {
+            request.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(StreamUtils.nonClosing(request.getBody()))) {
+                allocation.writeUpdateRequest(json, productId);
+            }
+        }, null);
+    }
 
-    @Value("${inventory.service.url}")
-    private String inventoryServiceUrl;
+    /**
+     * Reserves all lines, all-or-nothing. Inventory allocates with each product's
+     * configured strategy. Lines are grouped by owning shard and each shard gets
+     * one bulk call under the request's reservation id, in parallel when there
+     * are several. If any call fails, the reservation is released by its id on
+     * every shard that may hold it: those that succeeded, and those whose call
+     * timed out or failed with 5xx after it may have committed. Releasing an id
+     * is safe whether or not that shard reserved anything.
+     */
+    public BulkReserveResponse reserveAll(BulkReserveRequest request) {
+        String reservationId = request.getReservationId() != null
+                ? request.getReservationId() : UUID.randomUUID().toString();
+        Map<String, List<Integer>> linesByShard = new LinkedHashMap<>();
+        List<ReserveRequest> lines = request.getLines();
+        for (int i = 0; i < lines.size(); i++) {
+            linesByShard.computeIfAbsent(shardRouter.urlFor(lines.get(i).getProductId()), url -> new ArrayList<>())
+                    .add(i);
+        }
+        if (linesByShard.size() == 1) {
+            String url = linesByShard.keySet().iterator().next();
+            try {
+                return reserveOnShard(url, new BulkReserveRequest(reservationId, lines));
+            } catch (RuntimeException ex) {
+                if (mayHaveReserved(ex)) {
+                    releaseAll(List.of(url), reservationId);
+                }
+                throw ex;
+            }
+        }
+
+        Map<String, CompletableFuture<BulkReserveResponse>> calls = new LinkedHashMap<>();
+        linesByShard.forEach((url, indexes) -> {
+            BulkReserveRequest shardRequest =
+                    new BulkReserveRequest(reservationId, indexes.stream().map(lines::get).toList());
+            calls.put(url, CompletableFuture.supplyAsync(
+                    Tracer.wrap(() -> reserveOnShard(url, shardRequest)), shardRouter.fanOutExecutor()));
+        });
+
+        ReserveResponse[] results = new ReserveResponse[lines.size()];
+        List<String> toRelease = new ArrayList<>();
+        RuntimeException failure = null;
+        for (Map.Entry<String, CompletableFuture<BulkReserveResponse>> call : calls.entrySet()) {
+            try {
+                List<ReserveResponse> shardLines = call.getValue().join().getLines();
+                List<Integer> indexes = linesByShard.get(call.getKey());
+                for (int i = 0; i < indexes.size(); i++) {
+                    results[indexes.get(i)] = shardLines.get(i);
+                }
+                toRelease.add(call.getKey());
+            } catch (CompletionException ex) {
+                RuntimeException cause = ex.getCause() instanceof RuntimeException c ? c : ex;
+                if (failure == null) {
+                    failure = cause;
+                }
+                if (mayHaveReserved(cause)) {
+                    toRelease.add(call.getKey());
+                }
+            }
+        }
+        if (failure != null) {
+            releaseAll(toRelease, reservationId);
+            throw failure;
+        }
+        return new BulkReserveResponse(List.of(results));
+    }
+
+    /**
+     * A shard that answered 4xx rolled its lines back, and a call shed here was
+     * never sent. Anything else, such as a timeout or 5xx, may have come after
+     * the shard committed.
+     */
+    private static boolean mayHaveReserved(RuntimeException ex) {
+        return !(ex instanceof InsufficientInventoryException
+                || ex instanceof HttpClientErrorException
+                || ex instanceof ServiceOverloadedException);
+    }
+
+    private InventoryColumns fetchInventory(Long productId, int quantity) {
+        String url = shardRouter.urlFor(productId) + "/inventory/" + productId;
+        return restTemplate.execute(url, HttpMethod.GET,
+                request -> request.getHeaders().setAccept(List.of(MediaType.APPLICATION_JSON)),
+                response -> {
+                    try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                        return InventoryColumns.read(parser, quantity);
+                    }
+                });
+    }
 
-    public InventoryResponse getInventory(Long productId) {
-        String url = inventoryServiceUrl + "/inventory/" + productId;
-        return restTemplate.getForObject(url, InventoryResponse.class);
+    private BulkReserveResponse reserveOnShard(String url, BulkReserveRequest request) {
+        try {
+            return restTemplate.postForObject(url + "/inventory/reserve/bulk", request, BulkReserveResponse.class);
+        } catch (HttpClientErrorException.UnprocessableEntity ex) {
+            // Inventory's ErrorDto: "message" is the reason, "error" only the HTTP reason phrase
+            Map<?, ?> body = ex.getResponseBodyAs(Map.class);
+            Object message = body == null ? null : body.get("message") != null ? body.get("message") : body.get("error");
+            throw new InsufficientInventoryException(message != null ? String.valueOf(message) : ex.getMessage());
+        }
     }
 
-    public void updateInventory(UpdateInventoryRequest request) {
-        String url = inventoryServiceUrl + "/inventory/update";
-        restTemplate.postForEntity(url, request, Void.class);
+    private void releaseAll(List<String> shardUrls, String reservationId) {
+        for (String url : shardUrls) {
+            try {
+                restTemplate.postForEntity(url + "/inventory/release", new ReleaseRequest(reservationId), Void.class);
+            } catch (RuntimeException ex) {
+                // Releasing is idempotent; the same call can be repeated by hand
+                log.error("Failed to release reservation {} on {}: {}", reservationId, url, ex.getMessage());
+            }
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.koerber.order.client;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Routes products to inventory-service shards. Each inventory-service instance
+ * owns the stock of the products that hash to it on a {@link ConsistentHashRing};
+ * with a single URL every product goes to that instance.
+ */
+@Component
+public class InventoryShardRouter {
+
+    private final ConsistentHashRing ring;
+    private final ExecutorService fanOutExecutor;
+
+    public InventoryShardRouter(@Value("${inventory.service.urls:${inventory.service.url}}") List<String> urls,
+                                @Value("${inventory.sharding.virtual-nodes:160}") int virtualNodes,
+                                @Value("${inventory.sharding.fan-out-threads:32}") int fanOutThreads) {
+        this.ring = new ConsistentHashRing(urls.stream().map(String::trim).filter(u -> !u.isEmpty()).toList(),
+                virtualNodes);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanOutExecutor = Executors.newFixedThreadPool(fanOutThreads, task -> {
+            Thread thread = new Thread(task, "inventory-fan-out-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the base URL of the inventory-service instance owning the product
+     */
+    public String urlFor(Long productId) {
+        return ring.nodeFor(productId);
+    }
+
+    public List<String> getUrls() {
+        return ring.getNodes();
+    }
+
+    public boolean isSharded() {
+        return ring.getNodes().size() > 1;
+    }
+
+    /**
+     * Executor for per-shard calls of a request that spans several shards.
+     */
+    public ExecutorService fanOutExecutor() {
+        return fanOutExecutor;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOutExecutor.shutdownNow();
+    }
+}
@@ -1,5 +1,10 @@
 package com.koerber.order.config;
 
+import com.koerber.common.tracing.Tracer;
+import com.koerber.common.tracing.TracingClientInterceptor;
+import com.koerber.order.limit.AdaptiveConcurrencyLimiter;
+import com.koerber.order.limit.ConcurrencyLimitClientInterceptor;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
@@ -8,7 +13,15 @@ import org.springframework.web.client.RestTemplate;
 public class AppConfig {
 
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(Tracer tracer,
+                                     ConcurrencyLimitProperties concurrencyLimits,
+                                     @Qualifier("inventoryLimiter") AdaptiveConcurrencyLimiter inventoryLimiter) {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(new TracingClientInterceptor(tracer));
+        if (concurrencyLimits.isEnabled()) {
+            restTemplate.getInterceptors().add(new ConcurrencyLimitClientInterceptor(
+                    inventoryLimiter, concurrencyLimits.getRetryAfterSeconds()));
+        }
+        return restTemplate;
     }
 }
@@ -0,0 +1,47 @@
+package com.koerber.order.config;
+
+import com.koerber.order.limit.AdaptiveConcurrencyLimiter;
+import com.koerber.order.limit.ConcurrencyLimitInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Adaptive concurrency limits for order placement and for inventory-service calls.
+ * The inventory limit is applied by the RestTemplate in {@link AppConfig}.
+ */
+@Configuration
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    private final ConcurrencyLimitProperties properties;
+    private final AdaptiveConcurrencyLimiter placeOrderLimiter;
+
+    public ConcurrencyLimitConfig(ConcurrencyLimitProperties properties,
+                                  @Qualifier("placeOrderLimiter") AdaptiveConcurrencyLimiter placeOrderLimiter) {
+        this.properties = properties;
+        this.placeOrderLimiter = placeOrderLimiter;
+    }
+
+    @Bean
+    public static AdaptiveConcurrencyLimiter placeOrderLimiter(ConcurrencyLimitProperties properties,
+                                                               MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("placeOrder", properties, meterRegistry);
+    }
+
+    @Bean
+    public static AdaptiveConcurrencyLimiter inventoryLimiter(ConcurrencyLimitProperties properties,
+                                                              MeterRegistry meterRegistry) {
+        return new AdaptiveConcurrencyLimiter("inventory", properties, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.isEnabled()) {
+            registry.addInterceptor(new ConcurrencyLimitInterceptor(
+                    placeOrderLimiter, "POST", properties.getRetryAfterSeconds())).addPathPatterns("/order");
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.koerber.order.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the adaptive concurrency limits on POST /order and on calls to
+ * the inventory-service. Both limits use the same settings but adapt separately.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order.concurrency")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+
+    private int initialLimit = 20;
+
+    private int minLimit = 4;
+
+    private int maxLimit = 500;
+
+    /** Latency growth over the no-load baseline tolerated before the limit shrinks. */
+    private double tolerance = 1.5;
+
+    /** Weight of each new estimate; lower values react more slowly. */
+    private double smoothing = 0.2;
+
+    /** Factor applied to the limit when a call fails from overload. */
+    private double backoffRatio = 0.9;
+
+    /** Sent as Retry-After when a call is rejected. */
+    private int retryAfterSeconds = 1;
+}
@@ -1,15 +1,26 @@
 package com.koerber.order.controller;
 
+import com.koerber.order.dto.OrderPageResponse;
 import com.koerber.order.dto.OrderRequest;
 import com.koerber.order.dto.OrderResponse;
+import com.koerber.order.dto.OrderSearchCriteria;
+import com.koerber.order.dto.OrderStatusUpdateRequest;
+import com.koerber.order.dto.OrderStatusUpdateResponse;
+import com.koerber.order.dto.SalesBackfillResponse;
+import com.koerber.order.dto.SalesStatsResponse;
+import com.koerber.order.model.OrderStatus;
 import com.koerber.order.service.OrderService;
+import com.koerber.order.stats.SalesBackfillJob;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+
 @RestController
 @RequestMapping("/order")
 @RequiredArgsConstructor
@@ -17,6 +28,7 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final SalesBackfillJob salesBackfillJob;
 
     @PostMapping
     @Operation(summary = "Place a new order and reserve inventory")
@@ -24,4 +36,38 @@ public class OrderController {
         OrderResponse response = orderService.placeOrder(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
+
+    @GetMapping
+    @Operation(summary = "Query orders, newest first, with keyset pagination")
+    public ResponseEntity<OrderPageResponse> findOrders(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(productId, status, from, to);
+        return ResponseEntity.ok(orderService.findOrders(criteria, cursor, limit));
+    }
+
+    @PostMapping("/status")
+    @Operation(summary = "Move orders, given by id or by filter, to a new status; reports the outcome per order")
+    public ResponseEntity<OrderStatusUpdateResponse> updateStatus(@RequestBody OrderStatusUpdateRequest request) {
+        return ResponseEntity.ok(orderService.updateStatus(request));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Orders and units sold per product per day, from the maintained sales aggregate")
+    public ResponseEntity<SalesStatsResponse> getDailySales(
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(orderService.getDailySales(productId, from, to));
+    }
+
+    @PostMapping("/stats/rebuild")
+    @Operation(summary = "Rebuild the sales aggregate from the order history with parallel chunked scans")
+    public ResponseEntity<SalesBackfillResponse> rebuildStats() {
+        return ResponseEntity.ok(salesBackfillJob.rebuild());
+    }
 }
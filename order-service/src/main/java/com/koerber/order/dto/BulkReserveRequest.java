@@ -0,0 +1,16 @@
+package com.koerber.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkReserveRequest {
+    /** Caller's id for the reservation; when set, the reservation can be replayed and released by it. */
+    private String reservationId;
+    private List<ReserveRequest> lines;
+}
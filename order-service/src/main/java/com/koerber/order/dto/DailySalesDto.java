@@ -0,0 +1,20 @@
+package com.koerber.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Orders and units sold for one product on one day, excluding cancelled orders.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesDto {
+    private Long productId;
+    private LocalDate date;
+    private long orderCount;
+    private long unitsSold;
+}
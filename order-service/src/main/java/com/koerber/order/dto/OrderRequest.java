@@ -4,10 +4,25 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
+/**
+ * Either a single product ({@code productId}/{@code quantity}) or a cart of
+ * {@code lines}; when lines are present the single-product fields are ignored.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderRequest {
     private Long productId;
     private Integer quantity;
+    private List<OrderLineRequest> lines;
+
+    public OrderRequest(Long productId, Integer quantity) {
+        this(productId, quantity, null);
+    }
+
+    public OrderRequest(List<OrderLineRequest> lines) {
+        this(null, null, lines);
+    }
 }
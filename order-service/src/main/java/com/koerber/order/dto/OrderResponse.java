@@ -18,5 +18,6 @@ public class OrderResponse {
     private Integer quantity;
     private String status;
     private List<Long> reservedFromBatchIds;
+    private List<OrderLineResponse> lines;
     private String message;
 }
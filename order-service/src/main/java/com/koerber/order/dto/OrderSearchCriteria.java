@@ -0,0 +1,21 @@
+package com.koerber.order.dto;
+
+import com.koerber.order.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Optional filters for order queries; null fields are not applied.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSearchCriteria {
+    private Long productId;
+    private OrderStatus status;
+    private LocalDate from;
+    private LocalDate to;
+}
@@ -0,0 +1,22 @@
+package com.koerber.order.dto;
+
+import com.koerber.order.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusResult {
+    private Long orderId;
+    private Outcome outcome;
+    private OrderStatus status; // status after the request; null when the order does not exist
+
+    public enum Outcome {
+        UPDATED,
+        UNCHANGED, // already in the target status
+        INVALID_TRANSITION,
+        NOT_FOUND
+    }
+}
@@ -0,0 +1,21 @@
+package com.koerber.order.dto;
+
+import com.koerber.order.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Moves orders to {@code status}. The orders are given either explicitly by id
+ * or by a filter, which selects every matching order that may make the transition.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusUpdateRequest {
+    private List<Long> orderIds;
+    private OrderSearchCriteria filter;
+    private OrderStatus status;
+}
@@ -0,0 +1,17 @@
+package com.koerber.order.dto;
+
+import com.koerber.order.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusUpdateResponse {
+    private OrderStatus status;
+    private int updated;
+    private List<OrderStatusResult> results; // one per distinct order id, in request order
+}
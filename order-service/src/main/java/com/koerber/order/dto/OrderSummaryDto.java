@@ -0,0 +1,20 @@
+package com.koerber.order.dto;
+
+import com.koerber.order.model.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryDto {
+    private Long orderId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private OrderStatus status;
+    private LocalDate orderDate;
+}
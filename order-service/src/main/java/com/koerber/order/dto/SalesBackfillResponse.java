@@ -0,0 +1,14 @@
+package com.koerber.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesBackfillResponse {
+    private int chunks;
+    private int rows;
+    private long elapsedMs;
+}
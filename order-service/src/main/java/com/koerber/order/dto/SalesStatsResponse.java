@@ -0,0 +1,16 @@
+package com.koerber.order.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesStatsResponse {
+    private List<DailySalesDto> days;
+    private long totalOrders;
+    private long totalUnits;
+}
@@ -0,0 +1,150 @@
+package com.koerber.order.limit;
+
+import com.koerber.order.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the number of concurrent calls and adapts the cap to observed latency.
+ *
+ * <p>Two moving averages of call latency are kept: a short one, tracking the
+ * current round trip, and a long one, approximating the latency without
+ * queueing. While the short average stays within {@code tolerance} times the long
+ * one, the limit grows by about {@code sqrt(limit)} per sample. As queueing pushes the
+ * short average up, the limit is scaled down by their ratio (at most halved per
+ * sample). Calls that fail from overload (timeouts, 5xx) cut the limit
+ * multiplicatively. Calls beyond the limit are rejected at once instead of
+ * queueing, which keeps latency bounded for the admitted ones.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+
+    private final ConcurrencyLimitProperties properties;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this(name, properties, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(String name, ConcurrencyLimitProperties properties, MeterRegistry meterRegistry,
+                               LongSupplier nanoClock) {
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+        this.estimatedLimit = properties.getInitialLimit();
+        this.limit = properties.getInitialLimit();
+        Gauge.builder("order.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("name", name).register(meterRegistry);
+        Gauge.builder("order.concurrency.inflight", this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("name", name).register(meterRegistry);
+        this.rejected = Counter.builder("order.concurrency.rejected").tag("name", name).register(meterRegistry);
+    }
+
+    /**
+     * @return a permit to release when the call ends, or empty if the limit is reached
+     */
+    public Optional<Permit> tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return Optional.empty();
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return Optional.of(new Permit(current + 1, nanoClock.getAsLong()));
+            }
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        if (dropped) {
+            estimatedLimit = Math.max(properties.getMinLimit(), estimatedLimit * properties.getBackoffRatio());
+            limit = (int) estimatedLimit;
+            return;
+        }
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+        }
+        // After latency has dropped well below the baseline (e.g. a recovered downstream), pull the baseline
+        // down quickly so the limit does not grow unchecked. A slower downstream is only absorbed at LONG_WINDOW.
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // Too few calls in flight to say anything about the limit
+        if (inFlightAtStart * 2 < estimatedLimit) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getTolerance() * longRttNanos / shortRttNanos));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - properties.getSmoothing()) + newLimit * properties.getSmoothing();
+        estimatedLimit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+        limit = (int) estimatedLimit;
+    }
+
+    /**
+     * One admitted call. Exactly one of the completion methods should be called.
+     */
+    public class Permit {
+
+        private final int inFlightAtStart;
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(int inFlightAtStart, long startNanos) {
+            this.inFlightAtStart = inFlightAtStart;
+            this.startNanos = startNanos;
+        }
+
+        /** The call completed normally; its latency is a sample. */
+        public void success() {
+            release(false, true);
+        }
+
+        /** The call failed in a way that indicates overload, such as a timeout or 5xx. */
+        public void dropped() {
+            release(true, true);
+        }
+
+        /** The call ended without saying anything about load, such as a rejected request. */
+        public void ignore() {
+            release(false, false);
+        }
+
+        private void release(boolean dropped, boolean sample) {
+            if (released) {
+                return;
+            }
+            released = true;
+            inFlight.decrementAndGet();
+            if (sample) {
+                onSample(nanoClock.getAsLong() - startNanos, inFlightAtStart, dropped);
+            }
+        }
+    }
+}
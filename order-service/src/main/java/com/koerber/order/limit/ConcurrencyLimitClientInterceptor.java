@@ -0,0 +1,48 @@
+package com.koerber.order.limit;
+
+import com.koerber.common.exception.ServiceOverloadedException;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Limits concurrent outgoing calls, so a slow inventory-service sheds order
+ * traffic here instead of piling up threads and connections. Releases are never
+ * shed: they undo reservations that would otherwise be lost.
+ */
+public class ConcurrencyLimitClientInterceptor implements ClientHttpRequestInterceptor {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final int retryAfterSeconds;
+
+    public ConcurrencyLimitClientInterceptor(AdaptiveConcurrencyLimiter limiter, int retryAfterSeconds) {
+        this.limiter = limiter;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        if (request.getURI().getPath().endsWith("/inventory/release")) {
+            return execution.execute(request, body);
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire()
+                .orElseThrow(() -> new ServiceOverloadedException(
+                        "Too many calls to the inventory service in progress, retry later", retryAfterSeconds));
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            if (response.getStatusCode().is5xxServerError()) {
+                permit.dropped();
+            } else {
+                permit.success();
+            }
+            return response;
+        } catch (IOException | RuntimeException ex) {
+            permit.dropped();
+            throw ex;
+        }
+    }
+}
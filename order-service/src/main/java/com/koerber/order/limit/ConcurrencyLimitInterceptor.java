@@ -0,0 +1,77 @@
+package com.koerber.order.limit;
+
+import com.koerber.common.exception.ServiceOverloadedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admits requests through an {@link AdaptiveConcurrencyLimiter} and sheds the
+ * rest with {@link ServiceOverloadedException} before any work is done.
+ *
+ * <p>Only a failed inventory call (a 5xx answer or a timeout) counts as a
+ * dropped call. A 503 this service returns itself, because the inventory-call
+ * limit shed the order, is load being refused rather than load failing; cutting
+ * the limit for it would make every shed shed more.
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final String method;
+    private final int retryAfterSeconds;
+
+    public ConcurrencyLimitInterceptor(AdaptiveConcurrencyLimiter limiter, String method, int retryAfterSeconds) {
+        this.limiter = limiter;
+        this.method = method;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!method.equals(request.getMethod())) {
+            return true;
+        }
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire()
+                .orElseThrow(() -> new ServiceOverloadedException(
+                        "Too many orders in progress, retry later", retryAfterSeconds));
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter.Permit permit)) {
+            return;
+        }
+        int status = response.getStatus();
+        if (isDownstreamFailure(ex)) {
+            permit.dropped();
+        } else if (ex != null || status == HttpStatus.SERVICE_UNAVAILABLE.value()
+                || status == HttpStatus.BAD_REQUEST.value()) {
+            // Shed, rejected before reaching inventory, or failed here; its latency says nothing about load
+            permit.ignore();
+        } else if (status >= 500) {
+            permit.dropped();
+        } else {
+            permit.success();
+        }
+    }
+
+    private static boolean isDownstreamFailure(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ServiceOverloadedException) {
+                return false;
+            }
+            if (cause instanceof HttpServerErrorException || cause instanceof ResourceAccessException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
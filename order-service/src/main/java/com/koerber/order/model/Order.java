@@ -19,14 +19,15 @@ public class Order {
     @Column(name = "order_id")
     private Long orderId;
 
-    @Column(name = "product_id", nullable = false)
+    // Null for multi-line orders; their products are in order_line
+    @Column(name = "product_id")
     private Long productId;
 
-    @Column(name = "product_name", nullable = false)
+    @Column(name = "product_name")
     private String productName;
 
     @Column(nullable = false)
-    private Integer quantity;
+    private Integer quantity; // total across lines for multi-line orders
 
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
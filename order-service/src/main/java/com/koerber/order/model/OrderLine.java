@@ -0,0 +1,51 @@
+package com.koerber.order.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+
+/**
+ * Read-only mapping of order_line, so that order queries can filter on a line's
+ * product. Lines are written by {@code OrderLineJdbcRepository}.
+ */
+@Entity
+@Table(name = "order_line")
+@IdClass(OrderLine.Key.class)
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderLine {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Id
+    @Column(name = "line_no")
+    private Integer lineNo;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_name", nullable = false)
+    private String productName;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "reserved_batch_ids")
+    private String reservedBatchIds; // comma-separated batch IDs
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long orderId;
+        private Integer lineNo;
+    }
+}
@@ -1,8 +1,36 @@
 package com.koerber.order.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public enum OrderStatus {
     PLACED,
     SHIPPED,
     DELIVERED,
-    CANCELLED
+    CANCELLED;
+
+    /**
+     * Whether an order in this status may be moved to {@code target}. Orders go
+     * PLACED -> SHIPPED -> DELIVERED, or PLACED -> CANCELLED.
+     */
+    public boolean canTransitionTo(OrderStatus target) {
+        return switch (this) {
+            case PLACED -> target == SHIPPED || target == CANCELLED;
+            case SHIPPED -> target == DELIVERED;
+            case DELIVERED, CANCELLED -> false;
+        };
+    }
+
+    /**
+     * The statuses from which an order may be moved to {@code target}.
+     */
+    public static List<OrderStatus> sourcesOf(OrderStatus target) {
+        List<OrderStatus> sources = new ArrayList<>();
+        for (OrderStatus status : values()) {
+            if (status.canTransitionTo(target)) {
+                sources.add(status);
+            }
+        }
+        return sources;
+    }
 }
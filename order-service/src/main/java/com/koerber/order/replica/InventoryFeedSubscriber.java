@@ -0,0 +1,230 @@
+package com.koerber.order.replica;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.order.client.InventoryShardRouter;
+import com.koerber.order.dto.InventoryChangeDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps {@link InventoryReplica} in sync with the inventory-service change feed.
+ *
+ * <p>On start, and whenever the feed asks for a resync, the replica is reloaded
+ * from GET /inventory/snapshot. The subscriber then follows GET /inventory/changes
+ * from the snapshot's sequence number. After a dropped connection it reconnects
+ * and resumes from the last applied sequence, so no snapshot is needed unless
+ * the inventory-service no longer retains that position.
+ *
+ * <p>When inventory is sharded, each shard has its own feed, sequence and
+ * connection thread; the replica serves reads only while every shard's feed is
+ * attached.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "inventory.replica.enabled", havingValue = "true")
+public class InventoryFeedSubscriber implements SmartLifecycle {
+
+    private final InventoryReplica inventoryReplica;
+    private final ObjectMapper objectMapper;
+    private final RestTemplate restTemplate;
+    private final List<ShardFeed> feeds;
+    private final AtomicInteger attachedFeeds = new AtomicInteger();
+
+    @Value("${inventory.replica.reconnect-delay-ms:1000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+
+    public InventoryFeedSubscriber(InventoryReplica inventoryReplica,
+                                   ObjectMapper objectMapper,
+                                   RestTemplateBuilder restTemplateBuilder,
+                                   InventoryShardRouter shardRouter,
+                                   @Value("${inventory.replica.read-timeout-ms:45000}") long readTimeoutMs) {
+        this.inventoryReplica = inventoryReplica;
+        this.objectMapper = objectMapper;
+        // The feed sends heartbeats, so a read timeout detects half-open connections
+        this.restTemplate = restTemplateBuilder.setReadTimeout(Duration.ofMillis(readTimeoutMs)).build();
+        this.feeds = shardRouter.getUrls().stream().map(ShardFeed::new).toList();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        for (ShardFeed feed : feeds) {
+            feed.worker = new Thread(feed::run, "inventory-feed-subscriber-" + feeds.indexOf(feed));
+            feed.worker.setDaemon(true);
+            feed.worker.start();
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        inventoryReplica.markStale();
+        for (ShardFeed feed : feeds) {
+            if (feed.worker != null) {
+                feed.worker.interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    List<ShardFeed> getFeeds() {
+        return feeds;
+    }
+
+    /**
+     * Connection state for one inventory-service shard.
+     */
+    class ShardFeed {
+
+        private final String url;
+        private volatile Thread worker;
+
+        private boolean synced;
+        private boolean attached;
+        private long epoch;
+        private long lastSequence;
+
+        ShardFeed(String url) {
+            this.url = url;
+        }
+
+        private void run() {
+            while (running) {
+                try {
+                    if (!synced) {
+                        loadSnapshot();
+                    }
+                    follow();
+                } catch (Exception ex) {
+                    log.warn("Inventory feed {} disconnected, resuming from sequence {}: {}",
+                            url, lastSequence, ex.getMessage());
+                }
+                detach();
+                try {
+                    Thread.sleep(reconnectDelayMs);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void attach() {
+            if (!attached) {
+                attached = true;
+                if (attachedFeeds.incrementAndGet() == feeds.size()) {
+                    inventoryReplica.markReady();
+                }
+            }
+        }
+
+        private void detach() {
+            inventoryReplica.markStale();
+            if (attached) {
+                attached = false;
+                attachedFeeds.decrementAndGet();
+            }
+        }
+
+        private void loadSnapshot() {
+            restTemplate.execute(url + "/inventory/snapshot", HttpMethod.GET, null, response -> {
+                List<InventoryChangeDto> batches = new ArrayList<>();
+                long snapshotEpoch = 0;
+                long snapshotSequence = 0;
+                try (JsonParser parser = objectMapper.getFactory().createParser(response.getBody())) {
+                    parser.nextToken(); // START_OBJECT
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String field = parser.getCurrentName();
+                        parser.nextToken();
+                        switch (field) {
+                            case "epoch" -> snapshotEpoch = parser.getLongValue();
+                            case "sequence" -> snapshotSequence = parser.getLongValue();
+                            case "batches" -> {
+                                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                                    batches.add(parser.readValueAs(InventoryChangeDto.class));
+                                }
+                            }
+                            default -> parser.skipChildren();
+                        }
+                    }
+                }
+                inventoryReplica.load(url, batches);
+                epoch = snapshotEpoch;
+                lastSequence = snapshotSequence;
+                synced = true;
+                log.info("Loaded inventory replica snapshot from {}: {} batches at sequence {}",
+                        url, batches.size(), snapshotSequence);
+                return null;
+            });
+        }
+
+        private void follow() {
+            String changesUrl = url + "/inventory/changes?since=" + lastSequence + "&epoch=" + epoch;
+            restTemplate.execute(changesUrl, HttpMethod.GET, null, response -> {
+                attach();
+                consume(new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8)));
+                return null;
+            });
+        }
+
+        /**
+         * Applies server-sent events from the stream until it ends or a resync is requested.
+         */
+        void consume(BufferedReader reader) throws IOException {
+            String event = null;
+            StringBuilder data = new StringBuilder();
+            String line;
+            while (running && (line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    if ("resync".equals(event)) {
+                        log.info("Inventory feed {} requested a resync at sequence {}", url, lastSequence);
+                        synced = false;
+                        return;
+                    }
+                    if ("change".equals(event)) {
+                        InventoryChangeDto change = objectMapper.readValue(data.toString(), InventoryChangeDto.class);
+                        inventoryReplica.apply(url, change);
+                        lastSequence = change.getSequence();
+                    }
+                    event = null;
+                    data.setLength(0);
+                } else if (line.startsWith("event:")) {
+                    event = line.substring(6).trim();
+                } else if (line.startsWith("data:")) {
+                    data.append(line.substring(5));
+                }
+            }
+        }
+
+        boolean isSynced() {
+            return synced;
+        }
+
+        long getLastSequence() {
+            return lastSequence;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.koerber.order.replica;
+
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.dto.InventoryChangeDto;
+import com.koerber.order.dto.InventoryResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local read replica of inventory batches, maintained from the inventory-service
+ * change feed by {@link InventoryFeedSubscriber}.
+ *
+ * <p>Reads are only served while the replica is {@link #isReady() ready}, i.e.
+ * loaded from a snapshot and attached to the live feed; otherwise callers fall
+ * back to HTTP. The replica may briefly lag the inventory-service, which is safe
+ * because the inventory-service still validates every deduction.
+ *
+ * <p>With several inventory shards, each product remembers the shard it was
+ * replicated from so that one shard's snapshot only replaces that shard's products.
+ */
+@Component
+public class InventoryReplica {
+
+    private static final Comparator<BatchDto> BY_EXPIRY =
+            Comparator.comparing(BatchDto::getExpiryDate).thenComparing(BatchDto::getBatchId);
+
+    private volatile Map<Long, ProductEntry> products = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    // Single events apply concurrently (per-key atomic); swapping in a snapshot excludes them
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    void markStale() {
+        ready = false;
+    }
+
+    /**
+     * Returns the product's batches sorted by expiry, as GET /inventory/{productId} would.
+     *
+     * @param productId the product identifier
+     * @return the replicated inventory, or null if the replica is not ready or has no such product
+     */
+    public InventoryResponse getInventory(Long productId) {
+        if (!ready) {
+            return null;
+        }
+        ProductEntry entry = products.get(productId);
+        return entry == null ? null : new InventoryResponse(productId, entry.productName, entry.batches);
+    }
+
+    /**
+     * Replaces the whole replica with snapshot contents.
+     *
+     * @param batches every batch known to the inventory-service
+     */
+    void load(Collection<InventoryChangeDto> batches) {
+        load(null, batches);
+    }
+
+    /**
+     * Replaces the products replicated from one shard with that shard's snapshot.
+     *
+     * @param shard   the shard the snapshot came from, or null to replace everything
+     * @param batches every batch held by that shard
+     */
+    void load(String shard, Collection<InventoryChangeDto> batches) {
+        Map<Long, List<InventoryChangeDto>> byProduct = new HashMap<>();
+        for (InventoryChangeDto batch : batches) {
+            byProduct.computeIfAbsent(batch.getProductId(), id -> new ArrayList<>()).add(batch);
+        }
+        Map<Long, ProductEntry> loaded = new ConcurrentHashMap<>(byProduct.size() * 2);
+        byProduct.forEach((productId, rows) -> {
+            List<BatchDto> sorted = new ArrayList<>(rows.size());
+            Map<Long, Long> versions = new HashMap<>();
+            for (InventoryChangeDto row : rows) {
+                sorted.add(toBatch(row));
+                versions.put(row.getBatchId(), row.getVersion());
+            }
+            sorted.sort(BY_EXPIRY);
+            loaded.put(productId, new ProductEntry(rows.get(0).getProductName(), List.copyOf(sorted), versions, shard));
+        });
+
+        swapLock.writeLock().lock();
+        try {
+            if (shard != null) {
+                products.forEach((productId, entry) -> {
+                    if (!shard.equals(entry.shard)) {
+                        loaded.putIfAbsent(productId, entry);
+                    }
+                });
+            }
+            products = loaded;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Applies one change event. Each product's batch list is copied on write so
+     * concurrent readers always see a consistent, sorted list. Events carrying a
+     * batch version no newer than the one already applied are ignored, since
+     * commits can be published slightly out of order.
+     */
+    void apply(InventoryChangeDto change) {
+        apply(null, change);
+    }
+
+    void apply(String shard, InventoryChangeDto change) {
+        swapLock.readLock().lock();
+        try {
+            applyLocked(shard, change);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    private void applyLocked(String shard, InventoryChangeDto change) {
+        products.compute(change.getProductId(), (productId, entry) -> {
+            Long appliedVersion = entry == null ? null : entry.versions.get(change.getBatchId());
+            if (appliedVersion != null && change.getVersion() != null && change.getVersion() <= appliedVersion) {
+                return entry;
+            }
+            List<BatchDto> batches = new ArrayList<>(entry == null ? List.of() : entry.batches);
+            batches.removeIf(b -> b.getBatchId().equals(change.getBatchId()));
+            batches.add(toBatch(change));
+            batches.sort(BY_EXPIRY);
+            Map<Long, Long> versions = new HashMap<>(entry == null ? Map.of() : entry.versions);
+            versions.put(change.getBatchId(), change.getVersion());
+            return new ProductEntry(change.getProductName(), List.copyOf(batches), versions, shard);
+        });
+    }
+
+    private static BatchDto toBatch(InventoryChangeDto change) {
+        return new BatchDto(change.getBatchId(), change.getQuantity(), change.getExpiryDate());
+    }
+
+    private record ProductEntry(String productName, List<BatchDto> batches, Map<Long, Long> versions, String shard) {
+    }
+}
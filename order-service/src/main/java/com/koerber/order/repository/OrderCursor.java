@@ -0,0 +1,40 @@
+package com.koerber.order.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position of the last order on a page. Pages are ordered by
+ * (orderDate DESC, orderId DESC), so the next page starts strictly after this key.
+ * Encoded as an opaque URL-safe token for clients.
+ */
+public record OrderCursor(LocalDate orderDate, Long orderId) {
+
+    public String encode() {
+        String raw = orderDate + "_" + orderId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the cursor token, may be null
+     * @return the decoded cursor, or null if no token was given
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf('_');
+            return new OrderCursor(LocalDate.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.dto.OrderLineResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Writes order lines with a single JDBC batch rather than one persisted entity
+ * (and one statement round trip) per line.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderLineJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_line (order_id, line_no, product_id, product_name, quantity, reserved_batch_ids) "
+            + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the lines of an order, numbered from 1 in list order. Runs in the
+     * caller's transaction.
+     *
+     * @param orderId the header row's id
+     * @param lines   the reserved lines
+     */
+    public void batchInsert(Long orderId, List<OrderLineResponse> lines) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                OrderLineResponse line = lines.get(i);
+                ps.setLong(1, orderId);
+                ps.setInt(2, i + 1);
+                ps.setLong(3, line.getProductId());
+                ps.setString(4, line.getProductName());
+                ps.setInt(5, line.getQuantity());
+                ps.setString(6, line.getReservedFromBatchIds().stream()
+                        .map(String::valueOf)
+                        .collect(Collectors.joining(",")));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return lines.size();
+            }
+        });
+    }
+}
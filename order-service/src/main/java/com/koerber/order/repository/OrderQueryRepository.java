@@ -0,0 +1,24 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.dto.OrderSearchCriteria;
+import com.koerber.order.dto.OrderSummaryDto;
+
+import java.util.List;
+
+/**
+ * Projection-based order queries, implemented by {@link OrderQueryRepositoryImpl}
+ * and exposed through {@link OrderRepository}.
+ */
+public interface OrderQueryRepository {
+
+    /**
+     * Returns up to {@code limit} order summaries matching the criteria, newest first,
+     * starting after the given cursor.
+     *
+     * @param criteria filters to apply
+     * @param after    keyset position to continue from, or null for the first page
+     * @param limit    maximum number of rows to return
+     * @return matching orders ordered by (orderDate DESC, orderId DESC)
+     */
+    List<OrderSummaryDto> findOrderSummaries(OrderSearchCriteria criteria, OrderCursor after, int limit);
+}
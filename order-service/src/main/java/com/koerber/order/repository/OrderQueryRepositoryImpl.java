@@ -0,0 +1,77 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.dto.OrderSearchCriteria;
+import com.koerber.order.dto.OrderSummaryDto;
+import com.koerber.order.model.Order;
+import com.koerber.order.model.OrderLine;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds the WHERE clause from only the filters that are present, so the database
+ * can use idx_orders_product_date / idx_orders_status_date instead of evaluating
+ * "(:param IS NULL OR ...)" for every row. A product filter also matches
+ * multi-line orders that have a line for the product; their summaries carry no
+ * single product. Results are DTO projections, never managed entities.
+ */
+public class OrderQueryRepositoryImpl implements OrderQueryRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSummaryDto> findOrderSummaries(OrderSearchCriteria criteria, OrderCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSummaryDto> query = cb.createQuery(OrderSummaryDto.class);
+        Root<Order> order = query.from(Order.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.getProductId() != null) {
+            Subquery<Long> lineOrders = query.subquery(Long.class);
+            Root<OrderLine> line = lineOrders.from(OrderLine.class);
+            lineOrders.select(line.get("orderId"))
+                    .where(cb.equal(line.get("productId"), criteria.getProductId()));
+            predicates.add(cb.or(
+                    cb.equal(order.get("productId"), criteria.getProductId()),
+                    order.get("orderId").in(lineOrders)));
+        }
+        if (criteria.getStatus() != null) {
+            predicates.add(cb.equal(order.get("status"), criteria.getStatus()));
+        }
+        if (criteria.getFrom() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(order.<LocalDate>get("orderDate"), criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            predicates.add(cb.lessThanOrEqualTo(order.<LocalDate>get("orderDate"), criteria.getTo()));
+        }
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(order.<LocalDate>get("orderDate"), after.orderDate()),
+                    cb.and(cb.equal(order.get("orderDate"), after.orderDate()),
+                            cb.lessThan(order.<Long>get("orderId"), after.orderId()))));
+        }
+
+        query.select(cb.construct(OrderSummaryDto.class,
+                        order.get("orderId"),
+                        order.get("productId"),
+                        order.get("productName"),
+                        order.get("quantity"),
+                        order.get("status"),
+                        order.get("orderDate")))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(order.get("orderDate")), cb.desc(order.get("orderId")));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
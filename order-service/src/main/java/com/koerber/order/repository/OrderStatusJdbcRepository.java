@@ -0,0 +1,90 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.dto.OrderSearchCriteria;
+import com.koerber.order.model.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Set-based status changes: one statement per chunk of orders instead of loading
+ * and saving each order entity.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderStatusJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Reads the current status of the given orders and locks their rows until the
+     * caller's transaction ends. Orders that do not exist are absent from the result.
+     */
+    public Map<Long, OrderStatus> lockStatuses(List<Long> orderIds) {
+        Map<Long, OrderStatus> statuses = new HashMap<>(orderIds.size() * 2);
+        jdbcTemplate.query("SELECT order_id, status FROM orders WHERE order_id IN ("
+                        + SqlPlaceholders.of(orderIds.size()) + ") FOR UPDATE",
+                rs -> {
+                    statuses.put(rs.getLong(1), OrderStatus.valueOf(rs.getString(2)));
+                },
+                orderIds.toArray());
+        return statuses;
+    }
+
+    /**
+     * Moves those of the given orders that are still in {@code from} to {@code to}.
+     * Runs in the caller's transaction.
+     *
+     * @return the number of orders updated
+     */
+    public int updateStatus(List<Long> orderIds, OrderStatus from, OrderStatus to) {
+        Object[] args = new Object[orderIds.size() + 2];
+        args[0] = to.name();
+        for (int i = 0; i < orderIds.size(); i++) {
+            args[i + 1] = orderIds.get(i);
+        }
+        args[args.length - 1] = from.name();
+        return jdbcTemplate.update("UPDATE orders SET status = ? WHERE order_id IN ("
+                + SqlPlaceholders.of(orderIds.size()) + ") AND status = ?", args);
+    }
+
+    /**
+     * Finds ids of orders that match the filter and are in one of {@code statuses},
+     * in id order. Only the filters that are present are applied; a product filter
+     * also matches multi-line orders that have a line for the product.
+     */
+    public List<Long> findOrderIds(OrderSearchCriteria criteria, Collection<OrderStatus> statuses, int limit) {
+        if (statuses.isEmpty()) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder("SELECT order_id FROM orders WHERE status IN (")
+                .append(SqlPlaceholders.of(statuses.size())).append(')');
+        List<Object> args = new ArrayList<>();
+        for (OrderStatus status : statuses) {
+            args.add(status.name());
+        }
+        if (criteria.getProductId() != null) {
+            sql.append(" AND (product_id = ? OR order_id IN (SELECT order_id FROM order_line WHERE product_id = ?))");
+            args.add(criteria.getProductId());
+            args.add(criteria.getProductId());
+        }
+        if (criteria.getFrom() != null) {
+            sql.append(" AND order_date >= ?");
+            args.add(Date.valueOf(criteria.getFrom()));
+        }
+        if (criteria.getTo() != null) {
+            sql.append(" AND order_date <= ?");
+            args.add(Date.valueOf(criteria.getTo()));
+        }
+        sql.append(" ORDER BY order_id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.queryForList(sql.toString(), Long.class, args.toArray());
+    }
+}
@@ -0,0 +1,153 @@
+package com.koerber.order.repository;
+
+import com.koerber.order.dto.DailySalesDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The {@code product_daily_sales} aggregate: one row per product and day, so sales
+ * queries cost the same however many orders there are. Writers apply deltas in
+ * the transaction that changes the orders.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProductDailySalesRepository {
+
+    private static final String ADD_SQL =
+            "MERGE INTO product_daily_sales t "
+            + "USING (VALUES (CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS BIGINT), CAST(? AS BIGINT))) "
+            + "AS d(product_id, sales_date, order_count, units_sold) "
+            + "ON t.product_id = d.product_id AND t.sales_date = d.sales_date "
+            + "WHEN MATCHED THEN UPDATE SET order_count = t.order_count + d.order_count, "
+            + "units_sold = t.units_sold + d.units_sold "
+            + "WHEN NOT MATCHED THEN INSERT (product_id, sales_date, order_count, units_sold) "
+            + "VALUES (d.product_id, d.sales_date, d.order_count, d.units_sold)";
+
+    private static final String INSERT_SQL =
+            "INSERT INTO product_daily_sales (product_id, sales_date, order_count, units_sold) VALUES (?, ?, ?, ?)";
+
+    /** Per-product sales of the selected orders; an order with several lines for a product counts once. */
+    private static final String SALES_OF_ORDERS_SQL =
+            "SELECT product_id, order_date, COUNT(DISTINCT order_id), SUM(quantity) "
+            + "FROM (SELECT o.order_id, o.product_id, o.order_date, o.quantity FROM orders o "
+            + "      WHERE o.product_id IS NOT NULL AND o.status <> 'CANCELLED' AND %1$s "
+            + "      UNION ALL "
+            + "      SELECT o.order_id, l.product_id, o.order_date, l.quantity "
+            + "      FROM order_line l JOIN orders o ON o.order_id = l.order_id "
+            + "      WHERE o.status <> 'CANCELLED' AND %1$s) sales "
+            + "GROUP BY product_id, order_date";
+
+    private static final RowMapper<DailySalesDto> SALES_ROW = (rs, rowNum) -> new DailySalesDto(
+            rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getLong(3), rs.getLong(4));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds the deltas to their product's day, creating rows as needed. Counts may
+     * be negative. Runs in the caller's transaction as one JDBC batch.
+     */
+    public void add(List<DailySalesDto> deltas) {
+        jdbcTemplate.batchUpdate(ADD_SQL, salesSetter(deltas));
+    }
+
+    /**
+     * Takes the given orders back out of the aggregate, as one statement. Call it
+     * while the orders are still counted, i.e. before they are marked cancelled.
+     */
+    public void subtractOrders(List<Long> orderIds) {
+        String inIds = "o.order_id IN (" + SqlPlaceholders.of(orderIds.size()) + ")";
+        String sql = "MERGE INTO product_daily_sales t USING ("
+                + String.format(SALES_OF_ORDERS_SQL, inIds)
+                + ") AS d(product_id, sales_date, order_count, units_sold) "
+                + "ON t.product_id = d.product_id AND t.sales_date = d.sales_date "
+                + "WHEN MATCHED THEN UPDATE SET order_count = t.order_count - d.order_count, "
+                + "units_sold = t.units_sold - d.units_sold";
+        Object[] args = new Object[orderIds.size() * 2];
+        for (int i = 0; i < orderIds.size(); i++) {
+            args[i] = orderIds.get(i);
+            args[i + orderIds.size()] = orderIds.get(i);
+        }
+        jdbcTemplate.update(sql, args);
+    }
+
+    /**
+     * Reads the aggregate, by product then day. Null filters are not applied;
+     * dates are inclusive.
+     */
+    public List<DailySalesDto> find(Long productId, LocalDate from, LocalDate to) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT product_id, sales_date, order_count, units_sold FROM product_daily_sales WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (productId != null) {
+            sql.append(" AND product_id = ?");
+            args.add(productId);
+        }
+        if (from != null) {
+            sql.append(" AND sales_date >= ?");
+            args.add(Date.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND sales_date <= ?");
+            args.add(Date.valueOf(to));
+        }
+        sql.append(" ORDER BY product_id, sales_date");
+        return jdbcTemplate.query(sql.toString(), SALES_ROW, args.toArray());
+    }
+
+    /**
+     * Computes the sales of orders with {@code fromOrderId <= order_id < toOrderId}
+     * from the order tables, without touching the aggregate.
+     */
+    public List<DailySalesDto> salesOfOrderRange(long fromOrderId, long toOrderId) {
+        String inRange = "o.order_id >= ? AND o.order_id < ?";
+        return jdbcTemplate.query(String.format(SALES_OF_ORDERS_SQL, inRange), SALES_ROW,
+                fromOrderId, toOrderId, fromOrderId, toOrderId);
+    }
+
+    /**
+     * Returns the lowest and highest order id, or an empty array when there are no orders.
+     */
+    public long[] orderIdRange() {
+        return jdbcTemplate.query("SELECT MIN(order_id), MAX(order_id) FROM orders", rs -> {
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? new long[0] : new long[] {min, rs.getLong(2)};
+        });
+    }
+
+    /**
+     * Replaces the whole aggregate with the given rows. Runs in the caller's transaction.
+     */
+    public void replaceAll(List<DailySalesDto> rows) {
+        jdbcTemplate.update("DELETE FROM product_daily_sales");
+        jdbcTemplate.batchUpdate(INSERT_SQL, salesSetter(rows));
+    }
+
+    private static BatchPreparedStatementSetter salesSetter(List<DailySalesDto> rows) {
+        return new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                DailySalesDto row = rows.get(i);
+                ps.setLong(1, row.getProductId());
+                ps.setDate(2, Date.valueOf(row.getDate()));
+                ps.setLong(3, row.getOrderCount());
+                ps.setLong(4, row.getUnitsSold());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package com.koerber.order.repository;
+
+/**
+ * Builds the {@code ?,?,?} list for an {@code IN (...)} clause with one JDBC
+ * parameter per value.
+ */
+final class SqlPlaceholders {
+
+    private SqlPlaceholders() {
+    }
+
+    static String of(int count) {
+        StringBuilder placeholders = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            placeholders.append(i == 0 ? "?" : ",?");
+        }
+        return placeholders.toString();
+    }
+}
@@ -1,8 +1,21 @@
 package com.koerber.order.service;
 
+import com.koerber.order.dto.OrderPageResponse;
 import com.koerber.order.dto.OrderRequest;
 import com.koerber.order.dto.OrderResponse;
+import com.koerber.order.dto.OrderSearchCriteria;
+import com.koerber.order.dto.OrderStatusUpdateRequest;
+import com.koerber.order.dto.OrderStatusUpdateResponse;
+import com.koerber.order.dto.SalesStatsResponse;
+
+import java.time.LocalDate;
 
 public interface OrderService {
     OrderResponse placeOrder(OrderRequest request);
+
+    OrderPageResponse findOrders(OrderSearchCriteria criteria, String cursor, int limit);
+
+    OrderStatusUpdateResponse updateStatus(OrderStatusUpdateRequest request);
+
+    SalesStatsResponse getDailySales(Long productId, LocalDate from, LocalDate to);
 }
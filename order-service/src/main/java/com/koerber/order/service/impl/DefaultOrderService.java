@@ -1,75 +1,112 @@
 package com.koerber.order.service.impl;
 
+import com.koerber.common.tracing.Span;
+import com.koerber.common.tracing.Tracer;
+import com.koerber.order.allocation.FefoAllocation;
+import com.koerber.order.allocation.InventoryColumns;
 import com.koerber.order.client.InventoryClient;
 import com.koerber.order.dto.*;
 import com.koerber.order.exception.InsufficientInventoryException;
 import com.koerber.order.model.Order;
 import com.koerber.order.model.OrderStatus;
+import com.koerber.order.repository.OrderCursor;
+import com.koerber.order.repository.OrderLineJdbcRepository;
 import com.koerber.order.repository.OrderRepository;
+import com.koerber.order.repository.OrderStatusJdbcRepository;
+import com.koerber.order.repository.ProductDailySalesRepository;
 import com.koerber.order.service.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DefaultOrderService implements OrderService {
 
+    static final int MAX_PAGE_SIZE = 500;
+
     private final OrderRepository orderRepository;
     private final InventoryClient inventoryClient;
+    private final OrderLineJdbcRepository orderLineJdbcRepository;
+    private final OrderStatusJdbcRepository orderStatusJdbcRepository;
+    private final ProductDailySalesRepository productDailySalesRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Tracer tracer;
+
+    @Value("${order.availability-precheck.enabled:false}")
+    private boolean availabilityPrecheckEnabled;
+
+    @Value("${order.status-update.chunk-size:1000}")
+    private int statusUpdateChunkSize;
+
+    @Value("${order.status-update.max-orders:100000}")
+    private int statusUpdateMaxOrders;
 
     @Override
     public OrderResponse placeOrder(OrderRequest request) {
+        if (request.getLines() != null && !request.getLines().isEmpty()) {
+            return placeMultiLineOrder(request.getLines());
+        }
         if (request.getQuantity() == null || request.getQuantity() <= 0) {
             throw new IllegalArgumentException("Order quantity must be greater than zero.");
         }
 
-        // 1. Fetch inventory sorted by expiry (FEFO: First Expiry, First Out)
-        InventoryResponse inventory = inventoryClient.getInventory(request.getProductId());
-
-        // 2. Calculate which batches to deduct from using FEFO strategy
-        List<BatchDto> batches = inventory.getBatches(); // already sorted by expiry ASC
-        int remainingToReserve = request.getQuantity();
-        List<Long> reservedBatchIds = new ArrayList<>();
-        List<BatchUpdateDto> batchUpdates = new ArrayList<>();
+        // 0. Optionally reject early against the materialised counter, before transferring any batches
+        if (availabilityPrecheckEnabled) {
+            AvailabilityResponse availability = inventoryClient.getAvailability(request.getProductId());
+            if (availability.getAvailableQuantity() < request.getQuantity()) {
+                throw new InsufficientInventoryException(
+                        "Insufficient inventory for productId: " + request.getProductId()
+                        + ". Requested: " + request.getQuantity()
+                        + ", Available: " + availability.getAvailableQuantity());
+            }
+        }
 
-        for (BatchDto batch : batches) {
-            if (remainingToReserve <= 0) break;
-            if (batch.getQuantity() <= 0) continue;
+        // 1. Fetch inventory sorted by expiry (FEFO: First Expiry, First Out), only as far as needed
+        InventoryColumns inventory = inventoryClient.getInventory(request.getProductId(), request.getQuantity());
 
-            int deductAmount = Math.min(batch.getQuantity(), remainingToReserve);
-            remainingToReserve -= deductAmount;
-            reservedBatchIds.add(batch.getBatchId());
-            batchUpdates.add(new BatchUpdateDto(batch.getBatchId(), deductAmount));
+        // 2. Calculate which batches to deduct from using FEFO strategy
+        FefoAllocation allocation;
+        try (Span span = tracer.startSpan("order.allocate")) {
+            allocation = FefoAllocation.allocate(inventory, request.getQuantity());
+            span.tag("batches", allocation.size());
         }
 
-        if (remainingToReserve > 0) {
+        if (allocation.getAllocated() < request.getQuantity()) {
             throw new InsufficientInventoryException(
                     "Insufficient inventory for productId: " + request.getProductId()
                     + ". Requested: " + request.getQuantity()
-                    + ", Available: " + (request.getQuantity() - remainingToReserve));
+                    + ", Available: " + allocation.getAllocated());
         }
 
         // 3. Update inventory
-        inventoryClient.updateInventory(new UpdateInventoryRequest(request.getProductId(), batchUpdates));
+        inventoryClient.updateInventory(request.getProductId(), allocation);
 
         // 4. Persist the order
-        String reservedBatchIdsStr = reservedBatchIds.stream()
-                .map(String::valueOf)
-                .collect(Collectors.joining(","));
-
         Order order = new Order();
         order.setProductId(request.getProductId());
         order.setProductName(inventory.getProductName());
         order.setQuantity(request.getQuantity());
         order.setStatus(OrderStatus.PLACED);
         order.setOrderDate(LocalDate.now());
-        order.setReservedBatchIds(reservedBatchIdsStr);
-        Order savedOrder = orderRepository.save(order);
+        order.setReservedBatchIds(allocation.joinBatchIds());
+        Order savedOrder = transactionTemplate.execute(status -> {
+            Order saved = orderRepository.save(order);
+            productDailySalesRepository.add(List.of(new DailySalesDto(
+                    saved.getProductId(), saved.getOrderDate(), 1, saved.getQuantity())));
+            return saved;
+        });
 
         return OrderResponse.builder()
                 .orderId(savedOrder.getOrderId())
@@ -77,8 +114,189 @@ public class DefaultOrderService implements OrderService {
                 .productName(savedOrder.getProductName())
                 .quantity(savedOrder.getQuantity())
                 .status(savedOrder.getStatus().name())
-                .reservedFromBatchIds(reservedBatchIds)
+                .reservedFromBatchIds(allocation.batchIdList())
                 .message("Order placed. Inventory reserved.")
                 .build();
     }
+
+    /**
+     * Reserves every line with one bulk inventory call, which is all-or-nothing
+     * across lines, then stores the header row and its lines in one transaction.
+     */
+    private OrderResponse placeMultiLineOrder(List<OrderLineRequest> lines) {
+        List<ReserveRequest> reserveLines = new ArrayList<>(lines.size());
+        int totalQuantity = 0;
+        for (OrderLineRequest line : lines) {
+            if (line == null || line.getProductId() == null) {
+                throw new IllegalArgumentException("Every order line must have a productId.");
+            }
+            if (line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Order quantity must be greater than zero.");
+            }
+            totalQuantity += line.getQuantity();
+            reserveLines.add(new ReserveRequest(line.getProductId(), line.getQuantity()));
+        }
+
+        BulkReserveResponse reserved = inventoryClient.reserveAll(
+                new BulkReserveRequest(UUID.randomUUID().toString(), reserveLines));
+
+        List<OrderLineResponse> orderLines = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            ReserveResponse line = reserved.getLines().get(i);
+            List<Long> batchIds = line.getBatchUpdates().stream()
+                    .map(BatchUpdateDto::getBatchId)
+                    .collect(Collectors.toList());
+            orderLines.add(new OrderLineResponse(
+                    line.getProductId(), line.getProductName(), lines.get(i).getQuantity(), batchIds));
+        }
+
+        Order order = new Order();
+        order.setQuantity(totalQuantity);
+        order.setStatus(OrderStatus.PLACED);
+        order.setOrderDate(LocalDate.now());
+        Order savedOrder = transactionTemplate.execute(status -> {
+            Order header = orderRepository.save(order);
+            orderLineJdbcRepository.batchInsert(header.getOrderId(), orderLines);
+            productDailySalesRepository.add(salesOf(orderLines, header.getOrderDate()));
+            return header;
+        });
+
+        return OrderResponse.builder()
+                .orderId(savedOrder.getOrderId())
+                .quantity(savedOrder.getQuantity())
+                .status(savedOrder.getStatus().name())
+                .lines(orderLines)
+                .message("Order placed. Inventory reserved for " + orderLines.size() + " lines.")
+                .build();
+    }
+
+    /** One delta per product: the order counts once however many of its lines name the product. */
+    private static List<DailySalesDto> salesOf(List<OrderLineResponse> lines, LocalDate orderDate) {
+        Map<Long, DailySalesDto> byProduct = new LinkedHashMap<>();
+        for (OrderLineResponse line : lines) {
+            DailySalesDto sales = byProduct.computeIfAbsent(
+                    line.getProductId(), id -> new DailySalesDto(id, orderDate, 1, 0));
+            sales.setUnitsSold(sales.getUnitsSold() + line.getQuantity());
+        }
+        return new ArrayList<>(byProduct.values());
+    }
+
+    @Override
+    public OrderPageResponse findOrders(OrderSearchCriteria criteria, String cursor, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (criteria.getFrom() != null && criteria.getTo() != null && criteria.getFrom().isAfter(criteria.getTo())) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        List<OrderSummaryDto> orders = orderRepository.findOrderSummaries(
+                criteria, OrderCursor.decode(cursor), limit + 1);
+
+        String nextCursor = null;
+        if (orders.size() > limit) {
+            orders = orders.subList(0, limit);
+            OrderSummaryDto last = orders.get(limit - 1);
+            nextCursor = new OrderCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        return new OrderPageResponse(orders, nextCursor);
+    }
+
+    /**
+     * Moves the orders to the requested status in chunks. Each chunk is one
+     * transaction: its rows are locked and read with one statement, then updated
+     * with one guarded statement per source status. Chunks commit independently,
+     * so a failure part-way leaves earlier chunks applied.
+     */
+    @Override
+    public OrderStatusUpdateResponse updateStatus(OrderStatusUpdateRequest request) {
+        OrderStatus target = request.getStatus();
+        if (target == null) {
+            throw new IllegalArgumentException("Target status is required.");
+        }
+        boolean byIds = request.getOrderIds() != null && !request.getOrderIds().isEmpty();
+        if (byIds == (request.getFilter() != null)) {
+            throw new IllegalArgumentException("Provide either orderIds or a filter.");
+        }
+
+        List<Long> orderIds;
+        if (byIds) {
+            LinkedHashSet<Long> distinctIds = new LinkedHashSet<>(request.getOrderIds());
+            if (distinctIds.contains(null)) {
+                throw new IllegalArgumentException("orderIds must not contain null.");
+            }
+            orderIds = new ArrayList<>(distinctIds);
+        } else {
+            OrderSearchCriteria filter = request.getFilter();
+            List<OrderStatus> sources = OrderStatus.sourcesOf(target);
+            if (filter.getStatus() != null) {
+                sources = sources.contains(filter.getStatus()) ? List.of(filter.getStatus()) : List.of();
+            }
+            orderIds = orderStatusJdbcRepository.findOrderIds(filter, sources, statusUpdateMaxOrders + 1);
+        }
+        if (orderIds.size() > statusUpdateMaxOrders) {
+            throw new IllegalArgumentException("At most " + statusUpdateMaxOrders + " orders can be updated per request.");
+        }
+
+        List<OrderStatusResult> results = new ArrayList<>(orderIds.size());
+        int updated = 0;
+        for (int start = 0; start < orderIds.size(); start += statusUpdateChunkSize) {
+            List<Long> chunk = orderIds.subList(start, Math.min(start + statusUpdateChunkSize, orderIds.size()));
+            updated += transactionTemplate.execute(status -> transitionChunk(chunk, target, results));
+        }
+        return new OrderStatusUpdateResponse(target, updated, results);
+    }
+
+    private int transitionChunk(List<Long> orderIds, OrderStatus target, List<OrderStatusResult> results) {
+        Map<Long, OrderStatus> current = orderStatusJdbcRepository.lockStatuses(orderIds);
+        Map<OrderStatus, List<Long>> idsBySource = new EnumMap<>(OrderStatus.class);
+        for (Long orderId : orderIds) {
+            OrderStatus status = current.get(orderId);
+            if (status == null) {
+                results.add(new OrderStatusResult(orderId, OrderStatusResult.Outcome.NOT_FOUND, null));
+            } else if (status == target) {
+                results.add(new OrderStatusResult(orderId, OrderStatusResult.Outcome.UNCHANGED, status));
+            } else if (!status.canTransitionTo(target)) {
+                results.add(new OrderStatusResult(orderId, OrderStatusResult.Outcome.INVALID_TRANSITION, status));
+            } else {
+                idsBySource.computeIfAbsent(status, s -> new ArrayList<>()).add(orderId);
+                results.add(new OrderStatusResult(orderId, OrderStatusResult.Outcome.UPDATED, target));
+            }
+        }
+
+        if (target == OrderStatus.CANCELLED) {
+            // Cancelled orders leave the sales aggregate; it still counts them until the update below
+            for (List<Long> cancelled : idsBySource.values()) {
+                productDailySalesRepository.subtractOrders(cancelled);
+            }
+        }
+
+        int updated = 0;
+        for (Map.Entry<OrderStatus, List<Long>> source : idsBySource.entrySet()) {
+            // The rows are locked, so the status guard matches every id read above
+            updated += orderStatusJdbcRepository.updateStatus(source.getValue(), source.getKey(), target);
+        }
+        return updated;
+    }
+
+    /**
+     * Reads per-day sales from the {@code product_daily_sales} aggregate, which is
+     * maintained with every order write, so the cost depends on the number of
+     * products and days asked for, not on the number of orders.
+     */
+    @Override
+    public SalesStatsResponse getDailySales(Long productId, LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        List<DailySalesDto> days = productDailySalesRepository.find(productId, from, to);
+        long totalOrders = 0;
+        long totalUnits = 0;
+        for (DailySalesDto day : days) {
+            totalOrders += day.getOrderCount();
+            totalUnits += day.getUnitsSold();
+        }
+        return new SalesStatsResponse(days, totalOrders, totalUnits);
+    }
 }
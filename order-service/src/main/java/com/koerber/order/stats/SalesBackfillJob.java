@@ -0,0 +1,120 @@
+package com.koerber.order.stats;
+
+import com.koerber.order.dto.DailySalesDto;
+import com.koerber.order.dto.SalesBackfillResponse;
+import com.koerber.order.repository.ProductDailySalesRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rebuilds {@code product_daily_sales} from the order history. The order id range
+ * is cut into chunks that are aggregated in parallel, each with one grouped scan;
+ * the partial results are summed in memory (one entry per product and day) and
+ * swapped in with a single transaction, so readers never see a half-built table.
+ * <p>
+ * Orders placed while the scan runs are above the captured id range; the swap
+ * transaction picks them up with a final tail scan. Ids are taken at insert but
+ * become visible at commit, so an order below the captured maximum may still be
+ * in flight when the parallel chunks run. The newest {@code chunk-size} ids are
+ * therefore left to the tail scan too, which sees every order that has
+ * committed by the swap. Only an order whose transaction stays open while more
+ * than {@code chunk-size} later orders commit and the scan passes it is missed.
+ * Status changes made during the scan to orders already scanned are not
+ * reflected either, so run it while bulk status updates are paused.
+ */
+@Slf4j
+@Component
+public class SalesBackfillJob {
+
+    private final ProductDailySalesRepository productDailySalesRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int threads;
+    private final long chunkSize;
+
+    public SalesBackfillJob(ProductDailySalesRepository productDailySalesRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${order.stats.backfill.threads:4}") int threads,
+                            @Value("${order.stats.backfill.chunk-size:100000}") long chunkSize) {
+        if (threads <= 0 || chunkSize <= 0) {
+            throw new IllegalArgumentException("order.stats.backfill threads and chunk-size must be positive");
+        }
+        this.productDailySalesRepository = productDailySalesRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.threads = threads;
+        this.chunkSize = chunkSize;
+    }
+
+    public synchronized SalesBackfillResponse rebuild() {
+        long started = System.nanoTime();
+        long[] idRange = productDailySalesRepository.orderIdRange();
+        long scannedUpTo = idRange.length == 0 ? 0 : idRange[1] + 1;
+        // The newest ids may belong to orders that have not committed yet; the swap rescans them
+        long tailFrom = idRange.length == 0 ? 0 : Math.max(idRange[0], scannedUpTo - chunkSize);
+
+        List<Future<List<DailySalesDto>>> chunks = new ArrayList<>();
+        Map<SalesKey, long[]> totals = new HashMap<>();
+        if (idRange.length > 0) {
+            AtomicInteger threadIds = new AtomicInteger();
+            ExecutorService workers = Executors.newFixedThreadPool(threads, task -> {
+                Thread thread = new Thread(task, "sales-backfill-" + threadIds.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                for (long from = idRange[0]; from < tailFrom; from += chunkSize) {
+                    long chunkFrom = from;
+                    long chunkTo = Math.min(from + chunkSize, tailFrom);
+                    chunks.add(workers.submit(
+                            () -> productDailySalesRepository.salesOfOrderRange(chunkFrom, chunkTo)));
+                }
+                for (Future<List<DailySalesDto>> chunk : chunks) {
+                    accumulate(totals, chunk.get());
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while rebuilding sales aggregates", ex);
+            } catch (ExecutionException ex) {
+                throw new IllegalStateException("Sales aggregate rebuild failed", ex.getCause());
+            } finally {
+                workers.shutdownNow();
+            }
+        }
+
+        int rows = transactionTemplate.execute(status -> {
+            accumulate(totals, productDailySalesRepository.salesOfOrderRange(tailFrom, Long.MAX_VALUE));
+            List<DailySalesDto> aggregate = new ArrayList<>(totals.size());
+            totals.forEach((key, sums) -> aggregate.add(
+                    new DailySalesDto(key.productId(), key.date(), sums[0], sums[1])));
+            productDailySalesRepository.replaceAll(aggregate);
+            return aggregate.size();
+        });
+
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Rebuilt product_daily_sales: {} rows from {} chunks in {} ms", rows, chunks.size(), elapsedMs);
+        return new SalesBackfillResponse(chunks.size(), rows, elapsedMs);
+    }
+
+    private static void accumulate(Map<SalesKey, long[]> totals, List<DailySalesDto> partial) {
+        for (DailySalesDto sales : partial) {
+            long[] sums = totals.computeIfAbsent(new SalesKey(sales.getProductId(), sales.getDate()), k -> new long[2]);
+            sums[0] += sales.getOrderCount();
+            sums[1] += sales.getUnitsSold();
+        }
+    }
+
+    private record SalesKey(Long productId, LocalDate date) {
+    }
+}
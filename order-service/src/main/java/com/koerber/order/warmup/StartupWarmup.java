@@ -0,0 +1,113 @@
+package com.koerber.order.warmup;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.common.warmup.AbstractStartupWarmup;
+import com.koerber.order.allocation.FefoAllocation;
+import com.koerber.order.allocation.InventoryColumns;
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.dto.InventoryResponse;
+import com.koerber.order.dto.OrderRequest;
+import com.koerber.order.dto.OrderResponse;
+import com.koerber.order.dto.OrderSearchCriteria;
+import com.koerber.order.repository.OrderRepository;
+import com.koerber.order.repository.ProductDailySalesRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the POST /order hot paths in-process at startup so the JIT has compiled
+ * them before the instance takes traffic: streaming a GET /inventory/{productId}
+ * body into columns, FEFO allocation and the update payload it writes,
+ * (de)serialising the order payloads, and the order and sales queries for a
+ * scratch product, which has no rows. Nothing is written and inventory-service
+ * is not called.
+ *
+ * <p>Configured by {@code order.warmup.*}; see {@link AbstractStartupWarmup}.
+ */
+@Component
+public class StartupWarmup extends AbstractStartupWarmup<StartupWarmup.Scratch> {
+
+    private static final int SCRATCH_BATCHES = 8;
+    private static final int ORDER_PAGE = 51;
+
+    private final OrderRepository orderRepository;
+    private final ProductDailySalesRepository productDailySalesRepository;
+    private final ObjectMapper objectMapper;
+    private final long scratchProductId;
+
+    public StartupWarmup(OrderRepository orderRepository,
+                         ProductDailySalesRepository productDailySalesRepository,
+                         ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${order.warmup.enabled:true}") boolean enabled,
+                         @Value("${order.warmup.iterations:2000}") int iterations,
+                         @Value("${order.warmup.max-duration-ms:20000}") long maxDurationMs,
+                         @Value("${order.warmup.scratch-product-id:-1}") long scratchProductId) {
+        super("order", meterRegistry, enabled, iterations, maxDurationMs);
+        this.orderRepository = orderRepository;
+        this.productDailySalesRepository = productDailySalesRepository;
+        this.objectMapper = objectMapper;
+        this.scratchProductId = scratchProductId;
+    }
+
+    @Override
+    protected void iteration(Scratch scratch, int i) throws IOException {
+        // Alternate between stopping early and reading every batch, as orders of different sizes do
+        int quantity = 1 + i % scratch.totalQuantity();
+        int cover = i % 2 == 0 ? quantity : Integer.MAX_VALUE;
+        InventoryColumns inventory;
+        try (JsonParser parser = objectMapper.getFactory().createParser(scratch.inventoryBody())) {
+            inventory = InventoryColumns.read(parser, cover);
+        }
+        FefoAllocation allocation = FefoAllocation.allocate(inventory, quantity);
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            allocation.writeUpdateRequest(json, scratchProductId);
+        }
+
+        OrderRequest request = objectMapper.readValue(scratch.orderBody(), OrderRequest.class);
+        objectMapper.writeValueAsBytes(OrderResponse.builder()
+                .orderId((long) i)
+                .productId(request.getProductId())
+                .productName(inventory.getProductName())
+                .quantity(quantity)
+                .status("PLACED")
+                .reservedFromBatchIds(allocation.batchIdList())
+                .message("Order placed. Inventory reserved.")
+                .build());
+        objectMapper.writeValueAsBytes(scratch.inventory());
+
+        orderRepository.findOrderSummaries(scratch.criteria(), null, ORDER_PAGE);
+        productDailySalesRepository.find(scratchProductId, null, null);
+    }
+
+    @Override
+    protected Scratch prepare() throws IOException {
+        LocalDate today = LocalDate.now();
+        List<BatchDto> batches = new ArrayList<>();
+        int total = 0;
+        for (int i = 0; i < SCRATCH_BATCHES; i++) {
+            int quantity = 10 * (i + 1);
+            batches.add(new BatchDto(-1L - i, quantity, today.plusDays(3L * i)));
+            total += quantity;
+        }
+        InventoryResponse inventory = new InventoryResponse(scratchProductId, "Warm-up", batches);
+        return new Scratch(inventory,
+                objectMapper.writeValueAsBytes(inventory),
+                objectMapper.writeValueAsBytes(new OrderRequest(scratchProductId, 5)),
+                total,
+                new OrderSearchCriteria(scratchProductId, null, null, null));
+    }
+
+    record Scratch(InventoryResponse inventory, byte[] inventoryBody, byte[] orderBody,
+                   int totalQuantity, OrderSearchCriteria criteria) {
+    }
+}
@@ -0,0 +1,72 @@
+package com.koerber.order.allocation;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.order.dto.UpdateInventoryRequest;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class FefoAllocationTest {
+
+    private static final String INVENTORY = """
+            {"productId":1005,"productName":"Smartwatch","batches":[
+              {"batchId":5,"quantity":39,"expiryDate":"2026-03-31"},
+              {"batchId":8,"quantity":0,"expiryDate":"2026-04-01"},
+              {"batchId":7,"quantity":40,"expiryDate":"2026-04-24"},
+              {"batchId":2,"quantity":52,"expiryDate":"2026-05-30"}]}
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void read_shouldStopOnceQuantityIsCoveredAndSkipEmptyBatches() throws IOException {
+        InventoryColumns inventory = read(50);
+
+        assertThat(inventory.getProductName()).isEqualTo("Smartwatch");
+        assertThat(inventory.size()).isEqualTo(2);
+        assertThat(inventory.batchId(1)).isEqualTo(7L);
+        assertThat(inventory.isComplete()).isFalse();
+        assertThat(inventory.covers(79)).isTrue();
+        assertThat(inventory.covers(80)).isFalse();
+    }
+
+    @Test
+    void read_whenQuantityExceedsStock_shouldReadEveryBatch() throws IOException {
+        InventoryColumns inventory = read(500);
+
+        assertThat(inventory.size()).isEqualTo(3);
+        assertThat(inventory.getTotalQuantity()).isEqualTo(131L);
+        assertThat(inventory.isComplete()).isTrue();
+        assertThat(FefoAllocation.allocate(inventory, 500).getAllocated()).isEqualTo(131);
+    }
+
+    @Test
+    void allocate_shouldTakeEarliestExpiryFirstAndWriteUpdateRequest() throws IOException {
+        FefoAllocation allocation = FefoAllocation.allocate(read(50), 50);
+
+        assertThat(allocation.getAllocated()).isEqualTo(50);
+        assertThat(allocation.joinBatchIds()).isEqualTo("5,7");
+        assertThat(allocation.batchIdList()).containsExactly(5L, 7L);
+
+        StringWriter body = new StringWriter();
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(body)) {
+            allocation.writeUpdateRequest(json, 1005L);
+        }
+        UpdateInventoryRequest request = objectMapper.readValue(body.toString(), UpdateInventoryRequest.class);
+        assertThat(request.getProductId()).isEqualTo(1005L);
+        assertThat(request.getBatchUpdates()).extracting("batchId", "quantityToDeduct")
+                .containsExactly(tuple(5L, 39), tuple(7L, 11));
+    }
+
+    private InventoryColumns read(int quantity) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(INVENTORY)) {
+            return InventoryColumns.read(parser, quantity);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.koerber.order.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void nodeFor_spreadsKeysEvenlyAcrossNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(List.of("a", "b", "c", "d"), 160);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long key = 0; key < KEYS; key++) {
+            counts.merge(ring.nodeFor(key), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(4);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(KEYS / 4 * 8 / 10, KEYS / 4 * 12 / 10));
+    }
+
+    @Test
+    void addingNode_remapsOnlyKeysMovingToTheNewNode() {
+        ConsistentHashRing before = new ConsistentHashRing(List.of("a", "b", "c", "d"), 160);
+        ConsistentHashRing after = new ConsistentHashRing(List.of("a", "b", "c", "d", "e"), 160);
+
+        int moved = 0;
+        for (long key = 0; key < KEYS; key++) {
+            String owner = after.nodeFor(key);
+            if (!owner.equals(before.nodeFor(key))) {
+                assertThat(owner).isEqualTo("e");
+                moved++;
+            }
+        }
+
+        // Ideal is 1/5 of the keys
+        assertThat(moved).isBetween(KEYS / 5 * 8 / 10, KEYS / 5 * 12 / 10);
+    }
+}
@@ -0,0 +1,413 @@
+package com.koerber.order.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.koerber.order.dto.AvailabilityResponse;
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.dto.BatchUpdateDto;
+import com.koerber.order.dto.InventoryResponse;
+import com.koerber.order.dto.UpdateInventoryRequest;
+import org.springframework.http.HttpStatus;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for inventory-service over real HTTP/1.1 on a loopback port, for
+ * order-service tests and benchmarks. Serves {@code GET /inventory/{productId}},
+ * {@code GET /inventory/{productId}/available} and {@code POST /inventory/update}
+ * from in-memory stock, with the status codes
+ * the real service uses (404 unknown product, 400 unknown batch or short stock).
+ *
+ * <p>Each request first gets the current {@link InventoryFaults}: a sampled delay,
+ * then possibly a connection reset or an injected error status instead of being
+ * served, and a body dripped out in small chunks. A reset or injected error
+ * leaves the stock untouched, so units deducted always equal updates answered 200.
+ *
+ * <p>Written on a plain {@link ServerSocket} rather than an embedded server so
+ * resets and partial writes are exact. Connections are kept alive and each gets
+ * its own thread.
+ */
+public final class FakeInventoryServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final Set<Socket> openSockets = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Product> products = new ConcurrentHashMap<>();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final Random random;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injectedErrors = new AtomicLong();
+    private final AtomicLong injectedResets = new AtomicLong();
+    private volatile InventoryFaults faults = InventoryFaults.none();
+
+    private FakeInventoryServer(long seed) throws IOException {
+        this.random = new Random(seed);
+        this.serverSocket = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        AtomicInteger threads = new AtomicInteger();
+        this.connections = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "fake-inventory-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        connections.execute(this::accept);
+    }
+
+    public static FakeInventoryServer start() throws IOException {
+        return start(42L);
+    }
+
+    /**
+     * @param seed seeds fault sampling; runs are repeatable as far as request order is
+     */
+    public static FakeInventoryServer start(long seed) throws IOException {
+        return new FakeInventoryServer(seed);
+    }
+
+    /**
+     * Base URL to use as {@code inventory.service.url}.
+     */
+    public String getUrl() {
+        return "http://" + serverSocket.getInetAddress().getHostAddress() + ":" + serverSocket.getLocalPort();
+    }
+
+    /**
+     * Replaces the product's stock. Batches are served in expiry order.
+     */
+    public FakeInventoryServer stock(long productId, String productName, BatchDto... batches) {
+        products.put(productId, new Product(productName, Arrays.asList(batches)));
+        return this;
+    }
+
+    public long getAvailable(long productId) {
+        Product product = products.get(productId);
+        return product == null ? 0 : product.available();
+    }
+
+    public void setFaults(InventoryFaults faults) {
+        this.faults = faults;
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getInjectedErrors() {
+        return injectedErrors.get();
+    }
+
+    public long getInjectedResets() {
+        return injectedResets.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        for (Socket socket : openSockets) {
+            socket.close();
+        }
+        connections.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                openSockets.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                // Closed by close(), or a connection that failed while being accepted
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+            Request request;
+            while ((request = Request.read(in)) != null) {
+                requests.incrementAndGet();
+                if (!respond(socket, request, out) || request.close()) {
+                    return;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Client went away, or the server is shutting down
+        } finally {
+            openSockets.remove(socket);
+        }
+    }
+
+    /**
+     * @return false when the connection was reset and must not be used again
+     */
+    private boolean respond(Socket socket, Request request, OutputStream out) throws IOException, InterruptedException {
+        InventoryFaults current = faults;
+        if (!current.appliesTo(request.path())) {
+            write(out, route(request), 0, 0);
+            return true;
+        }
+
+        long delay = current.latency().nextMillis(random);
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+        if (current.resetRate() > 0 && random.nextDouble() < current.resetRate()) {
+            injectedResets.incrementAndGet();
+            // Linger 0 makes close() send RST instead of FIN
+            socket.setSoLinger(true, 0);
+            socket.close();
+            return false;
+        }
+        Response response;
+        if (current.errorRate() > 0 && random.nextDouble() < current.errorRate()) {
+            injectedErrors.incrementAndGet();
+            response = error(current.errorStatus(), "Injected fault", request.path());
+        } else {
+            response = route(request);
+        }
+        write(out, response, current.dripChunkBytes(), current.dripIntervalMs());
+        return true;
+    }
+
+    private Response route(Request request) throws IOException {
+        String[] segments = request.path().split("/");
+        // "", "inventory", {productId | "update"}, ["available"]
+        if (segments.length < 3 || !segments[1].equals("inventory")) {
+            return error(404, "No route for " + request.path(), request.path());
+        }
+        if (request.method().equals("POST") && segments.length == 3 && segments[2].equals("update")) {
+            UpdateInventoryRequest update = objectMapper.readValue(request.body(), UpdateInventoryRequest.class);
+            Product product = products.get(update.getProductId());
+            if (product == null) {
+                return error(404, "No inventory found for productId: " + update.getProductId(), request.path());
+            }
+            String failure = product.deduct(update.getBatchUpdates());
+            return failure == null ? new Response(200, new byte[0]) : error(400, failure, request.path());
+        }
+        if (request.method().equals("GET")) {
+            long productId;
+            try {
+                productId = Long.parseLong(segments[2]);
+            } catch (NumberFormatException e) {
+                return error(400, "Invalid productId: " + segments[2], request.path());
+            }
+            Product product = products.get(productId);
+            if (product == null) {
+                return error(404, "No inventory found for productId: " + productId, request.path());
+            }
+            if (segments.length == 3) {
+                return json(200, new InventoryResponse(productId, product.name, product.snapshot()));
+            }
+            if (segments.length == 4 && segments[3].equals("available")) {
+                return json(200, new AvailabilityResponse(productId, product.available()));
+            }
+        }
+        return error(404, "No route for " + request.method() + " " + request.path(), request.path());
+    }
+
+    private Response json(int status, Object body) throws IOException {
+        return new Response(status, objectMapper.writeValueAsBytes(body));
+    }
+
+    private Response error(int status, String message, String path) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", status);
+        body.put("error", HttpStatus.valueOf(status).getReasonPhrase());
+        body.put("message", message);
+        body.put("path", path);
+        return json(status, body);
+    }
+
+    private static void write(OutputStream out, Response response, int dripChunkBytes, long dripIntervalMs)
+            throws IOException, InterruptedException {
+        String head = "HTTP/1.1 " + response.status() + " " + HttpStatus.valueOf(response.status()).getReasonPhrase()
+                + "\r\nContent-Type: application/json\r\nContent-Length: " + response.body().length + "\r\n\r\n";
+        out.write(head.getBytes(StandardCharsets.ISO_8859_1));
+        byte[] body = response.body();
+        if (dripChunkBytes <= 0) {
+            out.write(body);
+            out.flush();
+            return;
+        }
+        out.flush();
+        for (int offset = 0; offset < body.length; offset += dripChunkBytes) {
+            Thread.sleep(dripIntervalMs);
+            out.write(body, offset, Math.min(dripChunkBytes, body.length - offset));
+            out.flush();
+        }
+    }
+
+    private record Request(String method, String path, byte[] body, boolean close) {
+
+        /**
+         * @return the next request on the connection, or null once the client has closed it
+         */
+        static Request read(InputStream in) throws IOException {
+            String requestLine = readLine(in);
+            if (requestLine == null || requestLine.isEmpty()) {
+                return null;
+            }
+            String[] parts = requestLine.split(" ");
+            if (parts.length < 2) {
+                throw new SocketException("Malformed request line: " + requestLine);
+            }
+            int contentLength = 0;
+            boolean chunked = false;
+            boolean close = false;
+            String header;
+            while ((header = readLine(in)) != null && !header.isEmpty()) {
+                int colon = header.indexOf(':');
+                if (colon < 0) {
+                    continue;
+                }
+                String name = header.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+                String value = header.substring(colon + 1).trim();
+                if (name.equals("content-length")) {
+                    contentLength = Integer.parseInt(value);
+                } else if (name.equals("transfer-encoding")) {
+                    chunked = value.equalsIgnoreCase("chunked");
+                } else if (name.equals("connection")) {
+                    close = value.equalsIgnoreCase("close");
+                }
+            }
+            String path = parts[1];
+            int query = path.indexOf('?');
+            byte[] body = chunked ? readChunked(in) : in.readNBytes(contentLength);
+            return new Request(parts[0], query < 0 ? path : path.substring(0, query), body, close);
+        }
+
+        /**
+         * Streamed request bodies (e.g. the update payload written straight from the
+         * allocation) arrive with chunked transfer encoding.
+         */
+        private static byte[] readChunked(InputStream in) throws IOException {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            while (true) {
+                String sizeLine = readLine(in);
+                if (sizeLine == null) {
+                    throw new SocketException("Connection closed inside a chunked body");
+                }
+                int extension = sizeLine.indexOf(';');
+                int size = Integer.parseInt((extension < 0 ? sizeLine : sizeLine.substring(0, extension)).trim(), 16);
+                if (size == 0) {
+                    // Skip trailers up to the blank line that ends the body
+                    String trailer;
+                    while ((trailer = readLine(in)) != null && !trailer.isEmpty()) {
+                        // ignored
+                    }
+                    return body.toByteArray();
+                }
+                body.write(in.readNBytes(size));
+                readLine(in);
+            }
+        }
+
+        private static String readLine(InputStream in) throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == '\n') {
+                    break;
+                }
+                if (b != '\r') {
+                    line.write(b);
+                }
+            }
+            return b == -1 && line.size() == 0 ? null : line.toString(StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    private record Response(int status, byte[] body) {
+    }
+
+    private static final class Product {
+
+        private final String name;
+        private final List<BatchDto> batches;
+
+        Product(String name, List<BatchDto> batches) {
+            this.name = name;
+            this.batches = new ArrayList<>();
+            for (BatchDto batch : batches) {
+                this.batches.add(new BatchDto(batch.getBatchId(), batch.getQuantity(), batch.getExpiryDate()));
+            }
+            this.batches.sort(Comparator.comparing(BatchDto::getExpiryDate));
+        }
+
+        synchronized List<BatchDto> snapshot() {
+            List<BatchDto> copy = new ArrayList<>(batches.size());
+            for (BatchDto batch : batches) {
+                copy.add(new BatchDto(batch.getBatchId(), batch.getQuantity(), batch.getExpiryDate()));
+            }
+            return copy;
+        }
+
+        synchronized long available() {
+            long total = 0;
+            for (BatchDto batch : batches) {
+                total += batch.getQuantity();
+            }
+            return total;
+        }
+
+        /**
+         * Applies all deductions or none, like the real service's transaction.
+         *
+         * @return the reason nothing was applied, or null
+         */
+        synchronized String deduct(List<BatchUpdateDto> updates) {
+            if (updates == null) {
+                return "batchUpdates must not be null";
+            }
+            Map<Long, BatchDto> byId = new LinkedHashMap<>();
+            for (BatchDto batch : batches) {
+                byId.put(batch.getBatchId(), batch);
+            }
+            Map<Long, Integer> after = new LinkedHashMap<>();
+            for (BatchUpdateDto update : updates) {
+                BatchDto batch = byId.get(update.getBatchId());
+                if (batch == null) {
+                    return "Batch not found: " + update.getBatchId();
+                }
+                int quantity = after.getOrDefault(batch.getBatchId(), batch.getQuantity())
+                        - update.getQuantityToDeduct();
+                if (quantity < 0) {
+                    return "Insufficient quantity in batch " + batch.getBatchId();
+                }
+                after.put(batch.getBatchId(), quantity);
+            }
+            after.forEach((batchId, quantity) -> byId.get(batchId).setQuantity(quantity));
+            return null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.koerber.order.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.order.allocation.FefoAllocation;
+import com.koerber.order.allocation.InventoryColumns;
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.replica.InventoryReplica;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * {@link InventoryClient} over real HTTP against a degraded {@link FakeInventoryServer}.
+ */
+class InventoryClientFaultTest {
+
+    private static final long PRODUCT_ID = 7001L;
+
+    private FakeInventoryServer server;
+    private InventoryShardRouter router;
+    private InventoryClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = FakeInventoryServer.start();
+        server.stock(PRODUCT_ID, "Thermometer",
+                new BatchDto(2L, 30, LocalDate.of(2026, 9, 1)),
+                new BatchDto(1L, 10, LocalDate.of(2026, 6, 1)));
+        router = new InventoryShardRouter(List.of(server.getUrl()), 160, 1);
+        client = new InventoryClient(new RestTemplate(), new InventoryReplica(), router, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        router.shutdown();
+        server.close();
+    }
+
+    @Test
+    void getAndUpdate_shouldDeductFromFakeStockInExpiryOrder() {
+        InventoryColumns inventory = client.getInventory(PRODUCT_ID, 15);
+        FefoAllocation allocation = FefoAllocation.allocate(inventory, 15);
+        client.updateInventory(PRODUCT_ID, allocation);
+
+        assertThat(allocation.batchIdList()).containsExactly(1L, 2L);
+        assertThat(server.getAvailable(PRODUCT_ID)).isEqualTo(25);
+        assertThat(client.getAvailability(PRODUCT_ID).getAvailableQuantity()).isEqualTo(25);
+    }
+
+    @Test
+    void getInventory_withLatencyAndSlowDrip_shouldStillParseButTakeAsLong() {
+        server.setFaults(InventoryFaults.none()
+                .withLatency(InventoryFaults.Latency.fixed(50))
+                .withSlowDrip(16, 10));
+
+        long started = System.nanoTime();
+        InventoryColumns inventory = client.getInventory(PRODUCT_ID, Integer.MAX_VALUE);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+
+        assertThat(inventory.getProductName()).isEqualTo("Thermometer");
+        assertThat(inventory.getTotalQuantity()).isEqualTo(40);
+        // 50 ms latency plus one 10 ms pause per 16-byte chunk of a ~170 byte body
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(150);
+    }
+
+    @Test
+    void updateInventory_whenInventoryFailsOrResets_shouldThrowAndLeaveStockUntouched() {
+        FefoAllocation allocation = FefoAllocation.allocate(client.getInventory(PRODUCT_ID, 5), 5);
+
+        server.setFaults(InventoryFaults.none().withErrors(1.0, 503).onPathsEndingWith("/update"));
+        assertThatThrownBy(() -> client.updateInventory(PRODUCT_ID, allocation))
+                .isInstanceOf(HttpServerErrorException.ServiceUnavailable.class);
+
+        server.setFaults(InventoryFaults.none().withResets(1.0).onPathsEndingWith("/update"));
+        assertThatThrownBy(() -> client.updateInventory(PRODUCT_ID, allocation))
+                .isInstanceOf(ResourceAccessException.class);
+
+        assertThat(server.getInjectedErrors()).isEqualTo(1);
+        assertThat(server.getInjectedResets()).isGreaterThanOrEqualTo(1);
+        assertThat(server.getAvailable(PRODUCT_ID)).isEqualTo(40);
+
+        server.setFaults(InventoryFaults.none());
+        client.updateInventory(PRODUCT_ID, allocation);
+        assertThat(server.getAvailable(PRODUCT_ID)).isEqualTo(35);
+    }
+}
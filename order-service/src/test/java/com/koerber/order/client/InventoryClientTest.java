@@ -0,0 +1,166 @@
+package com.koerber.order.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.order.dto.BatchUpdateDto;
+import com.koerber.order.dto.BulkReserveRequest;
+import com.koerber.order.dto.BulkReserveResponse;
+import com.koerber.order.dto.ReleaseRequest;
+import com.koerber.order.dto.ReserveRequest;
+import com.koerber.order.dto.ReserveResponse;
+import com.koerber.order.exception.InsufficientInventoryException;
+import com.koerber.order.replica.InventoryReplica;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryClientTest {
+
+    private static final String SHARD_A = "http://inventory-a";
+    private static final String SHARD_B = "http://inventory-b";
+
+    @Mock
+    private RestTemplate restTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private InventoryShardRouter router;
+    private InventoryClient client;
+
+    private long productOnA;
+    private long productOnB;
+
+    @BeforeEach
+    void setUp() {
+        router = new InventoryShardRouter(List.of(SHARD_A, SHARD_B), 160, 2);
+        client = new InventoryClient(restTemplate, new InventoryReplica(), router, objectMapper);
+        productOnA = firstProductOn(SHARD_A);
+        productOnB = firstProductOn(SHARD_B);
+    }
+
+    @AfterEach
+    void tearDown() {
+        router.shutdown();
+    }
+
+    @Test
+    void reserveAll_acrossShards_callsEachShardOnceAndKeepsRequestOrder() {
+        stubShard(SHARD_A, productOnA);
+        stubShard(SHARD_B, productOnB);
+
+        BulkReserveResponse response = client.reserveAll(new BulkReserveRequest("order-1", List.of(
+                new ReserveRequest(productOnB, 1), new ReserveRequest(productOnA, 2))));
+
+        assertThat(response.getLines()).extracting(ReserveResponse::getProductId)
+                .containsExactly(productOnB, productOnA);
+        verify(restTemplate).postForObject(eq(SHARD_A + "/inventory/reserve/bulk"), any(), eq(BulkReserveResponse.class));
+        verify(restTemplate).postForObject(eq(SHARD_B + "/inventory/reserve/bulk"), any(), eq(BulkReserveResponse.class));
+    }
+
+    @Test
+    void reserveAll_whenOneShardIsShort_releasesTheOtherShard() {
+        stubShard(SHARD_A, productOnA);
+        when(restTemplate.postForObject(eq(SHARD_B + "/inventory/reserve/bulk"), any(), eq(BulkReserveResponse.class)))
+                .thenThrow(new InsufficientInventoryException("Insufficient inventory for productId: " + productOnB));
+
+        assertThatThrownBy(() -> client.reserveAll(new BulkReserveRequest("order-1", List.of(
+                new ReserveRequest(productOnA, 2), new ReserveRequest(productOnB, 1)))))
+                .isInstanceOf(InsufficientInventoryException.class);
+
+        verify(restTemplate).postForEntity(eq(SHARD_A + "/inventory/release"),
+                eq(new ReleaseRequest("order-1")), eq(Void.class));
+        verify(restTemplate, never()).postForEntity(eq(SHARD_B + "/inventory/release"), any(), eq(Void.class));
+    }
+
+    @Test
+    void reserveAll_whenAShardTimesOut_releasesItAsWell() {
+        stubShard(SHARD_A, productOnA);
+        when(restTemplate.postForObject(eq(SHARD_B + "/inventory/reserve/bulk"), any(), eq(BulkReserveResponse.class)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        assertThatThrownBy(() -> client.reserveAll(new BulkReserveRequest("order-2", List.of(
+                new ReserveRequest(productOnA, 2), new ReserveRequest(productOnB, 1)))))
+                .isInstanceOf(ResourceAccessException.class);
+
+        // Shard B may have committed before the timeout; releasing an id it never reserved is harmless
+        verify(restTemplate).postForEntity(eq(SHARD_A + "/inventory/release"),
+                eq(new ReleaseRequest("order-2")), eq(Void.class));
+        verify(restTemplate).postForEntity(eq(SHARD_B + "/inventory/release"),
+                eq(new ReleaseRequest("order-2")), eq(Void.class));
+    }
+
+    @Test
+    void reserveAll_onOneShard_whenItTimesOut_releasesIt() {
+        when(restTemplate.postForObject(eq(SHARD_A + "/inventory/reserve/bulk"), any(), eq(BulkReserveResponse.class)))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        assertThatThrownBy(() -> client.reserveAll(new BulkReserveRequest("order-3",
+                List.of(new ReserveRequest(productOnA, 2)))))
+                .isInstanceOf(ResourceAccessException.class);
+
+        verify(restTemplate).postForEntity(eq(SHARD_A + "/inventory/release"),
+                eq(new ReleaseRequest("order-3")), eq(Void.class));
+    }
+
+    @Test
+    void reserveAll_whenShardRejects_propagatesTheShardsMessage() {
+        // The body inventory's GlobalExceptionHandler writes for a shortfall
+        HttpClientErrorException rejected = unprocessable("{\"status\":422,\"error\":\"Unprocessable Entity\","
+                + "\"message\":\"Insufficient inventory for productId: " + productOnA + "\"}");
+        when(restTemplate.postForObject(eq(SHARD_A + "/inventory/reserve/bulk"), any(), eq(BulkReserveResponse.class)))
+                .thenThrow(rejected);
+
+        assertThatThrownBy(() -> client.reserveAll(new BulkReserveRequest("order-4",
+                List.of(new ReserveRequest(productOnA, 2)))))
+                .isInstanceOf(InsufficientInventoryException.class)
+                .hasMessage("Insufficient inventory for productId: " + productOnA);
+        verify(restTemplate, never()).postForEntity(eq(SHARD_A + "/inventory/release"), any(), eq(Void.class));
+    }
+
+    private HttpClientErrorException unprocessable(String body) {
+        HttpClientErrorException ex = HttpClientErrorException.create(HttpStatus.UNPROCESSABLE_ENTITY,
+                "Unprocessable Entity", HttpHeaders.EMPTY, body.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+        // RestTemplate's error handler sets this; a hand-made exception needs its own
+        ex.setBodyConvertFunction(type -> {
+            try {
+                return objectMapper.readValue(body, objectMapper.constructType(type.getType()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ex;
+    }
+
+    private void stubShard(String shard, long productId) {
+        when(restTemplate.postForObject(eq(shard + "/inventory/reserve/bulk"), any(), eq(BulkReserveResponse.class)))
+                .thenReturn(new BulkReserveResponse(List.of(new ReserveResponse(
+                        productId, "Product " + productId, "DEFAULT", List.of(new BatchUpdateDto(productId, 1))))));
+    }
+
+    private long firstProductOn(String shard) {
+        long productId = 1000;
+        while (!router.urlFor(productId).equals(shard)) {
+            productId++;
+        }
+        return productId;
+    }
+}
@@ -0,0 +1,86 @@
+package com.koerber.order.client;
+
+import java.util.Random;
+
+/**
+ * Degradations a {@link FakeInventoryServer} applies to the requests it serves.
+ * Immutable; swap the whole set with {@link FakeInventoryServer#setFaults} to
+ * degrade or recover mid-test.
+ *
+ * @param latency        delay before each request is answered (or reset)
+ * @param errorRate      fraction of requests answered with {@code errorStatus} instead of being served
+ * @param errorStatus    HTTP status of injected errors
+ * @param resetRate      fraction of requests whose connection is reset (RST) without a response
+ * @param dripChunkBytes when positive, response bodies are written in chunks of this size ...
+ * @param dripIntervalMs ... with this pause between chunks
+ * @param pathSuffix     faults apply only to request paths ending with this, or to all when null
+ */
+public record InventoryFaults(Latency latency, double errorRate, int errorStatus, double resetRate,
+                              int dripChunkBytes, long dripIntervalMs, String pathSuffix) {
+
+    public static InventoryFaults none() {
+        return new InventoryFaults(Latency.NONE, 0, 503, 0, 0, 0, null);
+    }
+
+    public InventoryFaults withLatency(Latency latency) {
+        return new InventoryFaults(latency, errorRate, errorStatus, resetRate, dripChunkBytes, dripIntervalMs, pathSuffix);
+    }
+
+    public InventoryFaults withErrors(double rate, int status) {
+        return new InventoryFaults(latency, rate, status, resetRate, dripChunkBytes, dripIntervalMs, pathSuffix);
+    }
+
+    public InventoryFaults withResets(double rate) {
+        return new InventoryFaults(latency, errorRate, errorStatus, rate, dripChunkBytes, dripIntervalMs, pathSuffix);
+    }
+
+    public InventoryFaults withSlowDrip(int chunkBytes, long intervalMs) {
+        return new InventoryFaults(latency, errorRate, errorStatus, resetRate, chunkBytes, intervalMs, pathSuffix);
+    }
+
+    /**
+     * Restricts these faults to one endpoint, e.g. {@code "/update"}; other requests are served normally.
+     */
+    public InventoryFaults onPathsEndingWith(String suffix) {
+        return new InventoryFaults(latency, errorRate, errorStatus, resetRate, dripChunkBytes, dripIntervalMs, suffix);
+    }
+
+    boolean appliesTo(String path) {
+        return pathSuffix == null || path.endsWith(pathSuffix);
+    }
+
+    /**
+     * Response delay distribution, sampled once per request.
+     */
+    @FunctionalInterface
+    public interface Latency {
+
+        Latency NONE = random -> 0;
+
+        long nextMillis(Random random);
+
+        static Latency fixed(long millis) {
+            return random -> millis;
+        }
+
+        static Latency uniform(long minMillis, long maxMillis) {
+            return random -> minMillis + (long) (random.nextDouble() * (maxMillis - minMillis));
+        }
+
+        /**
+         * Right-skewed delays around {@code medianMillis}; {@code sigma} around 0.5-1 gives
+         * the long tail of a loaded service.
+         */
+        static Latency logNormal(double medianMillis, double sigma) {
+            return random -> Math.round(Math.exp(Math.log(medianMillis) + sigma * random.nextGaussian()));
+        }
+
+        /**
+         * Usually {@code fast}, but {@code slow} for a {@code slowRate} fraction of requests,
+         * e.g. GC pauses or a cold cache on the inventory side.
+         */
+        static Latency bimodal(Latency fast, Latency slow, double slowRate) {
+            return random -> random.nextDouble() < slowRate ? slow.nextMillis(random) : fast.nextMillis(random);
+        }
+    }
+}
@@ -1,21 +1,39 @@
 package com.koerber.order.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.common.sql.SqlStatistics;
+import com.koerber.common.sql.SqlStatisticsFilter;
+import com.koerber.order.allocation.FefoAllocation;
+import com.koerber.order.allocation.InventoryColumns;
 import com.koerber.order.client.InventoryClient;
 import com.koerber.order.dto.*;
+import com.koerber.order.model.OrderStatus;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
 import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -29,21 +47,37 @@ class OrderControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @MockBean
     private InventoryClient inventoryClient;
 
+    @Test
+    void warmup_shouldHaveCompletedBeforeReadinessIsReported() throws Exception {
+        mockMvc.perform(get("/actuator/warmup"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("COMPLETED"))
+                .andExpect(jsonPath("$.iterations").value(2000));
+
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+
     @Test
     void placeOrder_shouldReturn201WithOrderDetails() throws Exception {
         InventoryResponse inventory = new InventoryResponse(1002L, "Smartphone", List.of(
                 new BatchDto(9L, 29, LocalDate.of(2026, 5, 31)),
                 new BatchDto(10L, 83, LocalDate.of(2026, 11, 15))
         ));
-        when(inventoryClient.getInventory(1002L)).thenReturn(inventory);
-        doNothing().when(inventoryClient).updateInventory(any());
+        when(inventoryClient.getAvailability(1002L)).thenReturn(new AvailabilityResponse(1002L, 112L));
+        when(inventoryClient.getInventory(eq(1002L), anyInt())).thenReturn(InventoryColumns.of(inventory));
+        doNothing().when(inventoryClient).updateInventory(any(), any());
 
         OrderRequest request = new OrderRequest(1002L, 3);
 
-        mockMvc.perform(post("/order")
+        MvcResult result = mockMvc.perform(post("/order")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated())
@@ -52,9 +86,34 @@ class OrderControllerIntegrationTest {
                 .andExpect(jsonPath("$.quantity").value(3))
                 .andExpect(jsonPath("$.status").value("PLACED"))
                 .andExpect(jsonPath("$.reservedFromBatchIds[0]").value(9))
-                .andExpect(jsonPath("$.message").value("Order placed. Inventory reserved."));
+                .andExpect(jsonPath("$.message").value("Order placed. Inventory reserved."))
+                .andReturn();
+
+        verify(inventoryClient).updateInventory(eq(1002L), any(FefoAllocation.class));
+        // The order insert plus the sales aggregate upsert
+        assertThat(sqlStatements(result), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    void placeOrder_shouldJoinIncomingTraceAndRecordCriticalPathSpans() throws Exception {
+        InventoryResponse inventory = new InventoryResponse(1003L, "Tablet", List.of(
+                new BatchDto(4L, 35, LocalDate.of(2026, 9, 3))));
+        when(inventoryClient.getAvailability(1003L)).thenReturn(new AvailabilityResponse(1003L, 35L));
+        when(inventoryClient.getInventory(eq(1003L), anyInt())).thenReturn(InventoryColumns.of(inventory));
+        String traceId = "4bf92f3577b34da6a3ce929d0e0e4736";
 
-        verify(inventoryClient).updateInventory(any(UpdateInventoryRequest.class));
+        mockMvc.perform(post("/order")
+                        .header("traceparent", "00-" + traceId + "-00f067aa0ba902b7-01")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new OrderRequest(1003L, 1))))
+                .andExpect(status().isCreated())
+                .andExpect(header().string("traceparent", startsWith("00-" + traceId + "-")));
+
+        mockMvc.perform(get("/traces/" + traceId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("POST /order"))
+                .andExpect(jsonPath("$[0].parentSpanId").value("00f067aa0ba902b7"))
+                .andExpect(jsonPath("$[*].name", hasItems("order.allocate", "orderRepository.save")));
     }
 
     @Test
@@ -62,7 +121,8 @@ class OrderControllerIntegrationTest {
         InventoryResponse inventory = new InventoryResponse(1001L, "Laptop", List.of(
                 new BatchDto(1L, 5, LocalDate.of(2026, 6, 25))
         ));
-        when(inventoryClient.getInventory(1001L)).thenReturn(inventory);
+        when(inventoryClient.getAvailability(1001L)).thenReturn(new AvailabilityResponse(1001L, 5L));
+        when(inventoryClient.getInventory(eq(1001L), anyInt())).thenReturn(InventoryColumns.of(inventory));
 
         OrderRequest request = new OrderRequest(1001L, 100);
 
@@ -71,6 +131,9 @@ class OrderControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isUnprocessableEntity())
                 .andExpect(jsonPath("$.error").exists());
+
+        // The availability counter rejects the order before any batches are transferred
+        verify(inventoryClient, never()).getInventory(eq(1001L), anyInt());
     }
 
     @Test
@@ -82,4 +145,218 @@ class OrderControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
     }
+
+    @Test
+    void placeOrder_multiLine_shouldPersistHeaderAndLines() throws Exception {
+        when(inventoryClient.reserveAll(any())).thenReturn(new BulkReserveResponse(List.of(
+                new ReserveResponse(1002L, "Smartphone", "DEFAULT", List.of(new BatchUpdateDto(9L, 4))),
+                new ReserveResponse(1004L, "Headphones", "DEFAULT", List.of(new BatchUpdateDto(6L, 1))))));
+        OrderRequest request = new OrderRequest(List.of(
+                new OrderLineRequest(1002L, 4), new OrderLineRequest(1004L, 1)));
+
+        MvcResult result = mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.quantity").value(5))
+                .andExpect(jsonPath("$.lines", hasSize(2)))
+                .andExpect(jsonPath("$.lines[1].productName").value("Headphones"))
+                .andReturn();
+
+        long orderId = objectMapper.readTree(result.getResponse().getContentAsString()).get("orderId").asLong();
+        List<String> stored = jdbcTemplate.queryForList(
+                "SELECT product_name || ':' || reserved_batch_ids FROM order_line WHERE order_id = ? ORDER BY line_no",
+                String.class, orderId);
+        assertThat(stored, contains("Smartphone:9", "Headphones:6"));
+        // Header insert, one JDBC batch for all lines and one for the sales aggregate
+        assertThat(sqlStatements(result), lessThanOrEqualTo(3));
+    }
+
+    @Test
+    void findOrders_byProduct_shouldPageNewestFirstWithCursor() throws Exception {
+        MvcResult firstPage = mockMvc.perform(get("/order")
+                        .param("productId", "1005")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(2)))
+                .andExpect(jsonPath("$.orders[0].orderId").value(1))
+                .andExpect(jsonPath("$.orders[0].orderDate").value("2025-12-04"))
+                .andExpect(jsonPath("$.orders[1].orderId").value(3))
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn();
+
+        String cursor = objectMapper.readTree(firstPage.getResponse().getContentAsString())
+                .get("nextCursor").asText();
+
+        mockMvc.perform(get("/order")
+                        .param("productId", "1005")
+                        .param("limit", "2")
+                        .param("cursor", cursor))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(1)))
+                .andExpect(jsonPath("$.orders[0].orderId").value(6))
+                .andExpect(jsonPath("$.nextCursor").value(nullValue()));
+    }
+
+    @Test
+    void findOrders_byStatusAndDateRange_shouldApplyAllFilters() throws Exception {
+        mockMvc.perform(get("/order")
+                        .param("status", "DELIVERED")
+                        .param("from", "2025-11-15")
+                        .param("to", "2025-11-30"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(2)))
+                .andExpect(jsonPath("$.orders[0].orderId").value(7))
+                .andExpect(jsonPath("$.orders[1].orderId").value(5));
+    }
+
+    @Test
+    void findOrders_withInvalidCursor_shouldReturn400() throws Exception {
+        mockMvc.perform(get("/order").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void updateStatus_byIds_shouldReportOutcomePerOrderAndUpdateInOneStatement() throws Exception {
+        insertOrder(900001L, 9101L, "PLACED");
+        insertOrder(900002L, 9101L, "DELIVERED");
+        insertOrder(900003L, 9101L, "SHIPPED");
+        OrderStatusUpdateRequest request = new OrderStatusUpdateRequest(
+                List.of(900001L, 900002L, 900003L, 999999L), null, OrderStatus.SHIPPED);
+
+        MvcResult result = mockMvc.perform(post("/order/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.results[0].outcome").value("UPDATED"))
+                .andExpect(jsonPath("$.results[1].outcome").value("INVALID_TRANSITION"))
+                .andExpect(jsonPath("$.results[1].status").value("DELIVERED"))
+                .andExpect(jsonPath("$.results[2].outcome").value("UNCHANGED"))
+                .andExpect(jsonPath("$.results[3].outcome").value("NOT_FOUND"))
+                .andReturn();
+
+        assertThat(orderStatus(900001L), is("SHIPPED"));
+        assertThat(orderStatus(900002L), is("DELIVERED"));
+        // One locking read and one UPDATE for the whole chunk
+        assertThat(sqlStatements(result), lessThanOrEqualTo(2));
+    }
+
+    @Test
+    void updateStatus_byFilter_shouldOnlyTouchOrdersThatCanTransition() throws Exception {
+        insertOrder(900011L, 9102L, "PLACED");
+        insertOrder(900012L, 9102L, "PLACED");
+        insertOrder(900013L, 9102L, "DELIVERED");
+        OrderStatusUpdateRequest request = new OrderStatusUpdateRequest(
+                null, new OrderSearchCriteria(9102L, null, null, null), OrderStatus.CANCELLED);
+
+        mockMvc.perform(post("/order/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(2))
+                .andExpect(jsonPath("$.results", hasSize(2)));
+
+        assertThat(orderStatus(900012L), is("CANCELLED"));
+        assertThat(orderStatus(900013L), is("DELIVERED"));
+    }
+
+    @Test
+    void productFilters_shouldMatchMultiLineOrdersByTheirLines() throws Exception {
+        insertOrder(900021L, null, "PLACED");
+        jdbcTemplate.update("INSERT INTO order_line (order_id, line_no, product_id, product_name, quantity)"
+                + " VALUES (900021, 1, 9103, 'Status test', 1), (900021, 2, 9104, 'Other', 1)");
+
+        mockMvc.perform(get("/order").param("productId", "9104"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orders", hasSize(1)))
+                .andExpect(jsonPath("$.orders[0].orderId").value(900021));
+
+        OrderStatusUpdateRequest request = new OrderStatusUpdateRequest(
+                null, new OrderSearchCriteria(9103L, null, null, null), OrderStatus.SHIPPED);
+        mockMvc.perform(post("/order/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(1));
+
+        assertThat(orderStatus(900021L), is("SHIPPED"));
+    }
+
+    @Test
+    void updateStatus_withoutTargetStatus_shouldReturn400() throws Exception {
+        mockMvc.perform(post("/order/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"orderIds\":[1]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getDailySales_shouldReadSeededAggregateInOneStatement() throws Exception {
+        MvcResult result = mockMvc.perform(get("/order/stats").param("productId", "1005"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days", hasSize(3)))
+                .andExpect(jsonPath("$.days[0].date").value("2025-11-13"))
+                .andExpect(jsonPath("$.days[0].unitsSold").value(9))
+                .andExpect(jsonPath("$.totalOrders").value(3))
+                .andExpect(jsonPath("$.totalUnits").value(31))
+                .andReturn();
+
+        assertThat(sqlStatements(result), lessThanOrEqualTo(1));
+    }
+
+    @Test
+    void dailySales_shouldFollowPlacementAndCancellationAndSurviveRebuild() throws Exception {
+        InventoryResponse inventory = new InventoryResponse(9201L, "Stats widget", List.of(
+                new BatchDto(901L, 50, LocalDate.of(2026, 12, 31))));
+        when(inventoryClient.getAvailability(9201L)).thenReturn(new AvailabilityResponse(9201L, 50L));
+        when(inventoryClient.getInventory(eq(9201L), anyInt())).thenReturn(InventoryColumns.of(inventory));
+
+        placeOrderId(new OrderRequest(9201L, 4));
+        long cancelled = placeOrderId(new OrderRequest(9201L, 6));
+        mockMvc.perform(get("/order/stats").param("productId", "9201"))
+                .andExpect(jsonPath("$.totalOrders").value(2))
+                .andExpect(jsonPath("$.totalUnits").value(10));
+
+        mockMvc.perform(post("/order/status")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new OrderStatusUpdateRequest(
+                                List.of(cancelled), null, OrderStatus.CANCELLED))))
+                .andExpect(jsonPath("$.updated").value(1));
+        mockMvc.perform(get("/order/stats").param("productId", "9201"))
+                .andExpect(jsonPath("$.totalOrders").value(1))
+                .andExpect(jsonPath("$.totalUnits").value(4));
+
+        mockMvc.perform(post("/order/stats/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rows").isNumber());
+        mockMvc.perform(get("/order/stats").param("productId", "9201"))
+                .andExpect(jsonPath("$.days", hasSize(1)))
+                .andExpect(jsonPath("$.totalUnits").value(4));
+        mockMvc.perform(get("/order/stats").param("productId", "1005"))
+                .andExpect(jsonPath("$.totalUnits").value(31));
+    }
+
+    private long placeOrderId(OrderRequest request) throws Exception {
+        MvcResult result = mockMvc.perform(post("/order")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return objectMapper.readTree(result.getResponse().getContentAsString()).get("orderId").asLong();
+    }
+
+    private void insertOrder(Long orderId, Long productId, String status) {
+        jdbcTemplate.update("INSERT INTO orders (order_id, product_id, product_name, quantity, status, order_date)"
+                + " VALUES (?, ?, 'Status test', 1, ?, DATE '2024-01-01')", orderId, productId, status);
+    }
+
+    private String orderStatus(Long orderId) {
+        return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE order_id = ?", String.class, orderId);
+    }
+
+    private static int sqlStatements(MvcResult result) {
+        return ((SqlStatistics) result.getRequest().getAttribute(SqlStatisticsFilter.STATISTICS_ATTRIBUTE))
+                .getStatements();
+    }
 }
@@ -0,0 +1,113 @@
+package com.koerber.order.controller;
+
+import com.koerber.order.client.FakeInventoryServer;
+import com.koerber.order.client.InventoryFaults;
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.dto.OrderRequest;
+import com.koerber.order.dto.OrderResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * POST /order over real HTTP against a {@link FakeInventoryServer} that degrades.
+ * Runs in its own context and database so the fake's stock is the only stock.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class OrderInventoryDegradationIntegrationTest {
+
+    private static final FakeInventoryServer INVENTORY = startInventory();
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static FakeInventoryServer startInventory() {
+        try {
+            return FakeInventoryServer.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void inventoryProperties(DynamicPropertyRegistry registry) {
+        registry.add("inventory.service.url", INVENTORY::getUrl);
+        registry.add("spring.datasource.url",
+                () -> "jdbc:h2:mem:orderdb-degraded;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE");
+        registry.add("order.warmup.iterations", () -> 200);
+    }
+
+    @AfterAll
+    static void stopInventory() throws IOException {
+        INVENTORY.close();
+    }
+
+    @Test
+    void placeOrder_whenInventoryErrorsAndResets_shouldPersistExactlyTheOrdersWhoseDeductionLanded() {
+        INVENTORY.stock(9301L, "Pulse Oximeter",
+                new BatchDto(93011L, 40, LocalDate.of(2026, 7, 1)),
+                new BatchDto(93012L, 40, LocalDate.of(2026, 8, 1)));
+        INVENTORY.setFaults(InventoryFaults.none()
+                .withLatency(InventoryFaults.Latency.uniform(1, 5))
+                .withErrors(0.15, 503)
+                .withResets(0.1));
+
+        int placed = 0;
+        for (int i = 0; i < 30; i++) {
+            ResponseEntity<OrderResponse> response =
+                    restTemplate.postForEntity("/order", new OrderRequest(9301L, 2), OrderResponse.class);
+            if (response.getStatusCode() == HttpStatus.CREATED) {
+                placed++;
+            } else {
+                assertThat(response.getStatusCode().is5xxServerError()).isTrue();
+            }
+        }
+        INVENTORY.setFaults(InventoryFaults.none());
+
+        assertThat(INVENTORY.getInjectedErrors() + INVENTORY.getInjectedResets()).isPositive();
+        assertThat(placed).isBetween(1, 29);
+        assertThat(INVENTORY.getAvailable(9301L)).isEqualTo(80 - 2L * placed);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM orders WHERE product_id = 9301", Integer.class)).isEqualTo(placed);
+
+        // Once inventory recovers, orders go through again
+        assertThat(restTemplate.postForEntity("/order", new OrderRequest(9301L, 2), OrderResponse.class)
+                .getStatusCode()).isEqualTo(HttpStatus.CREATED);
+    }
+
+    @Test
+    void placeOrder_whenInventoryIsSlowAndDripsResponses_shouldSucceedAfterTheAddedLatency() {
+        INVENTORY.stock(9302L, "Nebulizer", new BatchDto(93021L, 10, LocalDate.of(2026, 7, 1)));
+        INVENTORY.setFaults(InventoryFaults.none()
+                .withLatency(InventoryFaults.Latency.fixed(100))
+                .withSlowDrip(8, 5)
+                .onPathsEndingWith("/9302"));
+
+        long started = System.nanoTime();
+        ResponseEntity<OrderResponse> response =
+                restTemplate.postForEntity("/order", new OrderRequest(9302L, 4), OrderResponse.class);
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000;
+        INVENTORY.setFaults(InventoryFaults.none());
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(response.getBody().getReservedFromBatchIds()).containsExactly(93021L);
+        assertThat(INVENTORY.getAvailable(9302L)).isEqualTo(6);
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(100);
+    }
+}
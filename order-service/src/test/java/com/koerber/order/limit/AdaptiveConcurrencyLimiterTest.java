@@ -0,0 +1,85 @@
+package com.koerber.order.limit;
+
+import com.koerber.order.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private long now;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        properties.setMinLimit(2);
+        properties.setMaxLimit(100);
+        limiter = new AdaptiveConcurrencyLimiter("test", properties, meterRegistry, () -> now);
+    }
+
+    @Test
+    void tryAcquire_beyondLimit_rejectsAndCounts() {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            permits.add(limiter.tryAcquire().orElseThrow());
+        }
+
+        assertThat(limiter.tryAcquire()).isEmpty();
+        assertThat(meterRegistry.counter("order.concurrency.rejected", "name", "test").count()).isEqualTo(1);
+        assertThat(meterRegistry.get("order.concurrency.inflight").gauge().value()).isEqualTo(10);
+
+        permits.get(0).ignore();
+        assertThat(limiter.tryAcquire()).isPresent();
+    }
+
+    @Test
+    void steadyLatencyAtFullUtilisation_growsLimit() {
+        for (int round = 0; round < 20; round++) {
+            runRound(limiter.getLimit(), 10);
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(20);
+    }
+
+    @Test
+    void latencyRisingWellAboveBaseline_shrinksLimit() {
+        for (int round = 0; round < 20; round++) {
+            runRound(limiter.getLimit(), 10);
+        }
+        int grown = limiter.getLimit();
+
+        // Queueing: latency climbs far past tolerance x baseline
+        for (int round = 0; round < 5; round++) {
+            runRound(limiter.getLimit(), 100);
+        }
+
+        assertThat(limiter.getLimit()).isLessThan(grown / 2);
+    }
+
+    @Test
+    void droppedCalls_cutLimitMultiplicativelyDownToMinimum() {
+        for (int i = 0; i < 50; i++) {
+            limiter.tryAcquire().orElseThrow().dropped();
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(2);
+    }
+
+    private void runRound(int concurrency, long latencyMillis) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < concurrency; i++) {
+            limiter.tryAcquire().ifPresent(permits::add);
+        }
+        now += TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::success);
+    }
+}
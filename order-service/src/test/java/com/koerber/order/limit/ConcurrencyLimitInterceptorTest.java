@@ -0,0 +1,99 @@
+package com.koerber.order.limit;
+
+import com.koerber.common.exception.ServiceOverloadedException;
+import com.koerber.order.config.ConcurrencyLimitProperties;
+import com.koerber.order.exception.GlobalExceptionHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ConcurrencyLimitInterceptorTest {
+
+    private AdaptiveConcurrencyLimiter limiter;
+    private OrderStub controller;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+        properties.setInitialLimit(10);
+        limiter = new AdaptiveConcurrencyLimiter("test", properties, new SimpleMeterRegistry());
+        controller = new OrderStub();
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .addInterceptors(new ConcurrencyLimitInterceptor(limiter, "POST", 1))
+                .build();
+    }
+
+    @Test
+    void whenLimitReached_shouldShedWith503AndRetryAfter() throws Exception {
+        List<AdaptiveConcurrencyLimiter.Permit> held = new ArrayList<>();
+        while (limiter.getInFlight() < limiter.getLimit()) {
+            limiter.tryAcquire().ifPresent(held::add);
+        }
+        try {
+            mockMvc.perform(post("/order"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.error").exists());
+            assertThat(controller.calls).isZero();
+        } finally {
+            held.forEach(AdaptiveConcurrencyLimiter.Permit::ignore);
+        }
+    }
+
+    @Test
+    void whenInventoryCallIsShed_shouldLeaveTheLimitAlone() throws Exception {
+        controller.outcome = () -> {
+            throw new ServiceOverloadedException("Too many calls to the inventory service in progress", 1);
+        };
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/order")).andExpect(status().isServiceUnavailable());
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @Test
+    void whenInventoryFails_shouldCutTheLimit() {
+        controller.outcome = () -> {
+            throw new HttpServerErrorException(HttpStatus.INTERNAL_SERVER_ERROR);
+        };
+
+        assertThatThrownBy(() -> mockMvc.perform(post("/order")))
+                .hasRootCauseInstanceOf(HttpServerErrorException.class);
+
+        assertThat(limiter.getLimit()).isEqualTo(9);
+        assertThat(limiter.getInFlight()).isZero();
+    }
+
+    @RestController
+    static class OrderStub {
+
+        private Supplier<String> outcome = () -> "placed";
+        private int calls;
+
+        @PostMapping("/order")
+        String placeOrder() {
+            calls++;
+            return outcome.get();
+        }
+    }
+}
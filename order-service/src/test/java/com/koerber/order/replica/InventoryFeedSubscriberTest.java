@@ -0,0 +1,76 @@
+package com.koerber.order.replica;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.koerber.order.client.InventoryShardRouter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryFeedSubscriberTest {
+
+    private InventoryReplica replica;
+    private InventoryFeedSubscriber subscriber;
+    private InventoryFeedSubscriber.ShardFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        replica = new InventoryReplica();
+        replica.load(List.of());
+        replica.markReady();
+        subscriber = new InventoryFeedSubscriber(replica,
+                new ObjectMapper().registerModule(new JavaTimeModule()), new RestTemplateBuilder(),
+                new InventoryShardRouter(List.of("http://localhost:8081"), 160, 1), 1000);
+        ReflectionTestUtils.setField(subscriber, "running", true);
+        feed = subscriber.getFeeds().get(0);
+        ReflectionTestUtils.setField(feed, "synced", true);
+    }
+
+    @Test
+    void consume_appliesChangeEventsAndTracksSequence() throws Exception {
+        String stream = """
+                :heartbeat
+
+                id:41
+                event:change
+                data:{"sequence":41,"batchId":9,"productId":1002,"productName":"Smartphone","quantity":26,"expiryDate":"2026-05-31"}
+
+                id:42
+                event:change
+                data:{"sequence":42,"batchId":10,"productId":1002,"productName":"Smartphone","quantity":83,"expiryDate":"2026-11-15"}
+
+                """;
+
+        feed.consume(new BufferedReader(new StringReader(stream)));
+
+        assertThat(feed.getLastSequence()).isEqualTo(42);
+        assertThat(replica.getInventory(1002L).getBatches()).hasSize(2);
+        assertThat(replica.getInventory(1002L).getBatches().get(0).getQuantity()).isEqualTo(26);
+        assertThat(feed.isSynced()).isTrue();
+    }
+
+    @Test
+    void consume_resyncEvent_stopsAndRequiresSnapshot() throws Exception {
+        String stream = """
+                event:resync
+                data:
+
+                id:43
+                event:change
+                data:{"sequence":43,"batchId":9,"productId":1002,"productName":"Smartphone","quantity":1,"expiryDate":"2026-05-31"}
+
+                """;
+
+        feed.consume(new BufferedReader(new StringReader(stream)));
+
+        assertThat(feed.isSynced()).isFalse();
+        assertThat(replica.getInventory(1002L)).isNull();
+    }
+}
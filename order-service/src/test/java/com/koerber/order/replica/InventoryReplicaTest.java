@@ -0,0 +1,104 @@
+package com.koerber.order.replica;
+
+import com.koerber.order.dto.BatchDto;
+import com.koerber.order.dto.InventoryChangeDto;
+import com.koerber.order.dto.InventoryResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class InventoryReplicaTest {
+
+    private InventoryReplica replica;
+
+    @BeforeEach
+    void setUp() {
+        replica = new InventoryReplica();
+        replica.load(List.of(
+                new InventoryChangeDto(0, 2L, 1005L, "Smartwatch", 52, LocalDate.of(2026, 5, 30), 1L),
+                new InventoryChangeDto(0, 5L, 1005L, "Smartwatch", 39, LocalDate.of(2026, 3, 31), 1L),
+                new InventoryChangeDto(0, 1L, 1001L, "Laptop", 68, LocalDate.of(2026, 6, 25), 1L)
+        ));
+    }
+
+    @Test
+    void getInventory_beforeReady_returnsNull() {
+        assertThat(replica.getInventory(1005L)).isNull();
+    }
+
+    @Test
+    void getInventory_afterLoad_returnsBatchesSortedByExpiry() {
+        replica.markReady();
+
+        InventoryResponse inventory = replica.getInventory(1005L);
+
+        assertThat(inventory.getProductName()).isEqualTo("Smartwatch");
+        assertThat(inventory.getBatches()).extracting(BatchDto::getBatchId).containsExactly(5L, 2L);
+    }
+
+    @Test
+    void apply_updatesExistingBatchAndInsertsNewOneInExpiryOrder() {
+        replica.markReady();
+
+        replica.apply(new InventoryChangeDto(7, 5L, 1005L, "Smartwatch", 30, LocalDate.of(2026, 3, 31), 2L));
+        replica.apply(new InventoryChangeDto(8, 7L, 1005L, "Smartwatch", 40, LocalDate.of(2026, 4, 24), 1L));
+
+        assertThat(replica.getInventory(1005L).getBatches())
+                .extracting(BatchDto::getBatchId, BatchDto::getQuantity)
+                .containsExactly(
+                        tuple(5L, 30),
+                        tuple(7L, 40),
+                        tuple(2L, 52));
+    }
+
+    @Test
+    void apply_sameEventTwice_isIdempotent() {
+        replica.markReady();
+        InventoryChangeDto change = new InventoryChangeDto(9, 1L, 1001L, "Laptop", 60, LocalDate.of(2026, 6, 25), 2L);
+
+        replica.apply(change);
+        replica.apply(change);
+
+        assertThat(replica.getInventory(1001L).getBatches()).hasSize(1);
+        assertThat(replica.getInventory(1001L).getBatches().get(0).getQuantity()).isEqualTo(60);
+    }
+
+    @Test
+    void apply_olderVersionArrivingLate_isIgnored() {
+        replica.markReady();
+
+        replica.apply(new InventoryChangeDto(10, 1L, 1001L, "Laptop", 50, LocalDate.of(2026, 6, 25), 3L));
+        replica.apply(new InventoryChangeDto(11, 1L, 1001L, "Laptop", 60, LocalDate.of(2026, 6, 25), 2L));
+
+        assertThat(replica.getInventory(1001L).getBatches().get(0).getQuantity()).isEqualTo(50);
+    }
+
+    @Test
+    void getInventory_afterMarkStale_returnsNull() {
+        replica.markReady();
+        replica.markStale();
+
+        assertThat(replica.getInventory(1001L)).isNull();
+    }
+
+    @Test
+    void load_forOneShard_keepsProductsFromOtherShards() {
+        replica = new InventoryReplica();
+        replica.load("http://shard-a", List.of(
+                new InventoryChangeDto(0, 1L, 1001L, "Laptop", 68, LocalDate.of(2026, 6, 25), 1L)));
+        replica.load("http://shard-b", List.of(
+                new InventoryChangeDto(0, 9L, 1002L, "Smartphone", 29, LocalDate.of(2026, 5, 31), 1L)));
+        replica.markReady();
+
+        replica.load("http://shard-a", List.of(
+                new InventoryChangeDto(0, 1L, 1001L, "Laptop", 60, LocalDate.of(2026, 6, 25), 2L)));
+
+        assertThat(replica.getInventory(1001L).getBatches().get(0).getQuantity()).isEqualTo(60);
+        assertThat(replica.getInventory(1002L)).isNotNull();
+    }
+}
@@ -1,24 +1,37 @@
 package com.koerber.order.service;
 
+import com.koerber.common.tracing.Tracer;
+import com.koerber.order.allocation.InventoryColumns;
 import com.koerber.order.client.InventoryClient;
 import com.koerber.order.dto.*;
 import com.koerber.order.exception.InsufficientInventoryException;
 import com.koerber.order.model.Order;
 import com.koerber.order.model.OrderStatus;
+import com.koerber.order.repository.OrderCursor;
+import com.koerber.order.repository.OrderLineJdbcRepository;
 import com.koerber.order.repository.OrderRepository;
+import com.koerber.order.repository.OrderStatusJdbcRepository;
+import com.koerber.order.repository.ProductDailySalesRepository;
 import com.koerber.order.service.impl.DefaultOrderService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,11 +43,24 @@ class OrderServiceTest {
     @Mock
     private InventoryClient inventoryClient;
 
+    @Mock
+    private OrderLineJdbcRepository orderLineJdbcRepository;
+
+    @Mock
+    private OrderStatusJdbcRepository orderStatusJdbcRepository;
+
+    @Mock
+    private ProductDailySalesRepository productDailySalesRepository;
+
     private DefaultOrderService orderService;
 
     @BeforeEach
     void setUp() {
-        orderService = new DefaultOrderService(orderRepository, inventoryClient);
+        orderService = new DefaultOrderService(orderRepository, inventoryClient, orderLineJdbcRepository,
+                orderStatusJdbcRepository, productDailySalesRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new Tracer("order-service", span -> { }));
+        ReflectionTestUtils.setField(orderService, "statusUpdateChunkSize", 1000);
+        ReflectionTestUtils.setField(orderService, "statusUpdateMaxOrders", 100_000);
     }
 
     @Test
@@ -46,8 +72,8 @@ class OrderServiceTest {
                 new BatchDto(7L, 40, LocalDate.of(2026, 4, 24)),
                 new BatchDto(2L, 52, LocalDate.of(2026, 5, 30))
         ));
-        when(inventoryClient.getInventory(1005L)).thenReturn(inventory);
-        doNothing().when(inventoryClient).updateInventory(any());
+        when(inventoryClient.getInventory(eq(1005L), anyInt())).thenReturn(InventoryColumns.of(inventory));
+        doNothing().when(inventoryClient).updateInventory(anyLong(), any());
 
         Order savedOrder = new Order(11L, 1005L, "Smartwatch", 50, OrderStatus.PLACED, LocalDate.now(), "5,7");
         when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
@@ -59,12 +85,12 @@ class OrderServiceTest {
         assertThat(response.getReservedFromBatchIds()).containsExactly(5L, 7L);
 
         // Verify inventory updated with correct FEFO deductions
-        verify(inventoryClient).updateInventory(argThat(req ->
-                req.getBatchUpdates().size() == 2 &&
-                req.getBatchUpdates().get(0).getBatchId().equals(5L) &&
-                req.getBatchUpdates().get(0).getQuantityToDeduct() == 39 &&
-                req.getBatchUpdates().get(1).getBatchId().equals(7L) &&
-                req.getBatchUpdates().get(1).getQuantityToDeduct() == 11
+        verify(inventoryClient).updateInventory(eq(1005L), argThat(allocation ->
+                allocation.size() == 2 &&
+                allocation.batchId(0) == 5L &&
+                allocation.quantity(0) == 39 &&
+                allocation.batchId(1) == 7L &&
+                allocation.quantity(1) == 11
         ));
     }
 
@@ -75,8 +101,8 @@ class OrderServiceTest {
         InventoryResponse inventory = new InventoryResponse(1001L, "Laptop", List.of(
                 new BatchDto(1L, 68, LocalDate.of(2026, 6, 25))
         ));
-        when(inventoryClient.getInventory(1001L)).thenReturn(inventory);
-        doNothing().when(inventoryClient).updateInventory(any());
+        when(inventoryClient.getInventory(eq(1001L), anyInt())).thenReturn(InventoryColumns.of(inventory));
+        doNothing().when(inventoryClient).updateInventory(anyLong(), any());
 
         Order savedOrder = new Order(11L, 1001L, "Laptop", 10, OrderStatus.PLACED, LocalDate.now(), "1");
         when(orderRepository.save(any(Order.class))).thenReturn(savedOrder);
@@ -96,13 +122,26 @@ class OrderServiceTest {
                 new BatchDto(7L, 40, LocalDate.of(2026, 4, 24)),
                 new BatchDto(2L, 52, LocalDate.of(2026, 5, 30))
         ));
-        when(inventoryClient.getInventory(1005L)).thenReturn(inventory);
+        when(inventoryClient.getInventory(eq(1005L), anyInt())).thenReturn(InventoryColumns.of(inventory));
 
         assertThatThrownBy(() -> orderService.placeOrder(request))
                 .isInstanceOf(InsufficientInventoryException.class)
                 .hasMessageContaining("Insufficient inventory");
     }
 
+    @Test
+    void placeOrder_whenPrecheckEnabledAndCounterTooLow_shouldFailWithoutFetchingBatches() {
+        ReflectionTestUtils.setField(orderService, "availabilityPrecheckEnabled", true);
+        when(inventoryClient.getAvailability(1005L)).thenReturn(new AvailabilityResponse(1005L, 131L));
+
+        assertThatThrownBy(() -> orderService.placeOrder(new OrderRequest(1005L, 200)))
+                .isInstanceOf(InsufficientInventoryException.class)
+                .hasMessageContaining("Available: 131");
+
+        verify(inventoryClient, never()).getInventory(any(), anyInt());
+        verifyNoInteractions(orderRepository);
+    }
+
     @Test
     void placeOrder_whenQuantityIsZero_shouldThrowIllegalArgumentException() {
         OrderRequest request = new OrderRequest(1001L, 0);
@@ -119,4 +158,100 @@ class OrderServiceTest {
         assertThatThrownBy(() -> orderService.placeOrder(request))
                 .isInstanceOf(IllegalArgumentException.class);
     }
+
+    @Test
+    void placeOrder_multiLine_shouldReserveInOneCallAndBatchInsertLines() {
+        OrderRequest request = new OrderRequest(List.of(
+                new OrderLineRequest(1005L, 50), new OrderLineRequest(1001L, 2)));
+        when(inventoryClient.reserveAll(any())).thenReturn(new BulkReserveResponse(List.of(
+                new ReserveResponse(1005L, "Smartwatch", "DEFAULT",
+                        List.of(new BatchUpdateDto(5L, 39), new BatchUpdateDto(7L, 11))),
+                new ReserveResponse(1001L, "Laptop", "DEFAULT", List.of(new BatchUpdateDto(1L, 2))))));
+        when(orderRepository.save(any(Order.class))).thenAnswer(inv -> {
+            Order order = inv.getArgument(0);
+            order.setOrderId(12L);
+            return order;
+        });
+
+        OrderResponse response = orderService.placeOrder(request);
+
+        assertThat(response.getOrderId()).isEqualTo(12L);
+        assertThat(response.getQuantity()).isEqualTo(52);
+        assertThat(response.getLines()).extracting(OrderLineResponse::getReservedFromBatchIds)
+                .containsExactly(List.of(5L, 7L), List.of(1L));
+        verify(inventoryClient).reserveAll(argThat(req -> req.getLines().size() == 2));
+        verify(inventoryClient, never()).getInventory(any(), anyInt());
+        verify(inventoryClient, never()).updateInventory(any(), any());
+        verify(orderLineJdbcRepository).batchInsert(eq(12L), argThat(lines -> lines.size() == 2));
+    }
+
+    @Test
+    void placeOrder_multiLineWithInvalidQuantity_shouldNotCallInventory() {
+        OrderRequest request = new OrderRequest(List.of(
+                new OrderLineRequest(1005L, 5), new OrderLineRequest(1001L, 0)));
+
+        assertThatThrownBy(() -> orderService.placeOrder(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("greater than zero");
+        verifyNoInteractions(inventoryClient, orderRepository);
+    }
+
+    @Test
+    void findOrders_whenMoreRowsThanLimit_shouldReturnCursorForLastRow() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria(1005L, null, null, null);
+        List<OrderSummaryDto> rows = List.of(
+                new OrderSummaryDto(1L, 1005L, "Smartwatch", 10, OrderStatus.DELIVERED, LocalDate.of(2025, 12, 4)),
+                new OrderSummaryDto(3L, 1005L, "Smartwatch", 12, OrderStatus.SHIPPED, LocalDate.of(2025, 11, 14)),
+                new OrderSummaryDto(6L, 1005L, "Smartwatch", 9, OrderStatus.PLACED, LocalDate.of(2025, 11, 13))
+        );
+        when(orderRepository.findOrderSummaries(criteria, null, 3)).thenReturn(rows);
+
+        OrderPageResponse page = orderService.findOrders(criteria, null, 2);
+
+        assertThat(page.getOrders()).extracting(OrderSummaryDto::getOrderId).containsExactly(1L, 3L);
+        assertThat(OrderCursor.decode(page.getNextCursor()))
+                .isEqualTo(new OrderCursor(LocalDate.of(2025, 11, 14), 3L));
+    }
+
+    @Test
+    void findOrders_whenLimitOutOfRange_shouldThrowIllegalArgumentException() {
+        OrderSearchCriteria criteria = new OrderSearchCriteria();
+
+        assertThatThrownBy(() -> orderService.findOrders(criteria, null, 0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("limit");
+        verifyNoInteractions(orderRepository);
+    }
+
+    @Test
+    void updateStatus_shouldClassifyEachOrderAndUpdateChunksPerSourceStatus() {
+        ReflectionTestUtils.setField(orderService, "statusUpdateChunkSize", 2);
+        when(orderStatusJdbcRepository.lockStatuses(List.of(1L, 2L)))
+                .thenReturn(Map.of(1L, OrderStatus.PLACED, 2L, OrderStatus.DELIVERED));
+        when(orderStatusJdbcRepository.lockStatuses(List.of(3L, 4L)))
+                .thenReturn(Map.of(3L, OrderStatus.CANCELLED));
+        when(orderStatusJdbcRepository.updateStatus(List.of(1L), OrderStatus.PLACED, OrderStatus.CANCELLED))
+                .thenReturn(1);
+
+        OrderStatusUpdateResponse response = orderService.updateStatus(
+                new OrderStatusUpdateRequest(List.of(1L, 2L, 3L, 4L, 1L), null, OrderStatus.CANCELLED));
+
+        assertThat(response.getUpdated()).isEqualTo(1);
+        assertThat(response.getResults()).extracting(OrderStatusResult::getOutcome).containsExactly(
+                OrderStatusResult.Outcome.UPDATED, OrderStatusResult.Outcome.INVALID_TRANSITION,
+                OrderStatusResult.Outcome.UNCHANGED, OrderStatusResult.Outcome.NOT_FOUND);
+        assertThat(response.getResults().get(1).getStatus()).isEqualTo(OrderStatus.DELIVERED);
+        verify(orderStatusJdbcRepository, times(1)).updateStatus(any(), any(), any());
+    }
+
+    @Test
+    void updateStatus_withIdsAndFilter_shouldThrowIllegalArgumentException() {
+        OrderStatusUpdateRequest request = new OrderStatusUpdateRequest(
+                List.of(1L), new OrderSearchCriteria(1005L, null, null, null), OrderStatus.SHIPPED);
+
+        assertThatThrownBy(() -> orderService.updateStatus(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("either orderIds or a filter");
+        verifyNoInteractions(orderStatusJdbcRepository);
+    }
 }
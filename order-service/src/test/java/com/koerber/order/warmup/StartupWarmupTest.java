@@ -0,0 +1,63 @@
+package com.koerber.order.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.koerber.order.repository.OrderRepository;
+import com.koerber.order.repository.ProductDailySalesRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StartupWarmupTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductDailySalesRepository productDailySalesRepository;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private StartupWarmup warmup(int iterations, long maxDurationMs) {
+        return new StartupWarmup(orderRepository, productDailySalesRepository,
+                new ObjectMapper().registerModule(new JavaTimeModule()), meterRegistry,
+                true, iterations, maxDurationMs, -1L);
+    }
+
+    @Test
+    void run_shouldOnlyReadScratchProductAndPublishProgress() {
+        StartupWarmup warmup = warmup(50, 60_000);
+
+        warmup.run(null);
+
+        assertThat(warmup.getState()).isEqualTo(StartupWarmup.State.COMPLETED);
+        assertThat(warmup.getCompletedIterations()).isEqualTo(50);
+        verify(orderRepository, times(50))
+                .findOrderSummaries(argThat(criteria -> criteria.getProductId() == -1L), isNull(), eq(51));
+        verify(productDailySalesRepository, times(50)).find(-1L, null, null);
+        verifyNoMoreInteractions(orderRepository, productDailySalesRepository);
+        assertThat(meterRegistry.get("order.warmup.iterations").gauge().value()).isEqualTo(50);
+    }
+
+    @Test
+    void run_whenIterationFails_shouldEndWarmupWithoutFailingStartup() {
+        when(orderRepository.findOrderSummaries(any(), any(), anyInt()))
+                .thenThrow(new IllegalStateException("pool closed"));
+        StartupWarmup warmup = warmup(50, 60_000);
+
+        warmup.run(null);
+
+        assertThat(warmup.getState()).isEqualTo(StartupWarmup.State.FAILED);
+        assertThat(warmup.getCompletedIterations()).isZero();
+    }
+}
@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+#
+# Measures time from process launch to the first successful POST /order.
+#
+# Usage:
+#   scripts/startup-benchmark.sh default   # plain fat jars, seed data loaded
+#   scripts/startup-benchmark.sh startup   # AOT + AppCDS jars from `mvn -P startup package`
+#
+# Both services are started at the same time; the clock stops when
+# POST /order answers 201. Set RUNS to repeat the measurement.
+
+set -euo pipefail
+
+MODE="${1:-default}"
+RUNS="${RUNS:-5}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+VERSION="1.0.0-SNAPSHOT"
+
+launch() {
+    local service="$1" port="$2"
+    if [[ "$MODE" == "startup" ]]; then
+        (cd "$ROOT/$service/target/startup" && exec java \
+            -XX:SharedArchiveFile=app.jsa \
+            -Dspring.aot.enabled=true \
+            -Dspring.profiles.active=startup \
+            -jar "$service-$VERSION-startup.jar" \
+            --server.port="$port" >/dev/null 2>&1) &
+    else
+        java -jar "$ROOT/$service/target/$service-$VERSION.jar" \
+            --server.port="$port" >/dev/null 2>&1 &
+    fi
+    echo $!
+}
+
+now_ms() {
+    date +%s%3N
+}
+
+total=0
+for run in $(seq 1 "$RUNS"); do
+    start=$(now_ms)
+    inventory_pid=$(launch inventory-service 8081)
+    order_pid=$(launch order-service 8082)
+
+    until [[ "$(curl -s -o /dev/null -w '%{http_code}' -X POST http://localhost:8082/order \
+            -H 'Content-Type: application/json' \
+            -d '{"productId": 1002, "quantity": 1}')" == "201" ]]; do
+        sleep 0.05
+    done
+    elapsed=$(( $(now_ms) - start ))
+    total=$(( total + elapsed ))
+    echo "run $run: first POST /order after ${elapsed} ms"
+
+    kill "$order_pid" "$inventory_pid" 2>/dev/null || true
+    wait "$order_pid" "$inventory_pid" 2>/dev/null || true
+done
+
+echo "$MODE: mean ${total}/${RUNS} = $(( total / RUNS )) ms"
@@ -0,0 +1,48 @@
+package com.koerber.common.config;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * Startup profile: springdoc/OpenAPI beans are only created when /api-docs or the
+ * Swagger UI is first requested, instead of while the service is starting.
+ */
+@AutoConfiguration
+@Profile("startup")
+public class LazyApiDocsConfig {
+
+    private static final String[] API_DOCS_PACKAGES = {"org.springdoc.", "io.swagger."};
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyApiDocsBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                if (isApiDocsBean(name, definition)) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isApiDocsBean(String name, BeanDefinition definition) {
+        String type = definition.getBeanClassName();
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                type = factoryMethod.getReturnTypeName();
+            }
+        }
+        for (String prefix : API_DOCS_PACKAGES) {
+            if (name.startsWith(prefix) || (type != null && type.startsWith(prefix))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
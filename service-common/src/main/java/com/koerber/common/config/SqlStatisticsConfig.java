@@ -0,0 +1,33 @@
+package com.koerber.common.config;
+
+import com.koerber.common.sql.SqlStatisticsFilter;
+import com.koerber.common.sql.StatementCountingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+
+import javax.sql.DataSource;
+
+/**
+ * Routes all JDBC access through {@link StatementCountingDataSource} so per-request
+ * SQL counts include JPA, JdbcTemplate and Liquibase alike, and registers the
+ * {@link SqlStatisticsFilter} that reports them.
+ */
+@AutoConfiguration
+@Import(SqlStatisticsFilter.class)
+public class SqlStatisticsConfig {
+
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
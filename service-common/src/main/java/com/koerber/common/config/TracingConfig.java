@@ -0,0 +1,86 @@
+package com.koerber.common.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.koerber.common.tracing.FileSpanExporter;
+import com.koerber.common.tracing.InMemorySpanExporter;
+import com.koerber.common.tracing.SpanExporter;
+import com.koerber.common.tracing.TraceController;
+import com.koerber.common.tracing.Traced;
+import com.koerber.common.tracing.Tracer;
+import com.koerber.common.tracing.TracingFilter;
+import com.koerber.common.tracing.TracingMethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Path;
+
+/**
+ * Selects the span exporter ({@code tracing.exporter=memory|file|none}) and adds
+ * spans around every repository call and every bean whose type is marked
+ * {@link Traced}. Declaring another {@link SpanExporter} bean with
+ * {@code tracing.exporter=custom} plugs in a different destination.
+ */
+@AutoConfiguration
+@Import({Tracer.class, TracingFilter.class, TraceController.class})
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "memory", matchIfMissing = true)
+    public InMemorySpanExporter inMemorySpanExporter(@Value("${tracing.memory.capacity:10000}") int capacity) {
+        return new InMemorySpanExporter(capacity);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "file")
+    public FileSpanExporter fileSpanExporter(@Value("${tracing.file:./data/traces.ndjson}") Path file,
+                                             ObjectMapper objectMapper) {
+        return new FileSpanExporter(file, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "tracing.exporter", havingValue = "none")
+    public SpanExporter noopSpanExporter() {
+        return span -> { };
+    }
+
+    @Bean
+    public static BeanPostProcessor tracingPostProcessor(ObjectProvider<Tracer> tracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!isRepository(bean) && !isTraced(bean)) {
+                    return bean;
+                }
+                TracingMethodInterceptor interceptor = new TracingMethodInterceptor(tracer, beanName);
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, interceptor);
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice(interceptor);
+                return proxyFactory.getProxy();
+            }
+        };
+    }
+
+    private static boolean isRepository(Object bean) {
+        return bean instanceof org.springframework.data.repository.Repository<?, ?>
+                || AnnotatedElementUtils.hasAnnotation(AopUtils.getTargetClass(bean), Repository.class);
+    }
+
+    private static boolean isTraced(Object bean) {
+        // Searches the type hierarchy, so marking an interface covers all its implementations
+        return AnnotatedElementUtils.hasAnnotation(AopUtils.getTargetClass(bean), Traced.class);
+    }
+}
@@ -0,0 +1,20 @@
+package com.koerber.common.config;
+
+import com.koerber.common.warmup.AbstractStartupWarmup;
+import com.koerber.common.warmup.WarmupEndpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Publishes the service's startup warm-up, if it has one, as {@code /actuator/warmup}.
+ */
+@AutoConfiguration
+public class WarmupConfig {
+
+    @Bean
+    @ConditionalOnBean(AbstractStartupWarmup.class)
+    public WarmupEndpoint warmupEndpoint(AbstractStartupWarmup<?> warmup) {
+        return new WarmupEndpoint(warmup);
+    }
+}
@@ -0,0 +1,19 @@
+package com.koerber.common.exception;
+
+import lombok.Getter;
+
+/**
+ * Thrown when work is refused because a concurrency limit or cap is reached. Each
+ * service's exception handler maps it to 503 Service Unavailable with a
+ * Retry-After header, in that service's usual error body.
+ */
+@Getter
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, int retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,49 @@
+package com.koerber.common.sql;
+
+/**
+ * JDBC statements executed, and the time spent executing them, by the current thread
+ * since {@link #begin()}. Nothing is recorded on threads without an open scope.
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statements;
+    private long jdbcNanos;
+
+    /**
+     * Starts recording on the current thread, replacing any open scope.
+     */
+    public static SqlStatistics begin() {
+        SqlStatistics statistics = new SqlStatistics();
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * Stops recording on the current thread.
+     */
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    static void record(long nanos) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.jdbcNanos += nanos;
+        }
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public long getJdbcTimeMillis() {
+        return jdbcNanos / 1_000_000;
+    }
+}
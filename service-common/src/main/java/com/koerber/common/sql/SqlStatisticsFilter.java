@@ -0,0 +1,74 @@
+package com.koerber.common.sql;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the SQL issued while handling each HTTP request. The counts are published as
+ * {@code http.server.requests.sql.statements} / {@code http.server.requests.sql.time}
+ * and exposed to tests through the {@link #STATISTICS_ATTRIBUTE} request attribute.
+ * Requests over the statement or JDBC-time budget are logged.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    public static final String STATISTICS_ATTRIBUTE = SqlStatistics.class.getName();
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${sql.budget.statements:20}")
+    private int statementBudget;
+
+    @Value("${sql.budget.jdbc-time-ms:250}")
+    private long jdbcTimeBudgetMs;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.begin();
+        request.setAttribute(STATISTICS_ATTRIBUTE, statistics);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.end();
+            report(request, response, statistics);
+        }
+    }
+
+    private void report(HttpServletRequest request, HttpServletResponse response, SqlStatistics statistics) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        String status = String.valueOf(response.getStatus());
+
+        DistributionSummary.builder("http.server.requests.sql.statements")
+                .tags("method", request.getMethod(), "uri", uri, "status", status)
+                .register(meterRegistry)
+                .record(statistics.getStatements());
+        Timer.builder("http.server.requests.sql.time")
+                .tags("method", request.getMethod(), "uri", uri, "status", status)
+                .register(meterRegistry)
+                .record(statistics.getJdbcNanos(), TimeUnit.NANOSECONDS);
+
+        if (statistics.getStatements() > statementBudget || statistics.getJdbcTimeMillis() > jdbcTimeBudgetMs) {
+            log.warn("{} {} issued {} SQL statements taking {} ms (budget {} statements, {} ms)",
+                    request.getMethod(), request.getRequestURI(), statistics.getStatements(),
+                    statistics.getJdbcTimeMillis(), statementBudget, jdbcTimeBudgetMs);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.koerber.common.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends spans to a file as newline-delimited JSON. Several services may share
+ * one file, which then holds every span of a cross-service trace.
+ */
+@Slf4j
+public class FileSpanExporter implements SpanExporter, Closeable {
+
+    private final ObjectMapper objectMapper;
+    private final Writer writer;
+
+    public FileSpanExporter(Path file, ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot open span file " + file, ex);
+        }
+    }
+
+    @Override
+    public void export(SpanData span) {
+        try {
+            String line = objectMapper.writeValueAsString(span) + "\n";
+            synchronized (writer) {
+                // One write per line keeps lines whole when another process appends too
+                writer.write(line);
+                writer.flush();
+            }
+        } catch (IOException ex) {
+            log.warn("Failed to export span {}: {}", span.name(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (writer) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.koerber.common.tracing;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keeps the most recent spans in memory for GET /traces.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final Deque<SpanData> spans;
+
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+        this.spans = new ArrayDeque<>(capacity);
+    }
+
+    @Override
+    public synchronized void export(SpanData span) {
+        if (spans.size() == capacity) {
+            spans.pollFirst();
+        }
+        spans.addLast(span);
+    }
+
+    /**
+     * @return the retained spans of one trace, ordered by start time
+     */
+    public synchronized List<SpanData> getTrace(String traceId) {
+        List<SpanData> trace = new ArrayList<>();
+        for (SpanData span : spans) {
+            if (span.traceId().equals(traceId)) {
+                trace.add(span);
+            }
+        }
+        trace.sort(Comparator.comparingLong(SpanData::startEpochMicros));
+        return trace;
+    }
+
+    /**
+     * @return the root spans of the most recent traces, newest first
+     */
+    public synchronized List<SpanData> getRecentRoots(int limit) {
+        List<SpanData> roots = new ArrayList<>();
+        Set<String> seen = new LinkedHashSet<>();
+        var iterator = spans.descendingIterator();
+        while (iterator.hasNext() && roots.size() < limit) {
+            SpanData span = iterator.next();
+            if (span.parentSpanId() == null && seen.add(span.traceId())) {
+                roots.add(span);
+            }
+        }
+        return roots;
+    }
+}
@@ -0,0 +1,74 @@
+package com.koerber.common.tracing;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A timed operation. Started by {@link Tracer}, it becomes the current span of the
+ * thread until it is closed; use it in try-with-resources.
+ */
+public class Span implements AutoCloseable {
+
+    private final Tracer tracer;
+    private final Span previous;
+    private final TraceContext context;
+    private final String parentSpanId;
+    private final boolean exported;
+    private final long startEpochMicros;
+    private final long startNanos;
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private String name;
+    private String error;
+    private boolean closed;
+
+    Span(Tracer tracer, Span previous, TraceContext context, String parentSpanId, String name, boolean exported) {
+        this.tracer = tracer;
+        this.previous = previous;
+        this.context = context;
+        this.parentSpanId = parentSpanId;
+        this.exported = exported;
+        this.name = name;
+        this.startEpochMicros = ChronoUnit.MICROS.between(Instant.EPOCH, Instant.now());
+        this.startNanos = System.nanoTime();
+    }
+
+    public TraceContext context() {
+        return context;
+    }
+
+    public Span name(String name) {
+        this.name = name;
+        return this;
+    }
+
+    public Span tag(String key, Object value) {
+        tags.put(key, String.valueOf(value));
+        return this;
+    }
+
+    public Span error(Throwable ex) {
+        this.error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        return this;
+    }
+
+    Span previous() {
+        return previous;
+    }
+
+    boolean isExported() {
+        return exported;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long durationMicros = (System.nanoTime() - startNanos) / 1_000;
+        tracer.finish(this, new SpanData(context.traceId(), context.spanId(), parentSpanId, tracer.getService(),
+                name, startEpochMicros, durationMicros, Map.copyOf(tags), error));
+    }
+}
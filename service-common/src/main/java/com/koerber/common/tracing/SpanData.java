@@ -0,0 +1,22 @@
+package com.koerber.common.tracing;
+
+import java.util.Map;
+
+/**
+ * A finished span as handed to a {@link SpanExporter}.
+ *
+ * @param parentSpanId    {@code null} for the root span of a trace
+ * @param startEpochMicros wall-clock start time
+ * @param durationMicros  elapsed time measured with a monotonic clock
+ * @param error           the exception message if the span ended with an error
+ */
+public record SpanData(String traceId,
+                       String spanId,
+                       String parentSpanId,
+                       String service,
+                       String name,
+                       long startEpochMicros,
+                       long durationMicros,
+                       Map<String, String> tags,
+                       String error) {
+}
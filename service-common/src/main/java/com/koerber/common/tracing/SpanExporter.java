@@ -0,0 +1,11 @@
+package com.koerber.common.tracing;
+
+/**
+ * Receives every finished span. Called on the thread that ended the span, so
+ * implementations must be thread-safe and should not block for long.
+ */
+@FunctionalInterface
+public interface SpanExporter {
+
+    void export(SpanData span);
+}
@@ -0,0 +1,38 @@
+package com.koerber.common.tracing;
+
+/**
+ * Identifies a span within a trace, and converts it to and from a W3C
+ * {@code traceparent} header ({@code 00-<trace id>-<span id>-01}).
+ */
+public record TraceContext(String traceId, String spanId) {
+
+    public static final String TRACEPARENT_HEADER = "traceparent";
+
+    /**
+     * @return the context carried by the header, or {@code null} if it is absent or malformed
+     */
+    public static TraceContext parse(String traceparent) {
+        if (traceparent == null) {
+            return null;
+        }
+        String[] parts = traceparent.trim().split("-");
+        if (parts.length < 4 || parts[1].length() != 32 || parts[2].length() != 16
+                || !isHex(parts[1]) || !isHex(parts[2])) {
+            return null;
+        }
+        return new TraceContext(parts[1], parts[2]);
+    }
+
+    public String toTraceparent() {
+        return "00-" + traceId + "-" + spanId + "-01";
+    }
+
+    private static boolean isHex(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (Character.digit(value.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
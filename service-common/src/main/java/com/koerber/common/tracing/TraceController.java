@@ -0,0 +1,33 @@
+package com.koerber.common.tracing;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/traces")
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "tracing.exporter", havingValue = "memory", matchIfMissing = true)
+@Tag(name = "Traces", description = "Recent spans recorded by this service")
+public class TraceController {
+
+    private final InMemorySpanExporter spanExporter;
+
+    @GetMapping
+    @Operation(summary = "List the root spans of the most recent traces, newest first")
+    public ResponseEntity<List<SpanData>> recentTraces(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(spanExporter.getRecentRoots(limit));
+    }
+
+    @GetMapping("/{traceId}")
+    @Operation(summary = "Get this service's spans of one trace, ordered by start time")
+    public ResponseEntity<List<SpanData>> getTrace(@PathVariable String traceId) {
+        List<SpanData> spans = spanExporter.getTrace(traceId);
+        return spans.isEmpty() ? ResponseEntity.notFound().build() : ResponseEntity.ok(spans);
+    }
+}
@@ -0,0 +1,134 @@
+package com.koerber.common.tracing;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Starts spans and keeps track of the current span of each thread. A span started
+ * while another is current becomes its child; otherwise it starts a new trace.
+ * Spans started inside {@link #untraced}, or below such a span, are not exported.
+ */
+@Component
+public class Tracer {
+
+    private static final ThreadLocal<Span> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> UNTRACED = new ThreadLocal<>();
+
+    private final String service;
+    private final SpanExporter exporter;
+
+    public Tracer(@Value("${spring.application.name}") String service, SpanExporter exporter) {
+        this.service = service;
+        this.exporter = exporter;
+    }
+
+    /**
+     * Starts a child of the current span, or the root of a new trace.
+     */
+    public Span startSpan(String name) {
+        Span current = CURRENT.get();
+        return startSpan(name, current != null ? current.context() : null);
+    }
+
+    /**
+     * Starts a child of {@code parent}, typically a context received from another service.
+     */
+    public Span startSpan(String name, TraceContext parent) {
+        String traceId = parent != null ? parent.traceId() : randomHex(2);
+        Span current = CURRENT.get();
+        boolean exported = UNTRACED.get() == null && (current == null || current.isExported());
+        Span span = new Span(this, current, new TraceContext(traceId, randomHex(1)),
+                parent != null ? parent.spanId() : null, name, exported);
+        CURRENT.set(span);
+        return span;
+    }
+
+    /**
+     * @return the current span's context, or {@code null} outside any span
+     */
+    public static TraceContext currentContext() {
+        Span current = CURRENT.get();
+        return current != null ? current.context() : null;
+    }
+
+    /**
+     * Runs a task, such as synthetic warm-up traffic, whose spans still run through
+     * the tracing code but are not exported, so they do not crowd real requests out
+     * of the exporters.
+     */
+    public static <T> T untraced(Callable<T> task) throws Exception {
+        if (UNTRACED.get() != null) {
+            return task.call();
+        }
+        UNTRACED.set(Boolean.TRUE);
+        try {
+            return task.call();
+        } finally {
+            UNTRACED.remove();
+        }
+    }
+
+    /**
+     * Wraps a task so that spans it starts on another thread join the caller's trace,
+     * and stay unexported when the caller is {@link #untraced}.
+     */
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Span parent = CURRENT.get();
+        boolean untraced = UNTRACED.get() != null;
+        if (parent == null && !untraced) {
+            return task;
+        }
+        return () -> {
+            Span previous = CURRENT.get();
+            Boolean previousUntraced = UNTRACED.get();
+            if (parent != null) {
+                CURRENT.set(parent);
+            }
+            if (untraced) {
+                UNTRACED.set(Boolean.TRUE);
+            }
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+                if (previousUntraced == null) {
+                    UNTRACED.remove();
+                }
+            }
+        };
+    }
+
+    String getService() {
+        return service;
+    }
+
+    void finish(Span span, SpanData data) {
+        if (CURRENT.get() == span) {
+            restore(span.previous());
+        }
+        if (span.isExported()) {
+            exporter.export(data);
+        }
+    }
+
+    private static void restore(Span previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    private static String randomHex(int longs) {
+        StringBuilder hex = new StringBuilder(longs * 16);
+        for (int i = 0; i < longs; i++) {
+            String part = Long.toHexString(ThreadLocalRandom.current().nextLong());
+            hex.append("0".repeat(16 - part.length())).append(part);
+        }
+        return hex.toString();
+    }
+}
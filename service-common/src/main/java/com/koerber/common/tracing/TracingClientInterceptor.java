@@ -0,0 +1,39 @@
+package com.koerber.common.tracing;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Wraps each outgoing call in a client span and passes its context on in the
+ * {@code traceparent} header. Calls made outside any trace are left untouched.
+ */
+@RequiredArgsConstructor
+public class TracingClientInterceptor implements ClientHttpRequestInterceptor {
+
+    private final Tracer tracer;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+                                        ClientHttpRequestExecution execution) throws IOException {
+        if (Tracer.currentContext() == null) {
+            return execution.execute(request, body);
+        }
+        try (Span span = tracer.startSpan("HTTP " + request.getMethod() + " " + request.getURI().getPath())) {
+            span.tag("peer", request.getURI().getAuthority());
+            request.getHeaders().set(TraceContext.TRACEPARENT_HEADER, span.context().toTraceparent());
+            try {
+                ClientHttpResponse response = execution.execute(request, body);
+                span.tag("http.status", response.getStatusCode().value());
+                return response;
+            } catch (IOException | RuntimeException ex) {
+                span.error(ex);
+                throw ex;
+            }
+        }
+    }
+}
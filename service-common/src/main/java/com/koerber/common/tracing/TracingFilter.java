@@ -0,0 +1,54 @@
+package com.koerber.common.tracing;
+
+import com.koerber.common.sql.SqlStatistics;
+import com.koerber.common.sql.SqlStatisticsFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Opens a server span for each HTTP request. The span joins the caller's trace
+ * when a {@code traceparent} header is present, and its own context is returned
+ * in the response's {@code traceparent} header.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class TracingFilter extends OncePerRequestFilter {
+
+    private final Tracer tracer;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        TraceContext parent = TraceContext.parse(request.getHeader(TraceContext.TRACEPARENT_HEADER));
+        try (Span span = tracer.startSpan(request.getMethod() + " " + request.getRequestURI(), parent)) {
+            response.setHeader(TraceContext.TRACEPARENT_HEADER, span.context().toTraceparent());
+            try {
+                filterChain.doFilter(request, response);
+            } catch (IOException | ServletException | RuntimeException ex) {
+                span.error(ex);
+                throw ex;
+            } finally {
+                Object route = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+                if (route != null) {
+                    span.name(request.getMethod() + " " + route);
+                }
+                span.tag("http.status", response.getStatus());
+                if (request.getAttribute(SqlStatisticsFilter.STATISTICS_ATTRIBUTE) instanceof SqlStatistics sql) {
+                    span.tag("sql.statements", sql.getStatements());
+                    span.tag("sql.time.ms", sql.getJdbcTimeMillis());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.koerber.common.tracing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Wraps calls on a bean in spans named {@code <bean name>.<method>}. Calls made
+ * outside any trace, such as startup or background work, are not recorded.
+ */
+public class TracingMethodInterceptor implements MethodInterceptor {
+
+    private final ObjectProvider<Tracer> tracer;
+    private final String beanName;
+
+    public TracingMethodInterceptor(ObjectProvider<Tracer> tracer, String beanName) {
+        this.tracer = tracer;
+        this.beanName = beanName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (Tracer.currentContext() == null || invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        try (Span span = tracer.getObject().startSpan(beanName + "." + invocation.getMethod().getName())) {
+            try {
+                return invocation.proceed();
+            } catch (Throwable ex) {
+                span.error(ex);
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.koerber.common.warmup;
+
+import com.koerber.common.tracing.Tracer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a service's request hot paths in-process at startup so the JIT has
+ * compiled them before the instance takes traffic. Subclasses build their
+ * scratch data once and say what one iteration does.
+ *
+ * <p>Runs as an {@link ApplicationRunner}, so Spring Boot reports readiness
+ * ({@code /actuator/health/readiness}) as OUT_OF_SERVICE until it returns; the web
+ * server and liveness are already up meanwhile. Stops after the configured number
+ * of iterations or the maximum duration, whichever comes first. A failing
+ * iteration ends the warm-up but not startup: the instance is then only slower,
+ * not wrong. Progress is published as {@code <prefix>.warmup.iterations} and
+ * {@code <prefix>.warmup.duration}. The iterations run {@linkplain Tracer#untraced
+ * untraced}, so their spans never reach {@code /traces} or the span file.
+ *
+ * @param <S> the scratch data every iteration works on
+ */
+public abstract class AbstractStartupWarmup<S> implements ApplicationRunner {
+
+    public enum State { PENDING, RUNNING, COMPLETED, FAILED, DISABLED }
+
+    // Logged under the service's own warm-up class
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private final boolean enabled;
+    private final int iterations;
+    private final long maxDurationMs;
+
+    private final AtomicInteger completed = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private volatile long startedNanos;
+    private volatile long finishedNanos;
+
+    protected AbstractStartupWarmup(String metricPrefix, MeterRegistry meterRegistry,
+                                    boolean enabled, int iterations, long maxDurationMs) {
+        this.enabled = enabled;
+        this.iterations = iterations;
+        this.maxDurationMs = maxDurationMs;
+        Gauge.builder(metricPrefix + ".warmup.iterations", completed, AtomicInteger::get)
+                .register(meterRegistry);
+        TimeGauge.builder(metricPrefix + ".warmup.duration", this, TimeUnit.MILLISECONDS,
+                        AbstractStartupWarmup::getElapsedMs)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the data the iterations share. Counts towards the warm-up time.
+     */
+    protected abstract S prepare() throws Exception;
+
+    /**
+     * Runs the hot paths once. {@code i} counts from 0 and lets iterations vary their inputs.
+     */
+    protected abstract void iteration(S scratch, int i) throws Exception;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled || iterations <= 0) {
+            state = State.DISABLED;
+            return;
+        }
+        state = State.RUNNING;
+        startedNanos = System.nanoTime();
+        long deadline = startedNanos + TimeUnit.MILLISECONDS.toNanos(maxDurationMs);
+        try {
+            Tracer.untraced(() -> {
+                S scratch = prepare();
+                for (int i = 0; i < iterations && System.nanoTime() - deadline < 0; i++) {
+                    iteration(scratch, i);
+                    completed.incrementAndGet();
+                }
+                return null;
+            });
+            state = State.COMPLETED;
+        } catch (Exception e) {
+            state = State.FAILED;
+            log.warn("Warm-up stopped after {} iterations", completed.get(), e);
+        } finally {
+            finishedNanos = System.nanoTime();
+        }
+        log.info("Warm-up {}: {} of {} iterations in {} ms", state, completed.get(), iterations, getElapsedMs());
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getCompletedIterations() {
+        return completed.get();
+    }
+
+    public int getTargetIterations() {
+        return iterations;
+    }
+
+    /**
+     * Time spent warming up so far, or in total once finished.
+     */
+    public long getElapsedMs() {
+        long started = startedNanos;
+        if (started == 0) {
+            return 0;
+        }
+        long end = state == State.RUNNING ? System.nanoTime() : finishedNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - started);
+    }
+}
@@ -0,0 +1,28 @@
+package com.koerber.common.warmup;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/warmup}: progress of the startup warm-up.
+ */
+@Endpoint(id = "warmup")
+@RequiredArgsConstructor
+public class WarmupEndpoint {
+
+    private final AbstractStartupWarmup<?> warmup;
+
+    @ReadOperation
+    public Map<String, Object> warmup() {
+        Map<String, Object> progress = new LinkedHashMap<>();
+        progress.put("state", warmup.getState());
+        progress.put("iterations", warmup.getCompletedIterations());
+        progress.put("targetIterations", warmup.getTargetIterations());
+        progress.put("elapsedMs", warmup.getElapsedMs());
+        return progress;
+    }
+}
@@ -0,0 +1,118 @@
+package com.koerber.common.tracing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.header;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class TracerTest {
+
+    private InMemorySpanExporter exporter;
+    private Tracer tracer;
+
+    @BeforeEach
+    void setUp() {
+        exporter = new InMemorySpanExporter(100);
+        tracer = new Tracer("order-service", exporter);
+    }
+
+    @Test
+    void nestedSpans_shareTraceAndLinkToParent() {
+        String traceId;
+        try (Span root = tracer.startSpan("root")) {
+            traceId = root.context().traceId();
+            try (Span child = tracer.startSpan("child")) {
+                assertThat(Tracer.currentContext()).isEqualTo(child.context());
+            }
+            assertThat(Tracer.currentContext()).isEqualTo(root.context());
+        }
+
+        assertThat(Tracer.currentContext()).isNull();
+        assertThat(exporter.getTrace(traceId))
+                .extracting(SpanData::name)
+                .containsExactly("root", "child");
+        SpanData root = exporter.getTrace(traceId).get(0);
+        assertThat(root.parentSpanId()).isNull();
+        assertThat(exporter.getTrace(traceId).get(1).parentSpanId()).isEqualTo(root.spanId());
+    }
+
+    @Test
+    void traceparent_roundTripsAndRejectsMalformedHeaders() {
+        TraceContext context = new TraceContext("4bf92f3577b34da6a3ce929d0e0e4736", "00f067aa0ba902b7");
+
+        assertThat(TraceContext.parse(context.toTraceparent())).isEqualTo(context);
+        assertThat(TraceContext.parse("00-not-hex-01")).isNull();
+        assertThat(TraceContext.parse(null)).isNull();
+    }
+
+    @Test
+    void wrap_carriesContextToAnotherThread() throws Exception {
+        TraceContext parent;
+        String childTraceId;
+        try (Span root = tracer.startSpan("root")) {
+            parent = root.context();
+            childTraceId = CompletableFuture.supplyAsync(Tracer.wrap(() -> {
+                try (Span child = tracer.startSpan("fan-out")) {
+                    return Tracer.currentContext().traceId();
+                }
+            })).get();
+        }
+
+        assertThat(childTraceId).isEqualTo(parent.traceId());
+        assertThat(exporter.getTrace(parent.traceId())).extracting(SpanData::name).contains("fan-out");
+    }
+
+    @Test
+    void untraced_shouldRunSpansWithoutExportingThem() throws Exception {
+        String traceId = Tracer.untraced(() -> {
+            try (Span root = tracer.startSpan("warm-up")) {
+                CompletableFuture.supplyAsync(Tracer.wrap(() -> {
+                    try (Span child = tracer.startSpan("fan-out")) {
+                        return child.context();
+                    }
+                })).get();
+                return root.context().traceId();
+            }
+        });
+
+        assertThat(exporter.getTrace(traceId)).isEmpty();
+        try (Span span = tracer.startSpan("request")) {
+            traceId = span.context().traceId();
+        }
+        assertThat(exporter.getTrace(traceId)).extracting(SpanData::name).containsExactly("request");
+    }
+
+    @Test
+    void clientInterceptor_sendsChildContextInTraceparentHeader() {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(new TracingClientInterceptor(tracer));
+        MockRestServiceServer server = MockRestServiceServer.bindTo(restTemplate).build();
+
+        String traceId;
+        try (Span root = tracer.startSpan("POST /order")) {
+            traceId = root.context().traceId();
+            server.expect(requestTo("http://inventory/inventory/1002"))
+                    .andExpect(method(HttpMethod.GET))
+                    .andExpect(header(TraceContext.TRACEPARENT_HEADER, startsWith("00-" + traceId + "-")))
+                    .andRespond(withSuccess("{}", MediaType.APPLICATION_JSON));
+
+            restTemplate.getForObject("http://inventory/inventory/1002", String.class);
+        }
+
+        server.verify();
+        SpanData client = exporter.getTrace(traceId).get(1);
+        assertThat(client.name()).isEqualTo("HTTP GET /inventory/1002");
+        assertThat(client.tags()).containsEntry("http.status", "200");
+    }
+}
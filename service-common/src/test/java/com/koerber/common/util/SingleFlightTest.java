@@ -0,0 +1,84 @@
+package com.koerber.common.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private final SingleFlight<Long, String> singleFlight = new SingleFlight<>();
+    private final ExecutorService pool = Executors.newFixedThreadPool(8);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsForSameKey_shareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> singleFlight.execute(1002L, () -> {
+                loads.incrementAndGet();
+                await(release);
+                return "inventory";
+            })));
+        }
+        // Let every caller reach the in-flight call before it completes
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("inventory");
+        }
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void failure_isDeliveredToEveryWaiterAndNotRemembered() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = pool.submit(() -> singleFlight.execute(1L, () -> {
+            await(release);
+            throw new IllegalStateException("inventory down");
+        }));
+        Thread.sleep(100);
+        Future<String> follower = pool.submit(() -> singleFlight.execute(1L, () -> "unexpected"));
+        Thread.sleep(100);
+        release.countDown();
+
+        assertThatThrownBy(leader::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(follower::get).isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(singleFlight.execute(1L, () -> "recovered")).isEqualTo("recovered");
+    }
+
+    @Test
+    void differentKeys_loadIndependently() {
+        assertThat(singleFlight.execute(1L, () -> "a")).isEqualTo("a");
+        assertThat(singleFlight.execute(2L, () -> "b")).isEqualTo("b");
+        assertThat(singleFlight.execute(1L, () -> "c")).isEqualTo("c");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}